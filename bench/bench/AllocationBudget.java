@@ -0,0 +1,278 @@
+package bench;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import common.compilation.*;
+import compiler.*;
+
+/**
+ * Allocation budgets of all compiler phases.
+ *
+ * For every input size the check compiles the input phase by phase within a
+ * fresh {@link Compilation} (with a sequential back-end, so that all
+ * allocations are performed by the measuring thread) and measures the number
+ * of bytes allocated by each phase using
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}. The
+ * smallest amount measured over a number of iterations (after warm-up) is
+ * compared to the budget of the phase; the check fails if any phase exceeds
+ * its budget by more than the tolerance.
+ *
+ * Budgets are kept in a versioned file (see {@link #budgetsFileName}) with one
+ * line per phase and input size. Once an increase of allocations is intended,
+ * the file is rewritten with {@code --update} and committed together with the
+ * change that caused it.
+ *
+ * Usage (with the compiler and the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.AllocationBudget [--budgets=FILE] [--phase=PHASE|all] [--size=SIZE|all] [--warmup=N] [--iterations=N] [--update]
+ * </pre>
+ *
+ * @author zan
+ */
+public class AllocationBudget {
+
+	/** The default name of the budgets file. */
+	public static final String budgetsFileName = "bench/budgets.properties";
+
+	/** The version of the budgets file format. */
+	private static final int version = 1;
+
+	/** The default tolerance, i.e., the allowed relative excess of a budget. */
+	private static final double defaultTolerance = 0.10;
+
+	/** The stream all output of the compilations is discarded to. */
+	private static final PrintStream nullStream = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	/** The selected phases. */
+	private final List<String> phases;
+
+	/** The selected input sizes. */
+	private final List<String> sizes;
+
+	/** The number of warm-up iterations. */
+	private final int nWarmup;
+
+	/** The number of measured iterations. */
+	private final int nIterations;
+
+	public AllocationBudget(List<String> phases, List<String> sizes, int nWarmup, int nIterations) {
+		this.phases = phases;
+		this.sizes = sizes;
+		this.nWarmup = nWarmup;
+		this.nIterations = nIterations;
+	}
+
+	/** Returns the number of bytes allocated by the current thread so far. */
+	private static long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Compiles the source file within a new compilation and returns the number
+	 * of bytes allocated by each phase (up to and including the last selected
+	 * phase).
+	 */
+	private long[] iteration(Path srcFile, Path dstFile) {
+		Compilation compilation = new Compilation(nullStream, nullStream);
+		return compilation.call(() -> {
+			Main.scanCmdLine(new String[] { srcFile.toString(), "--dst-file-name=" + dstFile, "--backend-jobs=1" });
+			long[] bytes = new long[Pipeline.phases.size()];
+			int lastPhase = 0;
+			for (String phase : phases)
+				lastPhase = Math.max(lastPhase, Pipeline.phases.indexOf(phase));
+			// lexical analysis is performed on its own first and then once again by syntax analysis
+			for (int phase = 0; phase <= lastPhase; phase++) {
+				long begBytes = allocatedBytes();
+				Pipeline.run(Pipeline.phases.get(phase));
+				bytes[phase] = allocatedBytes() - begBytes;
+			}
+			return bytes;
+		});
+	}
+
+	/**
+	 * Measures the allocations of all selected phases.
+	 *
+	 * @return The number of bytes allocated (by keys {@code phase.size}).
+	 * @throws IOException If the input files cannot be prepared.
+	 */
+	public TreeMap<String, Long> measure() throws IOException {
+		TreeMap<String, Long> allocations = new TreeMap<String, Long>();
+		for (String size : sizes) {
+			Path srcFile = Inputs.write(size);
+			Path dstFile = Files.createTempFile("bench-" + size + "-", ".mms");
+			dstFile.toFile().deleteOnExit();
+			for (int i = 0; i < nWarmup; i++)
+				iteration(srcFile, dstFile);
+			long[] bytes = null;
+			for (int i = 0; i < nIterations; i++) {
+				long[] sample = iteration(srcFile, dstFile);
+				if (bytes == null)
+					bytes = sample;
+				for (int phase = 0; phase < bytes.length; phase++)
+					bytes[phase] = Math.min(bytes[phase], sample[phase]);
+			}
+			for (String phase : phases)
+				allocations.put(phase + "." + size, bytes[Pipeline.phases.indexOf(phase)]);
+		}
+		return allocations;
+	}
+
+	/** The budgets read from the budgets file. */
+	private static class Budgets {
+
+		double tolerance = defaultTolerance;
+
+		final TreeMap<String, Long> bytes = new TreeMap<String, Long>();
+
+	}
+
+	/** Reads the budgets file. */
+	private static Budgets read(Path budgetsFile) throws IOException {
+		Budgets budgets = new Budgets();
+		if (!Files.exists(budgetsFile))
+			return budgets;
+		for (String line : Files.readAllLines(budgetsFile, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] keyValue = line.split("\\s*=\\s*", 2);
+			if (keyValue.length != 2)
+				throw new IOException("Malformed line '" + line + "'.");
+			switch (keyValue[0]) {
+			case "version":
+				if (Integer.parseInt(keyValue[1]) != version)
+					throw new IOException("Unsupported version " + keyValue[1] + " of the budgets file.");
+				break;
+			case "tolerance":
+				budgets.tolerance = Double.parseDouble(keyValue[1]);
+				break;
+			default:
+				budgets.bytes.put(keyValue[0], Long.parseLong(keyValue[1]));
+			}
+		}
+		return budgets;
+	}
+
+	/** Writes the budgets file (keeping the budgets of phases not measured). */
+	private static void write(Path budgetsFile, Budgets budgets) throws IOException {
+		StringBuilder text = new StringBuilder();
+		text.append("# Allocation budgets of compiler phases in bytes (see bench.AllocationBudget).\n");
+		text.append("# Regenerate with: java bench.AllocationBudget --update\n");
+		text.append("version = ").append(version).append('\n');
+		text.append(String.format(Locale.ROOT, "tolerance = %.2f%n", budgets.tolerance));
+		// generated inputs first, then corpus programs
+		LinkedHashSet<String> sizes = new LinkedHashSet<String>(Inputs.sizes);
+		for (String key : budgets.bytes.keySet())
+			sizes.add(key.substring(key.indexOf('.') + 1));
+		for (String size : sizes) {
+			text.append('\n');
+			for (String phase : Pipeline.phases) {
+				Long bytes = budgets.bytes.get(phase + "." + size);
+				if (bytes != null)
+					text.append(phase).append('.').append(size).append(" = ").append(bytes).append('\n');
+			}
+		}
+		Files.write(budgetsFile, text.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Measures all selected phases and checks them against their budgets (or
+	 * updates the budgets).
+	 *
+	 * @param budgetsFile The budgets file.
+	 * @param update      Whether the budgets are to be updated.
+	 * @param out         The stream the results are printed to.
+	 * @return {@code true} if all phases are within their budgets.
+	 * @throws IOException If the budgets file or the input files cannot be
+	 *                     read or written.
+	 */
+	public boolean run(Path budgetsFile, boolean update, PrintStream out) throws IOException {
+		Budgets budgets = read(budgetsFile);
+		TreeMap<String, Long> allocations = measure();
+		boolean withinBudgets = true;
+		out.format("%-10s %-7s %14s %14s %8s %s%n", "Phase", "Size", "Allocated", "Budget", "Change", "");
+		for (String size : sizes) {
+			for (String phase : phases) {
+				String key = phase + "." + size;
+				long bytes = allocations.get(key);
+				Long budget = budgets.bytes.get(key);
+				String verdict;
+				if (update) {
+					verdict = "updated";
+				} else if (budget == null) {
+					verdict = "NO BUDGET";
+					withinBudgets = false;
+				} else if (bytes > budget * (1 + budgets.tolerance)) {
+					verdict = "OVER BUDGET";
+					withinBudgets = false;
+				} else {
+					verdict = "ok";
+				}
+				out.format(Locale.ROOT, "%-10s %-7s %14d %14s %8s %s%n", phase, size, bytes,
+						budget == null ? "-" : budget.toString(),
+						budget == null || budget == 0 ? "-" : String.format(Locale.ROOT, "%+.1f%%", 100.0 * (bytes - budget) / budget),
+						verdict);
+			}
+		}
+		if (update) {
+			budgets.bytes.putAll(allocations);
+			write(budgetsFile, budgets);
+			out.println("Budgets written to '" + budgetsFile + "'.");
+		}
+		return withinBudgets;
+	}
+
+	/**
+	 * The check's {@code main} method. Exits with status 1 if any phase is over
+	 * its budget.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the budgets file or the input files cannot be
+	 *                     read or written.
+	 */
+	public static void main(String[] argv) throws IOException {
+		List<String> phases = Pipeline.phases;
+		// the large input takes minutes and is checked on request only
+		List<String> sizes = Arrays.asList("small", "medium");
+		Path budgetsFile = Paths.get(budgetsFileName);
+		int nWarmup = 2;
+		int nIterations = 3;
+		boolean update = false;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.startsWith("--budgets=")) {
+				budgetsFile = Paths.get(value);
+			} else if (arg.startsWith("--phase=")) {
+				phases = value.equals("all") ? Pipeline.phases : Arrays.asList(value.split(","));
+			} else if (arg.startsWith("--size=")) {
+				sizes = value.equals("all") ? Inputs.sizes : Arrays.asList(value.split(","));
+			} else if (arg.startsWith("--warmup=")) {
+				nWarmup = Integer.parseInt(value);
+			} else if (arg.startsWith("--iterations=")) {
+				nIterations = Integer.parseInt(value);
+			} else if (arg.equals("--update")) {
+				update = true;
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+		if (!new AllocationBudget(phases, sizes, nWarmup, nIterations).run(budgetsFile, update, System.out))
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,319 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import common.compilation.*;
+import common.report.*;
+import compiler.*;
+import compiler.phases.finalize.*;
+import compiler.phases.regalloc.*;
+
+/**
+ * The quality of the code generated for the corpus programs.
+ *
+ * Every program of the corpus (see {@link Corpus}) is compiled within its own
+ * {@link Compilation} (with a sequential back-end) and the following metrics
+ * are recorded for each function once registers are allocated: the number of
+ * instructions, the number of spilled temporary variables, the numbers of
+ * loads and stores of spilled temporary variables inserted by the register
+ * allocator, the size of the frame (including the spilled temporary
+ * variables) and the number of moves left. For each program, the static size
+ * of the final code (the number of instructions and directives written out)
+ * is recorded as well.
+ *
+ * Metrics are compared to the baselines kept in a versioned file (see
+ * {@link #baselinesFileName}) with one line per program, function and metric.
+ * As all metrics are deterministic and smaller is better, the check fails if
+ * any metric exceeds its baseline by more than the tolerance (none by
+ * default); all changed metrics are listed as a diff against the baselines.
+ * Once a change of the generated code is intended, the file is rewritten with
+ * {@code --update} and committed together with the change that caused it.
+ *
+ * Usage (with the compiler and the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.CodeQuality [--baselines=FILE] [--corpus=DIR] [--program=NAME|all] [--update]
+ * </pre>
+ *
+ * @author zan
+ */
+public class CodeQuality {
+
+	/** The default name of the baselines file. */
+	public static final String baselinesFileName = "bench/codequality.properties";
+
+	/** The version of the baselines file format. */
+	private static final int version = 1;
+
+	/** The default tolerance, i.e., the allowed relative excess of a baseline. */
+	private static final double defaultTolerance = 0.0;
+
+	/** The metrics recorded for each function. */
+	public static final List<String> metrics = Collections.unmodifiableList(
+			Arrays.asList("instrs", "spilledTemps", "spillLoads", "spillStores", "frameSize", "moves"));
+
+	/** The metric recorded for each program. */
+	public static final String codeSize = "codeSize";
+
+	/** The stream all output of the compilations is discarded to. */
+	private static final PrintStream nullStream = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	/** The directory of the corpus. */
+	private final Path corpusDir;
+
+	/** The selected programs. */
+	private final List<String> programs;
+
+	public CodeQuality(Path corpusDir, List<String> programs) {
+		this.corpusDir = corpusDir;
+		this.programs = programs;
+	}
+
+	/**
+	 * Compiles the source file within a new compilation and returns its
+	 * metrics (by keys {@code function.metric} and {@code codeSize}), or
+	 * {@code null} if the compilation fails.
+	 */
+	private static LinkedHashMap<String, Long> compile(Path srcFile, Path dstFile) {
+		Compilation compilation = new Compilation(nullStream, nullStream);
+		return compilation.call(() -> {
+			try {
+				Main.scanCmdLine(new String[] { srcFile.toString(), "--dst-file-name=" + dstFile, "--backend-jobs=1" });
+				LinkedHashMap<String, Long> values = new LinkedHashMap<String, Long>();
+				Pipeline.runBefore("finalize");
+				// the final code is produced from the very same instructions, so they are counted first
+				for (ColoredGraph cg : RegAlloc.interferenceColeredGraphs()) {
+					String function = cg.fragment.frame.label.name;
+					values.put(function + ".instrs", (long) cg.numOfInstrs());
+					values.put(function + ".spilledTemps", (long) cg.numOfSpilledTemps());
+					values.put(function + ".spillLoads", (long) cg.numOfSpillLoads());
+					values.put(function + ".spillStores", (long) cg.numOfSpillStores());
+					values.put(function + ".frameSize", cg.frameSize());
+					values.put(function + ".moves", (long) cg.numOfMoves());
+				}
+				Pipeline.run("finalize");
+				values.put(codeSize, Finalize.codeSize());
+				return values;
+			} catch (Report.Error __) {
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Compiles all selected programs and collects their metrics.
+	 *
+	 * @param failed The names of programs that cannot be compiled are added to
+	 *               this list.
+	 * @return The metrics (by keys {@code program.function.metric} and
+	 *         {@code program.codeSize}).
+	 * @throws IOException If the programs cannot be read.
+	 */
+	public LinkedHashMap<String, Long> measure(List<String> failed) throws IOException {
+		LinkedHashMap<String, Long> values = new LinkedHashMap<String, Long>();
+		Path dstFile = Files.createTempFile("bench-codequality-", ".mms");
+		dstFile.toFile().deleteOnExit();
+		for (String program : programs) {
+			LinkedHashMap<String, Long> programValues = compile(corpusDir.resolve(program + ".prev"), dstFile);
+			if (programValues == null) {
+				failed.add(program);
+				continue;
+			}
+			for (Map.Entry<String, Long> value : programValues.entrySet())
+				values.put(program + "." + value.getKey(), value.getValue());
+		}
+		return values;
+	}
+
+	/** The baselines read from the baselines file. */
+	private static class Baselines {
+
+		double tolerance = defaultTolerance;
+
+		final LinkedHashMap<String, Long> values = new LinkedHashMap<String, Long>();
+
+	}
+
+	/** Reads the baselines file. */
+	private static Baselines read(Path baselinesFile) throws IOException {
+		Baselines baselines = new Baselines();
+		if (!Files.exists(baselinesFile))
+			return baselines;
+		for (String line : Files.readAllLines(baselinesFile, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] keyValue = line.split("\\s*=\\s*", 2);
+			if (keyValue.length != 2)
+				throw new IOException("Malformed line '" + line + "'.");
+			switch (keyValue[0]) {
+			case "version":
+				if (Integer.parseInt(keyValue[1]) != version)
+					throw new IOException("Unsupported version " + keyValue[1] + " of the baselines file.");
+				break;
+			case "tolerance":
+				baselines.tolerance = Double.parseDouble(keyValue[1]);
+				break;
+			default:
+				baselines.values.put(keyValue[0], Long.parseLong(keyValue[1]));
+			}
+		}
+		return baselines;
+	}
+
+	/** Writes the baselines file (keeping the baselines of programs not measured). */
+	private static void write(Path baselinesFile, Baselines baselines) throws IOException {
+		StringBuilder text = new StringBuilder();
+		text.append("# Generated code quality baselines of the corpus programs (see bench.CodeQuality).\n");
+		text.append("# Regenerate with: java bench.CodeQuality --update\n");
+		text.append("version = ").append(version).append('\n');
+		text.append(String.format(Locale.ROOT, "tolerance = %.2f%n", baselines.tolerance));
+		String prevProgram = null;
+		for (Map.Entry<String, Long> value : new TreeMap<String, Long>(baselines.values).entrySet()) {
+			String program = value.getKey().substring(0, value.getKey().indexOf('.'));
+			if (!program.equals(prevProgram))
+				text.append('\n');
+			prevProgram = program;
+			text.append(value.getKey()).append(" = ").append(value.getValue()).append('\n');
+		}
+		Files.write(baselinesFile, text.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Formats a value together with its change with respect to the baseline. */
+	private static String cell(long value, Long baseline) {
+		if (baseline == null || baseline == value)
+			return Long.toString(value);
+		return String.format(Locale.ROOT, "%d(%+d)", value, value - baseline);
+	}
+
+	/**
+	 * Compiles all selected programs, prints out their metrics and compares
+	 * them to the baselines (or updates the baselines).
+	 *
+	 * @param baselinesFile The baselines file.
+	 * @param update        Whether the baselines are to be updated.
+	 * @param out           The stream the results are printed to.
+	 * @return {@code true} if no metric exceeds its baseline.
+	 * @throws IOException If the baselines file or the programs cannot be read
+	 *                     or written.
+	 */
+	public boolean run(Path baselinesFile, boolean update, PrintStream out) throws IOException {
+		Baselines baselines = read(baselinesFile);
+		ArrayList<String> failed = new ArrayList<String>();
+		LinkedHashMap<String, Long> values = measure(failed);
+		boolean passed = failed.isEmpty();
+
+		// the metrics of all functions (changes with respect to the baselines in parentheses)
+		out.format("%-12s %-16s", "Program", "Function");
+		for (String metric : metrics)
+			out.format(" %12s", metric);
+		out.println();
+		for (String program : programs) {
+			if (failed.contains(program)) {
+				out.format("%-12s %-16s FAILED%n", program, "");
+				continue;
+			}
+			for (String key : values.keySet()) {
+				if (!key.startsWith(program + ".") || !key.endsWith("." + metrics.get(0)))
+					continue;
+				String function = key.substring(program.length() + 1, key.length() - metrics.get(0).length() - 1);
+				out.format("%-12s %-16s", program, function);
+				for (String metric : metrics) {
+					String metricKey = program + "." + function + "." + metric;
+					out.format(" %12s", cell(values.get(metricKey), update ? null : baselines.values.get(metricKey)));
+				}
+				out.println();
+			}
+			String codeSizeKey = program + "." + codeSize;
+			out.format("%-12s %-16s %12s%n", program, "(" + codeSize + ")",
+					cell(values.get(codeSizeKey), update ? null : baselines.values.get(codeSizeKey)));
+		}
+
+		if (update) {
+			for (String program : programs)
+				baselines.values.keySet().removeIf(key -> key.startsWith(program + "."));
+			baselines.values.putAll(values);
+			write(baselinesFile, baselines);
+			out.println("Baselines written to '" + baselinesFile + "'.");
+			return passed;
+		}
+
+		// the diff against the baselines
+		out.println();
+		int nChanged = 0;
+		for (Map.Entry<String, Long> value : values.entrySet()) {
+			Long baseline = baselines.values.get(value.getKey());
+			String verdict;
+			if (baseline == null) {
+				verdict = "NO BASELINE";
+				passed = false;
+			} else if (value.getValue() > baseline * (1 + baselines.tolerance)) {
+				verdict = "REGRESSION";
+				passed = false;
+			} else if (value.getValue().longValue() != baseline) {
+				verdict = value.getValue() < baseline ? "improved" : "ok";
+			} else {
+				continue;
+			}
+			nChanged++;
+			out.format(Locale.ROOT, "%-40s %8s -> %-8d %8s %s%n", value.getKey(), baseline == null ? "-" : baseline.toString(),
+					value.getValue(),
+					baseline == null || baseline == 0 ? "-" : String.format(Locale.ROOT, "%+.1f%%", 100.0 * (value.getValue() - baseline) / baseline),
+					verdict);
+		}
+		for (String key : baselines.values.keySet()) {
+			if (!values.containsKey(key) && programs.contains(key.substring(0, key.indexOf('.')))
+					&& !failed.contains(key.substring(0, key.indexOf('.')))) {
+				nChanged++;
+				out.format(Locale.ROOT, "%-40s %8d -> %-8s %8s %s%n", key, baselines.values.get(key), "-", "-", "removed");
+			}
+		}
+		out.println(nChanged == 0 ? "No changes with respect to the baselines." : nChanged + " metric(s) changed with respect to the baselines.");
+		return passed;
+	}
+
+	/**
+	 * The report's {@code main} method. Exits with status 1 if any metric
+	 * exceeds its baseline or any program cannot be compiled.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the baselines file or the programs cannot be read
+	 *                     or written.
+	 */
+	public static void main(String[] argv) throws IOException {
+		Path baselinesFile = Paths.get(baselinesFileName);
+		Path corpusDir = Paths.get(Corpus.corpusDirName);
+		List<String> programs = null;
+		boolean update = false;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.startsWith("--baselines=")) {
+				baselinesFile = Paths.get(value);
+			} else if (arg.startsWith("--corpus=")) {
+				corpusDir = Paths.get(value);
+			} else if (arg.startsWith("--program=")) {
+				programs = value.equals("all") ? null : Arrays.asList(value.split(","));
+			} else if (arg.equals("--update")) {
+				update = true;
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+		if (programs == null)
+			programs = Corpus.programs(corpusDir);
+		if (!new CodeQuality(corpusDir, programs).run(baselinesFile, update, System.out))
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,193 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import common.report.*;
+import compiler.*;
+
+/**
+ * The corpus of realistic PREV programs.
+ *
+ * Each program {@code prgs/NAME.prev} comes with its expected output
+ * {@code prgs/NAME.out}, i.e., everything the program prints out. The check
+ * compiles every program to linearized intermediate code within its own
+ * compilation, runs it by the interpreter of linearized code and compares
+ * its output to the expected one; the time of each run (including the
+ * compilation) is reported as well. If a program also comes with its expected
+ * final code {@code prgs/NAME.mms}, the program is compiled to the final code
+ * as well and the code is compared to the expected one. Once the behaviour of
+ * a program is intentionally changed, the expected outputs (and the expected
+ * final code of programs that have it) are rewritten with {@code --update}.
+ *
+ * Corpus programs are also accepted as inputs of the benchmarks (see
+ * {@link Inputs#write(String)}), e.g., {@code --size=sort,tree}.
+ *
+ * Small programs testing individual fixes of the compiler are kept apart in
+ * {@code prgs/tests} (so that they are not benchmarked) and are checked with
+ * {@code --corpus=prgs/tests}.
+ *
+ * Usage (with the compiler and the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.Corpus [--corpus=DIR] [--program=NAME|all] [--update]
+ * </pre>
+ *
+ * @author zan
+ */
+public class Corpus {
+
+	/** The default directory of the corpus. */
+	public static final String corpusDirName = "prgs";
+
+	/** The first line printed out by the compiler. */
+	private static final String banner = ":-) This is PREV compiler:\n";
+
+	/** The last line printed out by the compiler. */
+	private static final String done = ":-) Done.\n";
+
+	/** The directory of the corpus. */
+	private final Path corpusDir;
+
+	/** The selected programs. */
+	private final List<String> programs;
+
+	public Corpus(Path corpusDir, List<String> programs) {
+		this.corpusDir = corpusDir;
+		this.programs = programs;
+	}
+
+	/**
+	 * Returns the names of all programs of the corpus.
+	 *
+	 * @param corpusDir The directory of the corpus.
+	 * @return The names of programs (without the extension), sorted.
+	 * @throws IOException If the directory cannot be read.
+	 */
+	public static List<String> programs(Path corpusDir) throws IOException {
+		ArrayList<String> programs = new ArrayList<String>();
+		if (!Files.isDirectory(corpusDir))
+			return programs;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(corpusDir, "*.prev")) {
+			for (Path file : files)
+				programs.add(file.getFileName().toString().replaceFirst("\\.prev$", ""));
+		}
+		Collections.sort(programs);
+		return programs;
+	}
+
+	/**
+	 * Returns the source file of the specified program of the default corpus.
+	 *
+	 * @param program The name of the program.
+	 * @return The source file, or {@code null} if there is no such program.
+	 */
+	public static Path source(String program) {
+		Path srcFile = Paths.get(corpusDirName, program + ".prev");
+		return Files.isRegularFile(srcFile) ? srcFile : null;
+	}
+
+	/** Returns what the program printed out, i.e., the output without the messages of the compiler. */
+	private static String programOutput(String output) {
+		if (output.startsWith(banner))
+			output = output.substring(banner.length());
+		if (output.endsWith(done))
+			output = output.substring(0, output.length() - done.length());
+		return output;
+	}
+
+	/**
+	 * Runs all selected programs and compares their outputs to the expected
+	 * ones (or updates the expected outputs).
+	 *
+	 * @param update Whether the expected outputs are to be updated.
+	 * @param out    The stream the results are printed to.
+	 * @return {@code true} if all programs printed out the expected outputs.
+	 * @throws IOException If the programs or the expected outputs cannot be
+	 *                     read or written.
+	 */
+	public boolean run(boolean update, PrintStream out) throws IOException {
+		boolean passed = true;
+		out.format("%-12s %8s %10s %s%n", "Program", "Lines", "Run ms", "");
+		for (String program : programs) {
+			Path srcFile = corpusDir.resolve(program + ".prev");
+			Path outFile = corpusDir.resolve(program + ".out");
+			Path mmsFile = corpusDir.resolve(program + ".mms");
+			String src = new String(Files.readAllBytes(srcFile), StandardCharsets.UTF_8);
+
+			long begTime = System.nanoTime();
+			InMemoryCompiler.Result result = InMemoryCompiler.compile(srcFile.toString(), src,
+					new InMemoryCompiler.Options().targetPhase("lincode"));
+			long endTime = System.nanoTime();
+			String output = programOutput(result.output);
+			InMemoryCompiler.Result codeResult = null;
+			if (result.succeeded && Files.exists(mmsFile)) {
+				codeResult = InMemoryCompiler.compile(srcFile.toString(), src, new InMemoryCompiler.Options());
+				if (!codeResult.succeeded)
+					result = codeResult;
+			}
+
+			String verdict;
+			if (!result.succeeded) {
+				verdict = "FAILED";
+				passed = false;
+			} else if (update) {
+				Files.write(outFile, output.getBytes(StandardCharsets.UTF_8));
+				if (codeResult != null)
+					Files.write(mmsFile, codeResult.assembly.getBytes(StandardCharsets.UTF_8));
+				verdict = "updated";
+			} else if (!Files.exists(outFile)) {
+				verdict = "NO OUTPUT";
+				passed = false;
+			} else if (!output.equals(new String(Files.readAllBytes(outFile), StandardCharsets.UTF_8))) {
+				verdict = "WRONG OUTPUT";
+				passed = false;
+			} else if (codeResult != null && !codeResult.assembly
+					.equals(new String(Files.readAllBytes(mmsFile), StandardCharsets.UTF_8))) {
+				verdict = "WRONG CODE";
+				passed = false;
+			} else {
+				verdict = "ok";
+			}
+			out.format(Locale.ROOT, "%-12s %8d %10.1f %s%n", program, src.split("\n").length,
+					(endTime - begTime) / 1e6, verdict);
+			if (!result.succeeded)
+				for (Report.Diagnostic diagnostic : result.diagnostics)
+					out.println("    " + diagnostic);
+		}
+		return passed;
+	}
+
+	/**
+	 * The check's {@code main} method. Exits with status 1 if any program
+	 * does not print out its expected output.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the programs or the expected outputs cannot be
+	 *                     read or written.
+	 */
+	public static void main(String[] argv) throws IOException {
+		Path corpusDir = Paths.get(corpusDirName);
+		List<String> programs = null;
+		boolean update = false;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.startsWith("--corpus=")) {
+				corpusDir = Paths.get(value);
+			} else if (arg.startsWith("--program=")) {
+				programs = value.equals("all") ? null : Arrays.asList(value.split(","));
+			} else if (arg.equals("--update")) {
+				update = true;
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+		if (programs == null)
+			programs = programs(corpusDir);
+		if (!new Corpus(corpusDir, programs).run(update, System.out))
+			System.exit(1);
+	}
+
+}
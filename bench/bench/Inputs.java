@@ -0,0 +1,55 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmark inputs of different sizes, produced by {@link ProgramGenerator}
+ * with a fixed seed.
+ *
+ * @author zan
+ */
+public class Inputs {
+
+	/** The seed all inputs are generated with. */
+	public static final long seed = 2018;
+
+	/**
+	 * All sizes of inputs (a {@code huge} input exists as well, but it is used
+	 * only by the benchmarks of the lexer).
+	 */
+	public static final List<String> sizes = Collections.unmodifiableList(Arrays.asList("small", "medium", "large"));
+
+	/**
+	 * Returns the program of the specified size.
+	 *
+	 * @param size The size of the program ({@code small}, {@code medium},
+	 *             {@code large} or {@code huge}).
+	 * @return The source of the program.
+	 */
+	public static String program(String size) {
+		return new ProgramGenerator(seed, ProgramGenerator.Shape.of(size)).generate();
+	}
+
+	/**
+	 * Writes the program of the specified size to a temporary file. If the size
+	 * is the name of a program of the corpus (see {@link Corpus}), its source
+	 * file is returned instead.
+	 *
+	 * @param size The size of the program (or the name of a corpus program).
+	 * @return The temporary file (or the source file of the corpus program).
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static Path write(String size) throws IOException {
+		Path corpusFile = Corpus.source(size);
+		if (corpusFile != null)
+			return corpusFile;
+		Path file = Files.createTempFile("bench-" + size + "-", ".prev");
+		file.toFile().deleteOnExit();
+		Files.write(file, program(size).getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+
+}
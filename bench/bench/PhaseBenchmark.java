@@ -0,0 +1,205 @@
+package bench;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import common.compilation.*;
+import compiler.*;
+import compiler.phases.lexan.*;
+
+/**
+ * JMH benchmarks of all compiler phases.
+ *
+ * Each invocation of {@link #phase(Prepared)} measures a single phase (see
+ * {@link Pipeline}) within a fresh {@link Compilation}: all phases the
+ * benchmarked phase depends on are run beforehand by the invocation's setup
+ * and are not measured. Every such benchmark runs over the small, medium and
+ * large inputs (see {@link Inputs}).
+ *
+ * {@link #lexer(LexerInput, Tokens)} measures the token throughput of the
+ * lexer scanning all symbols at once into a token buffer (as syntax analysis
+ * does), both by a single thread and by all processors; the huge input is
+ * the only one large enough to be scanned in parallel chunks.
+ * {@link #symbols(Input, Tokens)} measures the lexer producing one
+ * symbol at a time (as {@code --target-phase=lexan} does).
+ *
+ * Usage (from the root of the repository, see {@code bench/pom.xml}):
+ *
+ * <pre>
+ * mvn -f bench/pom.xml package
+ * java -jar bench/target/benchmarks.jar PhaseBenchmark [-p phase=PHASE,...] [-p size=SIZE,...] [-p jobs=1|all]
+ * </pre>
+ *
+ * @author zan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhaseBenchmark {
+
+	/** The stream all output of the compilations is discarded to. */
+	private static final PrintStream nullStream = new PrintStream(OutputStream.nullOutputStream());
+
+	/** The input. */
+	@State(Scope.Thread)
+	public static class Input {
+
+		/** The size of the input. */
+		@Param({ "small", "medium", "large" })
+		public String size;
+
+		/** The source file. */
+		Path srcFile;
+
+		/** The destination file. */
+		Path dstFile;
+
+		@Setup(Level.Trial)
+		public void write() throws IOException {
+			srcFile = Inputs.write(size);
+			dstFile = Files.createTempFile("bench-" + size + "-", ".mms");
+			dstFile.toFile().deleteOnExit();
+		}
+
+		/** Creates a new compilation of the input. */
+		Compilation compilation() {
+			return PhaseBenchmark.compilation(srcFile.toString(), "--dst-file-name=" + dstFile);
+		}
+
+	}
+
+	/** The input of the lexer together with the number of threads scanning it. */
+	@State(Scope.Thread)
+	public static class LexerInput {
+
+		/** The size of the input. */
+		@Param({ "small", "medium", "large", "huge" })
+		public String size;
+
+		/** The number of threads scanning the input ({@code all} for all processors). */
+		@Param({ "1", "all" })
+		public String jobs;
+
+		/** The source file. */
+		Path srcFile;
+
+		@Setup(Level.Trial)
+		public void write() throws IOException {
+			srcFile = Inputs.write(size);
+		}
+
+		/** Creates a new compilation of the input. */
+		Compilation compilation() {
+			if (jobs.equals("all"))
+				return PhaseBenchmark.compilation(srcFile.toString());
+			return PhaseBenchmark.compilation(srcFile.toString(), "--lexer-jobs=" + jobs);
+		}
+
+	}
+
+	/** Creates a new compilation with the specified command line. */
+	private static Compilation compilation(String... argv) {
+		Compilation compilation = new Compilation(nullStream, nullStream);
+		compilation.call(() -> {
+			Main.scanCmdLine(argv);
+			return null;
+		});
+		return compilation;
+	}
+
+	/** A compilation of the input with all phases the benchmarked phase depends on done. */
+	@State(Scope.Thread)
+	public static class Prepared {
+
+		/** The phase measured by {@link PhaseBenchmark#phase(Prepared)}. */
+		@Param({ "lexan", "synan", "abstr", "seman", "frames", "imcgen", "lincode", "asmgen", "liveness",
+				"regalloc", "finalize" })
+		public String phase;
+
+		/** The compilation of the current invocation. */
+		Compilation compilation;
+
+		@Setup(Level.Invocation)
+		public void runBefore(Input input) {
+			compilation = input.compilation();
+			compilation.call(() -> {
+				Pipeline.runBefore(phase);
+				return null;
+			});
+		}
+
+	}
+
+	/** The number of symbols produced by the lexer (reported as its throughput). */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Tokens {
+
+		public long tokens;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			tokens = 0;
+		}
+
+	}
+
+	/**
+	 * Runs the benchmarked phase.
+	 *
+	 * @param prepared The compilation the phase is run within.
+	 * @return The number of symbols produced by the lexer (to be consumed by
+	 *         JMH).
+	 */
+	@Benchmark
+	public long phase(Prepared prepared) {
+		return prepared.compilation.call(() -> Pipeline.run(prepared.phase));
+	}
+
+	/**
+	 * Runs the lexer alone, scanning all symbols into a token buffer, and
+	 * counts its symbols.
+	 *
+	 * @param input   The input.
+	 * @param counter The number of symbols.
+	 * @return The number of symbols (to be consumed by JMH).
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public long lexer(LexerInput input, Tokens counter) {
+		long numOfSymbols = input.compilation().call(() -> Pipeline.run("lexan"));
+		counter.tokens += numOfSymbols;
+		return numOfSymbols;
+	}
+
+	/**
+	 * Runs the lexer alone, producing one symbol at a time, and counts its
+	 * symbols.
+	 *
+	 * @param input   The input.
+	 * @param counter The number of symbols.
+	 * @return The number of symbols (to be consumed by JMH).
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public long symbols(Input input, Tokens counter) {
+		long numOfSymbols = input.compilation().call(() -> {
+			long n = 1;
+			try (LexAn lexAn = new LexAn()) {
+				while (lexAn.lexer().token != Term.EOF)
+					n++;
+			}
+			return n;
+		});
+		counter.tokens += numOfSymbols;
+		return numOfSymbols;
+	}
+
+}
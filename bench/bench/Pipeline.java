@@ -0,0 +1,118 @@
+package bench;
+
+import java.util.*;
+
+import compiler.passes.*;
+import compiler.phases.lexan.*;
+import compiler.phases.synan.*;
+import compiler.phases.abstr.*;
+import compiler.phases.seman.*;
+import compiler.phases.frames.*;
+import compiler.phases.imcgen.*;
+import compiler.phases.lincode.*;
+import compiler.phases.asmgen.*;
+import compiler.phases.liveness.*;
+import compiler.phases.regalloc.*;
+import compiler.phases.finalize.*;
+
+/**
+ * Runs the compiler phase by phase within the current compilation, exactly as
+ * {@link compiler.Main} does, so that a single phase can be measured apart
+ * from the phases it depends on.
+ *
+ * The command line of the current compilation must have been scanned (see
+ * {@link compiler.Main#scanCmdLine(String[])}) before any phase is run.
+ *
+ * @author zan
+ */
+public class Pipeline {
+
+	/** All phases in the order they are performed. */
+	public static final List<String> phases = Collections.unmodifiableList(Arrays.asList("lexan", "synan", "abstr",
+			"seman", "frames", "imcgen", "lincode", "asmgen", "liveness", "regalloc", "finalize"));
+
+	/**
+	 * Runs all phases the specified phase depends on. Lexical analysis is
+	 * performed by syntax analysis and is therefore never run on its own.
+	 *
+	 * @param phase The phase.
+	 */
+	public static void runBefore(String phase) {
+		for (String prevPhase : phases.subList(1, Math.max(1, phases.indexOf(phase))))
+			run(prevPhase);
+	}
+
+	/**
+	 * Runs a single phase.
+	 *
+	 * @param phase The phase.
+	 * @return The number of symbols produced by the lexer if the phase is
+	 * lexical analysis, 0 otherwise.
+	 */
+	@SuppressWarnings("try") // phases log their results and record their statistics once closed
+	public static long run(String phase) {
+		switch (phase) {
+		case "lexan":
+			// all symbols at once, as syntax analysis does
+			try (LexAn lexAn = new LexAn()) {
+				return lexAn.tokens().size();
+			}
+		case "synan":
+			try (SynAn synAn = new SynAn()) {
+				synAn.parser();
+			}
+			break;
+		case "abstr":
+			try (Abstr abstr = new Abstr()) {
+				abstr.fromDerTree(SynAn.derTree());
+			}
+			break;
+		case "seman":
+			try (SemAn semAn = new SemAn()) {
+				Abstr.absTree().accept(new NameChecker(new SymbTable()), null);
+				Abstr.absTree().accept(new AddrChecker(), null);
+				Abstr.absTree().accept(new TypeChecker(), null);
+			}
+			break;
+		case "frames":
+			try (Frames frames = new Frames()) {
+				Abstr.absTree().accept(new FrameEvaluator(), null);
+			}
+			break;
+		case "imcgen":
+			try (ImcGen imcGen = new ImcGen()) {
+				Abstr.absTree().accept(new ImcExprGenerator(), null);
+			}
+			break;
+		case "lincode":
+			try (LinCode linCode = new LinCode()) {
+				Abstr.absTree().accept(new Fragmenter(), null);
+				PassManager.runImcPasses(LinCode.fragments());
+			}
+			break;
+		case "asmgen":
+			try (AsmGen asmGen = new AsmGen()) {
+				asmGen.generateInstructions(LinCode.fragments());
+			}
+			break;
+		case "liveness":
+			try (LiveAn liveAn = new LiveAn()) {
+				liveAn.livenessAnalysis(AsmGen.instructions());
+			}
+			break;
+		case "regalloc":
+			try (RegAlloc regAlloc = new RegAlloc(LiveAn.interferenceGraphs())) {
+			}
+			break;
+		case "finalize":
+			try (Finalize finalize = new Finalize()) {
+				finalize.run();
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown phase '" + phase + "'.");
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,510 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A generator of synthetic PREV programs.
+ *
+ * The generated programs are valid (they pass all phases of the compiler) and
+ * are fully determined by the seed and the shape. They consist of a number of
+ * top-level functions, each with its own local variables, nested
+ * {@code where} blocks and nested functions, loops, conditionals and long
+ * expressions. All local variables of a function are used in its result so
+ * that all of them are live at the same time. Every function calls each of
+ * its callees at most once and never within a loop, and no function calls
+ * itself (directly or indirectly), so the generated programs terminate.
+ *
+ * Usage (with the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.ProgramGenerator [--shape=small|medium|large] [--seed=N] [--funs=N] [--depth=N]
+ *                             [--nested-funs=N] [--expr=N] [--stmts=N] [--vars=N] [--rec=N]
+ *                             [--arr=N] [--out=FILE]
+ * </pre>
+ *
+ * @author zan
+ */
+public class ProgramGenerator {
+
+	/** The shape of generated programs (the defaults describe a medium program). */
+	public static class Shape {
+
+		/** The number of top-level functions. */
+		public int funs = 10;
+
+		/** The maximal nesting depth of {@code where} blocks. */
+		public int depth = 1;
+
+		/** The number of nested functions declared by each function (while nesting depth permits). */
+		public int nestedFuns = 1;
+
+		/** The number of operands of a (long) expression. */
+		public int exprLen = 6;
+
+		/** The number of statements in a function body, a loop body or a block. */
+		public int stmts = 5;
+
+		/** The number of local variables of each function. */
+		public int vars = 6;
+
+		/** The number of components of the record type. */
+		public int recSize = 4;
+
+		/** The length of arrays. */
+		public int arrLen = 10;
+
+		/**
+		 * Returns the shape of small programs.
+		 *
+		 * @return The shape.
+		 */
+		public static Shape small() {
+			Shape shape = new Shape();
+			shape.funs = 2;
+			shape.depth = 1;
+			shape.exprLen = 4;
+			shape.stmts = 4;
+			shape.vars = 4;
+			return shape;
+		}
+
+		/**
+		 * Returns the shape of medium programs.
+		 *
+		 * @return The shape.
+		 */
+		public static Shape medium() {
+			return new Shape();
+		}
+
+		/**
+		 * Returns the shape of large programs.
+		 *
+		 * @return The shape.
+		 */
+		public static Shape large() {
+			Shape shape = new Shape();
+			shape.funs = 60;
+			shape.exprLen = 10;
+			shape.vars = 12;
+			shape.recSize = 16;
+			shape.arrLen = 100;
+			return shape;
+		}
+
+		/**
+		 * Returns the shape of huge programs (large enough for the lexer to scan
+		 * them in parallel chunks).
+		 *
+		 * @return The shape.
+		 */
+		public static Shape huge() {
+			Shape shape = large();
+			shape.funs = 600;
+			return shape;
+		}
+
+		/**
+		 * Returns the shape of the specified size.
+		 *
+		 * @param size The size ({@code small}, {@code medium}, {@code large} or
+		 *             {@code huge}).
+		 * @return The shape.
+		 */
+		public static Shape of(String size) {
+			switch (size) {
+			case "small":
+				return small();
+			case "medium":
+				return medium();
+			case "large":
+				return large();
+			case "huge":
+				return huge();
+			default:
+				throw new IllegalArgumentException("Unknown size '" + size + "'.");
+			}
+		}
+
+	}
+
+	/** The shape of the generated program. */
+	private final Shape shape;
+
+	/** The source of randomness. */
+	private final Random random;
+
+	/** The program being generated. */
+	private final StringBuilder prg = new StringBuilder();
+
+	/** The counter used for naming variables. */
+	private int numOfNames = 0;
+
+	/**
+	 * Constructs a new program generator.
+	 *
+	 * @param seed  The seed.
+	 * @param shape The shape of the generated program.
+	 */
+	public ProgramGenerator(long seed, Shape shape) {
+		this.shape = shape;
+		this.random = new Random(seed);
+	}
+
+	/** A function that can be called. */
+	private static class Fun {
+
+		final String name;
+
+		final int numOfPars;
+
+		Fun(String name, int numOfPars) {
+			this.name = name;
+			this.numOfPars = numOfPars;
+		}
+
+	}
+
+	/** The variables and functions available in the part of the program being generated. */
+	private static class Scope {
+
+		/** The variables of type int that can be assigned to. */
+		final Vector<String> vars;
+
+		/** The functions that can still be called. */
+		final Vector<Fun> callees;
+
+		/** The declarations of the innermost {@code where} block. */
+		final Vector<String> decls;
+
+		/** The remaining nesting depth of {@code where} blocks. */
+		final int depth;
+
+		/** Whether the code being generated is within a loop. */
+		boolean inLoop = false;
+
+		/** The remaining nesting depth of statements. */
+		int stmtDepth = 2;
+
+		Scope(Vector<String> vars, Vector<Fun> callees, Vector<String> decls, int depth) {
+			this.vars = vars;
+			this.callees = callees;
+			this.decls = decls;
+			this.depth = depth;
+		}
+
+	}
+
+	private String name(String prefix) {
+		return prefix + (numOfNames++);
+	}
+
+	private int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	/**
+	 * Generates the program.
+	 *
+	 * @return The source of the program.
+	 */
+	public String generate() {
+		Vector<String> globals = new Vector<>();
+		Vector<String> decls = new Vector<>();
+
+		// Record and array types.
+		StringBuilder recType = new StringBuilder("rec(");
+		for (int c = 0; c < shape.recSize; c++)
+			recType.append("c" + c + ":int, ");
+		recType.append("a:arr[" + shape.arrLen + "]int)");
+		decls.add("typ Rec : " + recType);
+		decls.add("var grec : Rec");
+		decls.add("var garr : arr[" + shape.arrLen + "]int");
+		for (int g = 0; g < Math.max(1, shape.vars / 2); g++) {
+			String global = name("g");
+			decls.add("var " + global + ":int");
+			globals.add(global);
+		}
+
+		// Top-level functions.
+		Vector<String> funs = new Vector<>();
+		Fun prevFun = null;
+		for (int f = 0; f < shape.funs; f++) {
+			Vector<Fun> callees = new Vector<>();
+			if (prevFun != null)
+				callees.add(prevFun);
+			Fun fun = new Fun("f" + f, 1 + nextInt(3));
+			funs.add(function(fun, globals, callees, shape.depth));
+			prevFun = fun;
+		}
+
+		// The main program.
+		prg.append("{\n");
+		for (String global : globals)
+			prg.append("  " + global + " = " + nextInt(100) + ";\n");
+		for (int c = 0; c < shape.recSize; c++)
+			prg.append("  grec.c" + c + " = " + nextInt(100) + ";\n");
+		for (int i = 0; i < Math.min(shape.arrLen, 10); i++)
+			prg.append("  garr[" + i + "] = " + nextInt(100) + "; grec.a[" + i + "] = " + nextInt(100) + ";\n");
+		if (prevFun != null)
+			prg.append("  printint(" + call(prevFun, new Scope(globals, new Vector<>(), null, 0)) + "); println();\n");
+		prg.append("  printint(" + globals.firstElement() + "); println()\n");
+		prg.append("  : 0\n");
+		prg.append("  where\n");
+		for (String decl : decls)
+			prg.append("    " + decl + ";\n");
+		for (String fun : funs)
+			prg.append(fun).append(";\n");
+		prg.append("    fun printchar(c:char):void;\n");
+		prg.append("    fun printint(i:int):void;\n");
+		prg.append("    fun println():void\n");
+		prg.append("}\n");
+		return prg.toString();
+	}
+
+	/** Generates a function definition. */
+	private String function(Fun fun, Vector<String> outerVars, Vector<Fun> callees, int depth) {
+		Vector<String> vars = new Vector<>(outerVars);
+		StringBuilder pars = new StringBuilder();
+		for (int p = 0; p < fun.numOfPars; p++) {
+			String par = name("p");
+			pars.append(p == 0 ? "" : ", ").append(par).append(":int");
+			vars.add(par);
+		}
+
+		Vector<String> decls = new Vector<>();
+		Vector<String> locals = new Vector<>();
+		for (int v = 0; v < shape.vars; v++) {
+			String local = name("v");
+			decls.add("var " + local + ":int");
+			locals.add(local);
+		}
+		vars.addAll(locals);
+
+		// Nested functions.
+		Vector<Fun> ownCallees = new Vector<>(callees);
+		if (depth > 0) {
+			for (int n = 0; n < shape.nestedFuns; n++) {
+				Fun nestedFun = new Fun(name(fun.name + "n"), 1 + nextInt(2));
+				decls.add(function(nestedFun, vars, new Vector<>(), depth - 1).trim());
+				ownCallees.add(nestedFun);
+			}
+		}
+
+		Scope scope = new Scope(vars, ownCallees, decls, depth);
+		StringBuilder body = new StringBuilder();
+		// Initialize local variables one after another so that each depends on the previous ones.
+		for (int v = 0; v < locals.size(); v++)
+			body.append(locals.get(v) + " = " + expr(scope, 1 + nextInt(shape.exprLen)) + ";\n");
+		body.append(stmts(scope, shape.stmts));
+		// The result uses all local variables.
+		StringBuilder result = new StringBuilder();
+		for (int v = 0; v < locals.size(); v++)
+			result.append(v == 0 ? "" : (nextInt(2) == 0 ? " + " : " - ")).append(locals.get(v));
+
+		StringBuilder def = new StringBuilder();
+		def.append("    fun " + fun.name + "(" + pars + "):int =\n");
+		def.append("      {\n");
+		def.append(indent(body.toString(), "        "));
+		def.append("\n        : " + result + "\n");
+		def.append("        where\n");
+		for (int d = 0; d < decls.size(); d++)
+			def.append(indent(decls.get(d), "          ")).append(d == decls.size() - 1 ? "\n" : ";\n");
+		def.append("      }");
+		return def.toString();
+	}
+
+	/** Generates a sequence of statements (without the trailing semicolon). */
+	private String stmts(Scope scope, int numOfStmts) {
+		StringBuilder stmts = new StringBuilder();
+		for (int s = 0; s < numOfStmts; s++)
+			stmts.append(s == 0 ? "" : ";\n").append(stmt(scope));
+		return stmts.toString();
+	}
+
+	/** Generates a single statement. */
+	private String stmt(Scope scope) {
+		int kind = nextInt(12);
+		if (scope.stmtDepth > 0 && kind == 0) {
+			// Loop.
+			String counter = name("w");
+			scope.decls.add("var " + counter + ":int");
+			scope.stmtDepth--;
+			boolean inLoop = scope.inLoop;
+			scope.inLoop = true;
+			String body = stmts(scope, shape.stmts);
+			scope.inLoop = inLoop;
+			scope.stmtDepth++;
+			return counter + " = 0;\nwhile " + counter + " < " + (1 + nextInt(Math.min(10, shape.arrLen))) + " do\n"
+					+ indent(body, "  ") + ";\n  " + counter + " = " + counter + " + 1\nend";
+		}
+		if (scope.stmtDepth > 0 && kind == 1) {
+			// Conditional.
+			scope.stmtDepth--;
+			String cond = cond(scope);
+			String thenStmts = stmts(scope, 1 + nextInt(Math.max(1, shape.stmts / 3)));
+			String elseStmts = stmts(scope, 1 + nextInt(Math.max(1, shape.stmts / 3)));
+			scope.stmtDepth++;
+			return "if " + cond + " then\n" + indent(thenStmts, "  ") + "\nelse\n" + indent(elseStmts, "  ") + "\nend";
+		}
+		if (scope.stmtDepth > 0 && scope.depth > 0 && kind == 2) {
+			// Nested where block.
+			Vector<String> vars = new Vector<>(scope.vars);
+			Vector<String> decls = new Vector<>();
+			Vector<String> locals = new Vector<>();
+			for (int v = 0; v < 1 + nextInt(Math.max(1, shape.vars / 2)); v++) {
+				String local = name("u");
+				decls.add("var " + local + ":int");
+				locals.add(local);
+			}
+			vars.addAll(locals);
+			Scope inner = new Scope(vars, scope.callees, decls, scope.depth - 1);
+			inner.inLoop = scope.inLoop;
+			inner.stmtDepth = scope.stmtDepth - 1;
+			StringBuilder body = new StringBuilder();
+			for (String local : locals)
+				body.append(local + " = " + expr(inner, 1 + nextInt(shape.exprLen)) + ";\n");
+			body.append(stmts(inner, 1 + nextInt(Math.max(1, shape.stmts / 3))));
+			StringBuilder result = new StringBuilder();
+			for (int v = 0; v < locals.size(); v++)
+				result.append(v == 0 ? "" : " + ").append(locals.get(v));
+			return lvalue(scope) + " =\n  {\n" + indent(body.toString(), "    ") + "\n    : " + result + "\n    where\n"
+					+ indent(String.join(";\n", decls), "      ") + "\n  }";
+		}
+		if (kind == 3) {
+			// Record or array component.
+			switch (nextInt(3)) {
+			case 0:
+				return "grec.c" + nextInt(shape.recSize) + " = " + expr(scope, 1 + nextInt(shape.exprLen));
+			case 1:
+				return "grec.a[" + nextInt(shape.arrLen) + "] = " + expr(scope, 1 + nextInt(shape.exprLen));
+			default:
+				return "garr[" + nextInt(shape.arrLen) + "] = " + expr(scope, 1 + nextInt(shape.exprLen));
+			}
+		}
+		return lvalue(scope) + " = " + expr(scope, 1 + nextInt(shape.exprLen));
+	}
+
+	/** Returns a variable that can be assigned to. */
+	private String lvalue(Scope scope) {
+		return scope.vars.get(nextInt(scope.vars.size()));
+	}
+
+	/** Generates a condition. */
+	private String cond(Scope scope) {
+		String[] relOps = { "<", ">", "<=", ">=", "==", "!=" };
+		String cond = "(" + expr(scope, 1 + nextInt(Math.max(1, shape.exprLen / 2))) + " "
+				+ relOps[nextInt(relOps.length)] + " " + expr(scope, 1 + nextInt(Math.max(1, shape.exprLen / 2))) + ")";
+		if (nextInt(3) == 0)
+			cond = "(" + cond + (nextInt(2) == 0 ? " & " : " | ") + "!" + cond(scope) + ")";
+		return cond;
+	}
+
+	/** Generates an expression of type int with the specified number of operands. */
+	private String expr(Scope scope, int numOfOperands) {
+		if (numOfOperands == 1)
+			return operand(scope);
+		int numOfLeft = 1 + nextInt(numOfOperands - 1);
+		String fst = expr(scope, numOfLeft);
+		String snd = expr(scope, numOfOperands - numOfLeft);
+		switch (nextInt(8)) {
+		case 0:
+			return "(" + fst + " * " + snd + ")";
+		case 1:
+			return "(" + fst + " / " + (2 + nextInt(8)) + " + " + snd + ")";
+		case 2:
+			return "(" + fst + " % " + (2 + nextInt(8)) + " - " + snd + ")";
+		case 3:
+		case 4:
+			return "(" + fst + " - " + snd + ")";
+		default:
+			return "(" + fst + " + " + snd + ")";
+		}
+	}
+
+	/** Generates an operand. */
+	private String operand(Scope scope) {
+		int kind = nextInt(12);
+		if (kind == 0 && !scope.inLoop && !scope.callees.isEmpty()) {
+			// Each callee is called at most once.
+			Fun callee = scope.callees.remove(nextInt(scope.callees.size()));
+			return call(callee, scope);
+		}
+		switch (kind) {
+		case 1:
+		case 2:
+			return Integer.toString(nextInt(100));
+		case 3:
+			return "grec.c" + nextInt(shape.recSize);
+		case 4:
+			return "grec.a[" + nextInt(shape.arrLen) + "]";
+		case 5:
+			return "garr[" + nextInt(shape.arrLen) + "]";
+		default:
+			return scope.vars.get(nextInt(scope.vars.size()));
+		}
+	}
+
+	/** Generates a call of the specified function. */
+	private String call(Fun fun, Scope scope) {
+		StringBuilder args = new StringBuilder();
+		for (int a = 0; a < fun.numOfPars; a++)
+			args.append(a == 0 ? "" : ", ").append(a == 0 || scope.vars.isEmpty() ? Integer.toString(nextInt(10))
+					: scope.vars.get(nextInt(scope.vars.size())));
+		return fun.name + "(" + args + ")";
+	}
+
+	/** Indents all lines of the text. */
+	private static String indent(String text, String indent) {
+		return indent + text.replace("\n", "\n" + indent);
+	}
+
+	/**
+	 * The generator's {@code main} method.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the program cannot be written.
+	 */
+	public static void main(String[] argv) throws IOException {
+		long seed = 0;
+		Shape shape = new Shape();
+		String outFileName = null;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.startsWith("--shape=")) {
+				shape = Shape.of(value);
+			} else if (arg.startsWith("--seed=")) {
+				seed = Long.parseLong(value);
+			} else if (arg.startsWith("--funs=")) {
+				shape.funs = Integer.parseInt(value);
+			} else if (arg.startsWith("--depth=")) {
+				shape.depth = Integer.parseInt(value);
+			} else if (arg.startsWith("--nested-funs=")) {
+				shape.nestedFuns = Integer.parseInt(value);
+			} else if (arg.startsWith("--expr=")) {
+				shape.exprLen = Integer.parseInt(value);
+			} else if (arg.startsWith("--stmts=")) {
+				shape.stmts = Integer.parseInt(value);
+			} else if (arg.startsWith("--vars=")) {
+				shape.vars = Integer.parseInt(value);
+			} else if (arg.startsWith("--rec=")) {
+				shape.recSize = Integer.parseInt(value);
+			} else if (arg.startsWith("--arr=")) {
+				shape.arrLen = Integer.parseInt(value);
+			} else if (arg.startsWith("--out=")) {
+				outFileName = value;
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+		String prg = new ProgramGenerator(seed, shape).generate();
+		if (outFileName == null)
+			System.out.print(prg);
+		else
+			Files.write(Paths.get(outFileName), prg.getBytes(StandardCharsets.US_ASCII));
+	}
+
+}
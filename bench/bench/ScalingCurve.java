@@ -0,0 +1,257 @@
+package bench;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import common.compilation.*;
+import compiler.*;
+
+/**
+ * Scaling curves of all compiler phases.
+ *
+ * Compiles a series of generated programs (see {@link ProgramGenerator}) whose
+ * size doubles from one program to the next and measures the time and the
+ * number of bytes allocated by each phase. For each phase the exponents
+ * {@code k} of {@code time ~ n^k} and {@code memory ~ n^k}, where {@code n} is
+ * the number of tokens of a program, are fitted by least squares on the
+ * logarithms of the measurements. A phase whose exponent exceeds the bound is
+ * flagged as super-linear.
+ *
+ * Programs grow along one of two axes: {@code funs} doubles the number of
+ * functions (so per-function work should scale linearly), while
+ * {@code stmts} doubles the number of statements within each function (so
+ * any work quadratic in the size of a function shows up).
+ *
+ * Usage (with the compiler and the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.ScalingCurve [--axis=funs|stmts] [--steps=N] [--phase=PHASE|all] [--bound=K] [--warmup=N] [--iterations=N]
+ * </pre>
+ *
+ * @author zan
+ */
+public class ScalingCurve {
+
+	/** The seed all programs are generated with. */
+	private static final long seed = Inputs.seed;
+
+	/** The stream all output of the compilations is discarded to. */
+	private static final PrintStream nullStream = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	/** The axis programs grow along ({@code funs} or {@code stmts}). */
+	private final String axis;
+
+	/** The number of programs. */
+	private final int nSteps;
+
+	/** The selected phases. */
+	private final List<String> phases;
+
+	/** The largest exponent not flagged. */
+	private final double bound;
+
+	/** The number of warm-up iterations. */
+	private final int nWarmup;
+
+	/** The number of measured iterations per program. */
+	private final int nIterations;
+
+	public ScalingCurve(String axis, int nSteps, List<String> phases, double bound, int nWarmup, int nIterations) {
+		this.axis = axis;
+		this.nSteps = nSteps;
+		this.phases = phases;
+		this.bound = bound;
+		this.nWarmup = nWarmup;
+		this.nIterations = nIterations;
+	}
+
+	/** Returns the shape of the program of the specified step. */
+	private ProgramGenerator.Shape shape(int step) {
+		ProgramGenerator.Shape shape = ProgramGenerator.Shape.small();
+		switch (axis) {
+		case "funs":
+			shape.funs = 2 << step;
+			break;
+		case "stmts":
+			shape.stmts = 2 << step;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown axis '" + axis + "'.");
+		}
+		return shape;
+	}
+
+	/** Returns the number of bytes allocated by the current thread so far. */
+	private static long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** The measurements of a single compilation. */
+	private static class Sample {
+
+		/** The number of tokens of the program. */
+		long tokens;
+
+		/** The time of each phase in nanoseconds. */
+		final long[] time = new long[Pipeline.phases.size()];
+
+		/** The number of bytes allocated by each phase. */
+		final long[] bytes = new long[Pipeline.phases.size()];
+
+	}
+
+	/**
+	 * Compiles the source file phase by phase within a new compilation (with a
+	 * sequential back-end) and measures each phase.
+	 */
+	private static Sample iteration(Path srcFile, Path dstFile) {
+		Compilation compilation = new Compilation(nullStream, nullStream);
+		return compilation.call(() -> {
+			Main.scanCmdLine(new String[] { srcFile.toString(), "--dst-file-name=" + dstFile, "--backend-jobs=1" });
+			Sample sample = new Sample();
+			for (int phase = 0; phase < Pipeline.phases.size(); phase++) {
+				long begBytes = allocatedBytes();
+				long begTime = System.nanoTime();
+				long tokens = Pipeline.run(Pipeline.phases.get(phase));
+				sample.time[phase] = System.nanoTime() - begTime;
+				sample.bytes[phase] = allocatedBytes() - begBytes;
+				if (tokens > 0)
+					sample.tokens = tokens;
+			}
+			return sample;
+		});
+	}
+
+	/** Returns the slope of the least squares line through the points (log x, log y). */
+	private static double exponent(double[] xs, double[] ys) {
+		int n = 0;
+		double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+		for (int i = 0; i < xs.length; i++) {
+			if (xs[i] <= 0 || ys[i] <= 0)
+				continue;
+			double x = Math.log(xs[i]);
+			double y = Math.log(ys[i]);
+			n++;
+			sumX += x;
+			sumY += y;
+			sumXX += x * x;
+			sumXY += x * y;
+		}
+		double denominator = n * sumXX - sumX * sumX;
+		return (n < 2 || denominator == 0) ? Double.NaN : (n * sumXY - sumX * sumY) / denominator;
+	}
+
+	/**
+	 * Measures all programs, prints out the scaling curves and the exponents.
+	 *
+	 * @param out The stream the results are printed to.
+	 * @return {@code true} if no phase is flagged as super-linear.
+	 * @throws IOException If the programs cannot be written.
+	 */
+	public boolean run(PrintStream out) throws IOException {
+		double[] tokens = new double[nSteps];
+		double[][] times = new double[Pipeline.phases.size()][nSteps];
+		double[][] bytes = new double[Pipeline.phases.size()][nSteps];
+		Path dstFile = Files.createTempFile("bench-scaling-", ".mms");
+		dstFile.toFile().deleteOnExit();
+		for (int step = 0; step < nSteps; step++) {
+			Path srcFile = Files.createTempFile("bench-scaling-" + step + "-", ".prev");
+			srcFile.toFile().deleteOnExit();
+			String prg = new ProgramGenerator(seed, shape(step)).generate();
+			Files.write(srcFile, prg.getBytes(StandardCharsets.US_ASCII));
+			for (int i = 0; i < (step == 0 ? nWarmup : 0); i++)
+				iteration(srcFile, dstFile);
+			for (int phase = 0; phase < Pipeline.phases.size(); phase++) {
+				times[phase][step] = Double.MAX_VALUE;
+				bytes[phase][step] = Double.MAX_VALUE;
+			}
+			for (int i = 0; i < nIterations; i++) {
+				Sample sample = iteration(srcFile, dstFile);
+				tokens[step] = sample.tokens;
+				for (int phase = 0; phase < Pipeline.phases.size(); phase++) {
+					times[phase][step] = Math.min(times[phase][step], sample.time[phase] / 1e6);
+					bytes[phase][step] = Math.min(bytes[phase][step], sample.bytes[phase]);
+				}
+			}
+		}
+
+		out.format("%-10s", "Tokens");
+		for (int step = 0; step < nSteps; step++)
+			out.format(Locale.ROOT, " %12.0f", tokens[step]);
+		out.println();
+		for (String phase : phases) {
+			int p = Pipeline.phases.indexOf(phase);
+			out.format("%-10s", phase + " ms");
+			for (int step = 0; step < nSteps; step++)
+				out.format(Locale.ROOT, " %12.3f", times[p][step]);
+			out.println();
+			out.format("%-10s", phase + " KB");
+			for (int step = 0; step < nSteps; step++)
+				out.format(Locale.ROOT, " %12.0f", bytes[p][step] / 1024);
+			out.println();
+		}
+		out.println();
+
+		boolean linear = true;
+		out.format("%-10s %10s %10s %s%n", "Phase", "Time^k", "Memory^k", "");
+		for (String phase : phases) {
+			int p = Pipeline.phases.indexOf(phase);
+			double timeExponent = exponent(tokens, times[p]);
+			double bytesExponent = exponent(tokens, bytes[p]);
+			boolean flagged = timeExponent > bound || bytesExponent > bound;
+			linear &= !flagged;
+			out.format(Locale.ROOT, "%-10s %10.2f %10.2f %s%n", phase, timeExponent, bytesExponent,
+					flagged ? "SUPER-LINEAR (k > " + bound + ")" : "");
+		}
+		return linear;
+	}
+
+	/**
+	 * The report's {@code main} method. Exits with status 1 if any phase is
+	 * flagged as super-linear.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the programs cannot be written.
+	 */
+	public static void main(String[] argv) throws IOException {
+		String axis = "funs";
+		int nSteps = 5;
+		List<String> phases = Pipeline.phases;
+		double bound = 1.3;
+		int nWarmup = 3;
+		int nIterations = 3;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.startsWith("--axis=")) {
+				axis = value;
+			} else if (arg.startsWith("--steps=")) {
+				nSteps = Integer.parseInt(value);
+			} else if (arg.startsWith("--phase=")) {
+				phases = value.equals("all") ? Pipeline.phases : Arrays.asList(value.split(","));
+			} else if (arg.startsWith("--bound=")) {
+				bound = Double.parseDouble(value);
+			} else if (arg.startsWith("--warmup=")) {
+				nWarmup = Integer.parseInt(value);
+			} else if (arg.startsWith("--iterations=")) {
+				nIterations = Integer.parseInt(value);
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+		if (!new ScalingCurve(axis, nSteps, phases, bound, nWarmup, nIterations).run(System.out))
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,315 @@
+package bench;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.*;
+import java.util.stream.*;
+
+/**
+ * The fast-start distribution of the compiler and its startup benchmark.
+ *
+ * For short compiles most of the time is spent starting the JVM, loading the
+ * classes of the compiler and interpreting them. The distribution therefore
+ * consists of two files:
+ *
+ * <ul>
+ * <li>the compiler packed into a single jar file (see {@link #jarFileName})
+ * with {@code compiler.Main} as its main class and the native-image
+ * configuration ({@code META-INF/native-image}) taken from the sources, so
+ * that the very same jar file can be passed to GraalVM's
+ * {@code native-image -jar};</li>
+ * <li>an application class-data sharing archive (see
+ * {@link #archiveFileName}) of all classes loaded during a training
+ * compilation of the whole corpus (see {@link Corpus}), created with
+ * {@code -XX:ArchiveClassesAtExit}.</li>
+ * </ul>
+ *
+ * The compiler is then started as
+ *
+ * <pre>
+ * java -XX:SharedArchiveFile=dist/prev.jsa -XX:TieredStopAtLevel=1 -jar dist/prev.jar ...
+ * </pre>
+ *
+ * The archive is valid only for the JVM it has been created with and for the
+ * jar file it has been created from, so both are recreated together. As class
+ * data sharing does not archive classes loaded from directories, the archive
+ * cannot be used with the compiler's classes in a directory.
+ *
+ * The benchmark compiles a single corpus program (fib by default) in a new
+ * JVM over and over again, once per configuration (the class path of the
+ * benchmark, i.e., classes in a directory or the jar file of the benchmarks,
+ * the jar file, the jar file with the archive, the latter with the client
+ * compiler only, and a native executable if one is specified), and reports
+ * the wall time of the whole process.
+ *
+ * Usage (with the compiler and the benchmarks on the class path):
+ *
+ * <pre>
+ * java bench.Startup [--package] [--jar=FILE] [--archive=FILE] [--corpus=DIR] [--program=NAME] [--runs=N] [--native=FILE]
+ * </pre>
+ *
+ * With {@code --package} the distribution is only created; otherwise it is
+ * created first if it does not exist yet.
+ *
+ * @author zan
+ */
+public class Startup {
+
+	/** The default name of the jar file. */
+	public static final String jarFileName = "dist/prev.jar";
+
+	/** The default name of the class-data sharing archive. */
+	public static final String archiveFileName = "dist/prev.jsa";
+
+	/** The main class of the compiler. */
+	private static final String mainClass = "compiler.Main";
+
+	/** The directory the native-image configuration is taken from. */
+	private static final String nativeImageDirName = "srcs/META-INF/native-image";
+
+	/** The program compiled by default. */
+	private static final String defaultProgram = "fib";
+
+	/** Returns the JVM executable the benchmarks are running on. */
+	private static String java() {
+		return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+	}
+
+	/** The packages of the compiler (as prefixes of names of jar entries). */
+	private static final String[] compilerPackages = { "common/", "compiler/" };
+
+	/** Returns the entries (directories and jar files) of the class path. */
+	private static List<Path> classPath() {
+		ArrayList<Path> classPath = new ArrayList<Path>();
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+			if (!entry.isEmpty() && Files.exists(Paths.get(entry)))
+				classPath.add(Paths.get(entry));
+		return classPath;
+	}
+
+	/** Adds all files within a directory to a jar file (except those for which the filter fails). */
+	private static void addDir(JarOutputStream jar, Path dir, String prefix, Set<String> added) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path file : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+				String name = prefix + dir.relativize(file).toString().replace(File.separatorChar, '/');
+				// the benchmarks are not part of the compiler
+				if (name.startsWith("bench/") || !added.add(name))
+					continue;
+				jar.putNextEntry(new JarEntry(name));
+				Files.copy(file, jar);
+				jar.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * Adds the compiler's classes within a jar file (e.g., the jar file of the
+	 * benchmarks, which contains the benchmarks and their libraries as well) to
+	 * a jar file.
+	 */
+	private static void addJar(JarOutputStream jar, Path jarFile, Set<String> added) throws IOException {
+		try (JarFile classJar = new JarFile(jarFile.toFile())) {
+			for (JarEntry entry : Collections.list(classJar.entries())) {
+				String name = entry.getName();
+				if (entry.isDirectory() || Stream.of(compilerPackages).noneMatch(name::startsWith) || !added.add(name))
+					continue;
+				jar.putNextEntry(new JarEntry(name));
+				try (InputStream in = classJar.getInputStream(entry)) {
+					in.transferTo(jar);
+				}
+				jar.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * Packs the compiler's classes (found in the directories and jar files of
+	 * the class path) and the native-image configuration into a jar file.
+	 *
+	 * @param jarFile The jar file.
+	 * @throws IOException If the jar file cannot be written.
+	 */
+	public static void packageJar(Path jarFile) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+		if (jarFile.getParent() != null)
+			Files.createDirectories(jarFile.getParent());
+		HashSet<String> added = new HashSet<String>();
+		try (JarOutputStream jar = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jarFile)), manifest)) {
+			for (Path entry : classPath()) {
+				if (Files.isDirectory(entry))
+					addDir(jar, entry, "", added);
+				else
+					addJar(jar, entry, added);
+			}
+			if (Files.isDirectory(Paths.get(nativeImageDirName)))
+				addDir(jar, Paths.get(nativeImageDirName), "META-INF/native-image/", added);
+		}
+		if (!added.contains(mainClass.replace('.', '/') + ".class"))
+			throw new IOException("No compiler classes found on the class path.");
+	}
+
+	/**
+	 * Creates the class-data sharing archive by compiling all programs of the
+	 * corpus (copied to a temporary directory) in a single JVM.
+	 *
+	 * @param jarFile     The jar file.
+	 * @param archiveFile The archive.
+	 * @param corpusDir   The directory of the corpus.
+	 * @throws IOException If the archive cannot be created.
+	 */
+	public static void createArchive(Path jarFile, Path archiveFile, Path corpusDir) throws IOException {
+		Path trainingDir = Files.createTempDirectory("bench-startup-");
+		try {
+			for (String program : Corpus.programs(corpusDir))
+				Files.copy(corpusDir.resolve(program + ".prev"), trainingDir.resolve(program + ".prev"));
+			Files.deleteIfExists(archiveFile);
+			run(Arrays.asList(java(), "-XX:ArchiveClassesAtExit=" + archiveFile, "-jar", jarFile.toString(),
+					trainingDir.toString(), "--jobs=1"));
+			if (!Files.exists(archiveFile))
+				throw new IOException("Class-data sharing archive '" + archiveFile + "' not created.");
+		} finally {
+			delete(trainingDir);
+		}
+	}
+
+	/** Deletes a directory together with its contents. */
+	private static void delete(Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(path);
+		}
+	}
+
+	/** Runs a command and returns its wall time in nanoseconds. */
+	private static long run(List<String> command) throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+		long begTime = System.nanoTime();
+		Process process = builder.start();
+		int exitValue;
+		try {
+			exitValue = process.waitFor();
+		} catch (InterruptedException ex) {
+			process.destroyForcibly();
+			throw new InterruptedIOException();
+		}
+		long endTime = System.nanoTime();
+		if (exitValue != 0)
+			throw new IOException("Command '" + String.join(" ", command) + "' exited with status " + exitValue + ".");
+		return endTime - begTime;
+	}
+
+	/**
+	 * Returns the commands starting the compiler in all configurations (by
+	 * names of configurations).
+	 */
+	private static LinkedHashMap<String, List<String>> configurations(Path jarFile, Path archiveFile, Path nativeFile) {
+		LinkedHashMap<String, List<String>> configurations = new LinkedHashMap<String, List<String>>();
+		// the class path of the benchmark itself, i.e., the compiler as built
+		configurations.put("classes", Arrays.asList(java(), "-cp", System.getProperty("java.class.path"), mainClass));
+		configurations.put("jar", Arrays.asList(java(), "-jar", jarFile.toString()));
+		// -Xshare:on fails instead of silently ignoring an unusable archive
+		configurations.put("jar+cds",
+				Arrays.asList(java(), "-Xshare:on", "-XX:SharedArchiveFile=" + archiveFile, "-jar", jarFile.toString()));
+		configurations.put("jar+cds+c1", Arrays.asList(java(), "-Xshare:on", "-XX:SharedArchiveFile=" + archiveFile,
+				"-XX:TieredStopAtLevel=1", "-jar", jarFile.toString()));
+		if (nativeFile != null)
+			configurations.put("native", Arrays.asList(nativeFile.toString()));
+		return configurations;
+	}
+
+	/**
+	 * Compiles the program in a new process once per run and configuration and
+	 * prints out the wall times.
+	 *
+	 * @param srcFile     The source file.
+	 * @param jarFile     The jar file.
+	 * @param archiveFile The class-data sharing archive.
+	 * @param nativeFile  The native executable (or {@code null}).
+	 * @param nRuns       The number of runs per configuration.
+	 * @param out         The stream the results are printed to.
+	 * @throws IOException If any compilation fails.
+	 */
+	public static void benchmark(Path srcFile, Path jarFile, Path archiveFile, Path nativeFile, int nRuns,
+			PrintStream out) throws IOException {
+		Path workDir = Files.createTempDirectory("bench-startup-");
+		try {
+			Path workSrcFile = workDir.resolve(srcFile.getFileName());
+			Files.copy(srcFile, workSrcFile);
+			List<String> args = Arrays.asList(workSrcFile.toString(),
+					"--dst-file-name=" + workDir.resolve("out.mms"));
+
+			out.format("%-12s %10s %10s %10s %8s%n", "Config", "Min ms", "Median ms", "Mean ms", "Speedup");
+			double baseMedian = 0;
+			for (Map.Entry<String, List<String>> configuration : configurations(jarFile, archiveFile, nativeFile)
+					.entrySet()) {
+				ArrayList<String> command = new ArrayList<String>(configuration.getValue());
+				command.addAll(args);
+				// a single run to bring the files into the page cache
+				run(command);
+				long[] times = new long[nRuns];
+				for (int i = 0; i < nRuns; i++)
+					times[i] = run(command);
+				Arrays.sort(times);
+				double median = (times[(nRuns - 1) / 2] + times[nRuns / 2]) / 2e6;
+				if (baseMedian == 0)
+					baseMedian = median;
+				out.format(Locale.ROOT, "%-12s %10.1f %10.1f %10.1f %7.2fx%n", configuration.getKey(), times[0] / 1e6,
+						median, LongStream.of(times).average().getAsDouble() / 1e6, baseMedian / median);
+			}
+		} finally {
+			delete(workDir);
+		}
+	}
+
+	/**
+	 * The benchmark's {@code main} method.
+	 *
+	 * @param argv Command line arguments.
+	 * @throws IOException If the distribution cannot be created or any
+	 *                     compilation fails.
+	 */
+	public static void main(String[] argv) throws IOException {
+		Path jarFile = Paths.get(jarFileName);
+		Path archiveFile = Paths.get(archiveFileName);
+		Path corpusDir = Paths.get(Corpus.corpusDirName);
+		Path nativeFile = null;
+		String program = defaultProgram;
+		int nRuns = 10;
+		boolean packageOnly = false;
+		for (String arg : argv) {
+			String value = arg.replaceFirst("^[^=]*=", "");
+			if (arg.equals("--package")) {
+				packageOnly = true;
+			} else if (arg.startsWith("--jar=")) {
+				jarFile = Paths.get(value);
+			} else if (arg.startsWith("--archive=")) {
+				archiveFile = Paths.get(value);
+			} else if (arg.startsWith("--corpus=")) {
+				corpusDir = Paths.get(value);
+			} else if (arg.startsWith("--program=")) {
+				program = value;
+			} else if (arg.startsWith("--runs=")) {
+				nRuns = Integer.parseInt(value);
+			} else if (arg.startsWith("--native=")) {
+				nativeFile = Paths.get(value);
+			} else {
+				System.err.println("Command line argument '" + arg + "' ignored.");
+			}
+		}
+
+		if (packageOnly || !Files.exists(jarFile) || !Files.exists(archiveFile)) {
+			packageJar(jarFile);
+			createArchive(jarFile, archiveFile, corpusDir);
+			System.out.println("Distribution written to '" + jarFile + "' and '" + archiveFile + "'.");
+			if (packageOnly)
+				return;
+		}
+		benchmark(corpusDir.resolve(program + ".prev"), jarFile, archiveFile, nativeFile, nRuns, System.out);
+	}
+
+}
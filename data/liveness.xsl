@@ -0,0 +1,53 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+
+    <xsl:template match="liveness">
+        <html>
+            <body>
+                <xsl:apply-templates/>
+            </body>
+        </html>
+    </xsl:template>
+
+    <xsl:template match="interferencegraph">
+        <table>
+            <tr bgcolor="FFEE00">
+                <td colspan="2">
+                    <nobr>
+                        <xsl:text>&#xA0;</xsl:text>
+                        <font style="font-family:arial black">
+                            <xsl:value-of select="@label"/>
+                        </font>
+                        <xsl:text>&#xA0;</xsl:text>
+                    </nobr>
+                </td>
+            </tr>
+            <xsl:apply-templates/>
+        </table>
+    </xsl:template>
+
+    <xsl:template match="node">
+        <tr bgcolor="00BBFF">
+            <td align="center">
+                <nobr>
+                    <xsl:text>&#xA0;</xsl:text>
+                    <font style="font-family:arial black">
+                        <xsl:value-of select="@temp"/>
+                    </font>
+                    <xsl:text>&#xA0;</xsl:text>
+                </nobr>
+            </td>
+            <td align="left">
+                <nobr>
+                    <xsl:apply-templates/>
+                </nobr>
+            </td>
+        </tr>
+    </xsl:template>
+
+    <xsl:template match="edge">
+        <xsl:text>&#xA0;</xsl:text>
+        <xsl:value-of select="@temp"/>
+    </xsl:template>
+
+</xsl:stylesheet>
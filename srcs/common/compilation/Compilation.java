@@ -0,0 +1,119 @@
+package common.compilation;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * A single compilation.
+ *
+ * All state the compiler phases keep between them (command line arguments,
+ * phase results, counters of temporaries and labels, report counters) is
+ * stored within a compilation by means of {@link CompilationLocal} values.
+ * Every thread has a current compilation; unless a compilation has been
+ * attached to a thread explicitly, a thread uses its own default compilation.
+ * Hence, several compilations can be performed within the same JVM, either
+ * one after another or concurrently, without interfering with each other.
+ *
+ * @author zan
+ *
+ */
+public class Compilation {
+
+	/** The compilation each thread is currently working on. */
+	private static final ThreadLocal<Compilation> current = ThreadLocal.withInitial(Compilation::new);
+
+	/** The values of compilation local variables. */
+	private final ConcurrentHashMap<CompilationLocal<?>, Object> values = new ConcurrentHashMap<>();
+
+	/** The stream the regular output of this compilation is printed to. */
+	public final PrintStream out;
+
+	/** The stream the diagnostics of this compilation are printed to. */
+	public final PrintStream err;
+
+	/**
+	 * Constructs a new compilation printing to the standard output and the
+	 * standard error stream.
+	 */
+	public Compilation() {
+		this(System.out, System.err);
+	}
+
+	/**
+	 * Constructs a new compilation.
+	 *
+	 * @param out
+	 *            The stream the regular output is printed to.
+	 * @param err
+	 *            The stream the diagnostics are printed to.
+	 */
+	public Compilation(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Returns the compilation the current thread is working on.
+	 *
+	 * @return The current compilation.
+	 */
+	public static Compilation current() {
+		return current.get();
+	}
+
+	/**
+	 * Runs the specified task within this compilation, i.e., with this
+	 * compilation attached to the current thread. The previously attached
+	 * compilation is restored once the task is finished.
+	 *
+	 * @param task
+	 *            The task.
+	 * @return The result of the task.
+	 */
+	public <Result> Result call(Supplier<Result> task) {
+		Compilation prev = current.get();
+		current.set(this);
+		try {
+			return task.get();
+		} finally {
+			current.set(prev);
+		}
+	}
+
+	/**
+	 * Runs the specified task within this compilation.
+	 *
+	 * @param task
+	 *            The task.
+	 */
+	public void run(Runnable task) {
+		call(() -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the value of a compilation local variable within this
+	 * compilation, initializing it if necessary.
+	 */
+	@SuppressWarnings("unchecked")
+	<Value> Value get(CompilationLocal<Value> local) {
+		Object value = values.get(local);
+		if (value == null)
+			value = values.computeIfAbsent(local, CompilationLocal::initialValue);
+		return (Value) value;
+	}
+
+	/**
+	 * Sets the value of a compilation local variable within this compilation.
+	 */
+	<Value> void set(CompilationLocal<Value> local, Value value) {
+		if (value == null)
+			values.remove(local);
+		else
+			values.put(local, value);
+	}
+
+}
@@ -0,0 +1,62 @@
+package common.compilation;
+
+import java.util.function.*;
+
+/**
+ * A variable with a separate value in each compilation (an analogue of
+ * {@link ThreadLocal} where values belong to compilations instead of
+ * threads).
+ *
+ * @author zan
+ *
+ * @param <Value>
+ *            The type of the value.
+ */
+public class CompilationLocal<Value> {
+
+	/** Produces the initial value of this variable in a new compilation. */
+	private final Supplier<Value> initial;
+
+	/**
+	 * Constructs a new compilation local variable.
+	 *
+	 * @param initial
+	 *            Produces the initial value of the variable (must not
+	 *            produce {@code null}).
+	 */
+	public CompilationLocal(Supplier<Value> initial) {
+		this.initial = initial;
+	}
+
+	/**
+	 * Constructs a new compilation local variable that is {@code null} at the
+	 * beginning of every compilation.
+	 */
+	public CompilationLocal() {
+		this(null);
+	}
+
+	Object initialValue() {
+		return initial == null ? null : initial.get();
+	}
+
+	/**
+	 * Returns the value of this variable in the current compilation.
+	 *
+	 * @return The value.
+	 */
+	public Value get() {
+		return Compilation.current().get(this);
+	}
+
+	/**
+	 * Sets the value of this variable in the current compilation.
+	 *
+	 * @param value
+	 *            The new value.
+	 */
+	public void set(Value value) {
+		Compilation.current().set(this, value);
+	}
+
+}
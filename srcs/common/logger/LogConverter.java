@@ -0,0 +1,117 @@
+package common.logger;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Converts binary logs (see {@link Logger.Format#BIN}) to XML logs.
+ *
+ * The XML log produced is the same as the one the compiler would have produced
+ * if XML logging had been requested, so it can be viewed using the same XSL
+ * files.
+ *
+ * Usage:
+ *
+ * <pre>
+ * java common.logger.LogConverter BIN-FILE [XML-FILE]
+ * </pre>
+ *
+ * If the name of the XML file is omitted, the extension of the binary file is
+ * replaced by {@code .xml}.
+ *
+ * @author zan
+ */
+public class LogConverter {
+
+	/** The binary log being read. */
+	private final DataInputStream bin;
+
+	/** The table of strings read from the binary log so far. */
+	private final ArrayList<String> strings = new ArrayList<String>();
+
+	private LogConverter(DataInputStream bin) {
+		this.bin = bin;
+	}
+
+	/** Reads a string from the binary log. */
+	private String readString() throws IOException {
+		int index = Logger.readVarInt(bin);
+		if (index > 0)
+			return strings.get(index - 1);
+		byte[] bytes = new byte[Logger.readVarInt(bin)];
+		bin.readFully(bytes);
+		String string = new String(bytes, StandardCharsets.UTF_8);
+		if (strings.size() < Logger.MAX_STRINGS)
+			strings.add(string);
+		return string;
+	}
+
+	/**
+	 * Converts the binary log to the XML log.
+	 *
+	 * @param xmlFileName The name of the XML file to be produced.
+	 * @throws IOException If the binary log cannot be read or is malformed.
+	 */
+	private void convert(String xmlFileName) throws IOException {
+		byte[] magic = new byte[Logger.MAGIC.length];
+		bin.readFully(magic);
+		if (!Arrays.equals(magic, Logger.MAGIC))
+			throw new IOException("Not a binary log.");
+		int version = bin.readUnsignedByte();
+		if (version != Logger.VERSION)
+			throw new IOException("Unsupported version " + version + " of a binary log.");
+		String xslFileName = readString();
+		if (bin.readUnsignedByte() != Logger.BEG)
+			throw new IOException("Missing root element.");
+		String phaseName = readString();
+
+		Logger logger = new Logger(phaseName, xmlFileName, xslFileName, Logger.Format.XML);
+		int depth = 1;
+		while (depth > 0) {
+			int record = bin.read();
+			switch (record) {
+			case Logger.BEG:
+				logger.begElement(readString());
+				depth++;
+				break;
+			case Logger.ATTR:
+				logger.addAttribute(readString(), readString());
+				break;
+			case Logger.END:
+				if (--depth > 0)
+					logger.endElement();
+				break;
+			case -1:
+				throw new EOFException("Binary log ends within element '" + phaseName + "'.");
+			default:
+				throw new IOException("Unknown record " + record + " in a binary log.");
+			}
+		}
+		logger.close();
+	}
+
+	/**
+	 * The converter's {@code main} method.
+	 *
+	 * @param argv Command line arguments.
+	 */
+	public static void main(String[] argv) {
+		if ((argv.length < 1) || (argv.length > 2)) {
+			System.err.println("Usage: java common.logger.LogConverter BIN-FILE [XML-FILE]");
+			System.exit(1);
+		}
+		String binFileName = argv[0];
+		String xmlFileName = argv.length > 1 ? argv[1] : binFileName.replaceFirst("(\\.[^./]*)?$", ".xml");
+		if (xmlFileName.equals(binFileName))
+			xmlFileName = binFileName + ".xml";
+		try (DataInputStream bin = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(binFileName)))) {
+			new LogConverter(bin).convert(xmlFileName);
+		} catch (IOException ex) {
+			System.err.println("Cannot convert '" + binFileName + "': " + ex.getMessage());
+			System.exit(1);
+		}
+	}
+
+}
@@ -1,38 +1,99 @@
 package common.logger;
 
 import java.io.*;
+import java.nio.charset.*;
 import java.util.*;
-import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
-import org.w3c.dom.*;
+import javax.xml.stream.*;
 import common.report.*;
 
 /**
- * A logger used for producing XML/XSL logs of program's internals at different
- * stages of a computation.
- * 
+ * A logger used for producing logs of program's internals at different stages
+ * of a computation.
+ *
+ * A log is produced either as an XML file (to be viewed using the relating XSL
+ * file) or as a compact binary file (see {@link Format#BIN}) that can be
+ * converted to the very same XML file later on using {@link LogConverter}.
+ *
+ * The log is streamed to the file as it is being produced, i.e., only the
+ * element currently being started (together with its attributes) is kept in
+ * memory. Hence, all attributes of an element must be added before any of its
+ * subelements is started.
+ *
  * @author sliva
  *
  */
 public class Logger implements AutoCloseable {
 
-	/** The name of the XML file to be produced. */
-	private final String xmlFileName;
+	/** The format of a log. */
+	public enum Format {
+
+		/** An XML document referring to the relating XSL file. */
+		XML,
+
+		/**
+		 * A compact binary encoding of the XML document.
+		 *
+		 * The file starts with the magic bytes {@code PRVL}, the version of the
+		 * format and the name of the relating XSL file. It then contains a
+		 * sequence of records, each starting with a single byte: {@link #BEG}
+		 * followed by a tag name, {@link #ATTR} followed by an attribute name and
+		 * value, or {@link #END}. Each string is encoded as a varint: 0 means a
+		 * new string follows (varint length and UTF-8 bytes) and is entered into
+		 * the table of strings (as long as the table is not full), while
+		 * {@code n > 0} refers to the {@code n}-th string of the table.
+		 */
+		BIN,
+
+	}
+
+	/** The magic bytes at the start of a binary log. */
+	static final byte[] MAGIC = { 'P', 'R', 'V', 'L' };
+
+	/** The version of the binary log format. */
+	static final int VERSION = 1;
+
+	/** A record starting an element in a binary log. */
+	static final int BEG = 1;
+
+	/** A record adding an attribute in a binary log. */
+	static final int ATTR = 2;
+
+	/** A record ending an element in a binary log. */
+	static final int END = 3;
+
+	/** The maximal number of strings in the table of strings of a binary log. */
+	static final int MAX_STRINGS = 1 << 16;
+
+	/** The name of the log file to be produced. */
+	private final String logFileName;
 
 	/** The name of the relating XSL file (to be included in the XML header). */
 	private final String xslFileName;
 
-	/** The entire XML document being constructed. */
-	private final Document doc;
+	/** The log file being written (or {@code null} if it cannot be written). */
+	private OutputStream logFile;
+
+	/** The writer of the XML document (XML logs only). */
+	private XMLStreamWriter xml;
+
+	/** The writer of the binary log (binary logs only). */
+	private DataOutputStream bin;
+
+	/** The table of strings already written to the binary log. */
+	private HashMap<String, Integer> strings;
 
-	/** The stack of the XML documents (used during construction). */
-	private final Stack<Element> elements = new Stack<Element>();
+	/** The tag name of the element started but not yet written out (if any). */
+	private String pendingTagName = null;
+
+	/** The attributes of the element started but not yet written out. */
+	private final ArrayList<String> pendingAttrs = new ArrayList<String>();
+
+	/** The number of elements started but not yet ended. */
+	private int depth = 0;
 
 	/**
-	 * Constructs a new logger.
-	 * 
+	 * Constructs a new logger producing an XML log.
+	 *
 	 * @param phaseName
 	 *            The name of the phase being logged.
 	 * @param xmlFileName
@@ -41,64 +102,186 @@ public class Logger implements AutoCloseable {
 	 *            The name of the relating XSL file.
 	 */
 	public Logger(String phaseName, String xmlFileName, String xslFileName) {
-		this.xmlFileName = xmlFileName;
+		this(phaseName, xmlFileName, xslFileName, Format.XML);
+	}
+
+	/**
+	 * Constructs a new logger.
+	 *
+	 * @param phaseName
+	 *            The name of the phase being logged.
+	 * @param logFileName
+	 *            The name of the log file to be produced.
+	 * @param xslFileName
+	 *            The name of the relating XSL file.
+	 * @param format
+	 *            The format of the log.
+	 */
+	public Logger(String phaseName, String logFileName, String xslFileName, Format format) {
+		this(phaseName, logFileName, null, xslFileName, format);
+	}
+
+	/**
+	 * Constructs a new logger writing the log to a stream instead of a file.
+	 *
+	 * @param phaseName
+	 *            The name of the phase being logged.
+	 * @param logName
+	 *            The name of the log (used in messages only).
+	 * @param logStream
+	 *            The stream the log is written to.
+	 * @param xslFileName
+	 *            The name of the relating XSL file.
+	 * @param format
+	 *            The format of the log.
+	 */
+	public Logger(String phaseName, String logName, OutputStream logStream, String xslFileName, Format format) {
+		this.logFileName = logName;
 		this.xslFileName = xslFileName;
 
 		// Prepare a new log document.
 		try {
-			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-		} catch (ParserConfigurationException ex) {
-			throw new Report.InternalError();
+			logFile = new BufferedOutputStream(logStream != null ? logStream : new FileOutputStream(logName));
+			switch (format) {
+			case XML:
+				xml = XMLOutputFactory.newInstance().createXMLStreamWriter(logFile, "UTF-8");
+				xml.writeStartDocument("UTF-8", "1.0");
+				// Add XSL declaration.
+				xml.writeProcessingInstruction("xml-stylesheet", "type=\"text/xsl\" href=\"" + this.xslFileName + "\"");
+				break;
+			case BIN:
+				bin = new DataOutputStream(logFile);
+				strings = new HashMap<String, Integer>();
+				bin.write(MAGIC);
+				bin.writeByte(VERSION);
+				writeString(this.xslFileName);
+				break;
+			}
+		} catch (IOException | XMLStreamException ex) {
+			fail();
 		}
 
-		// Create the root element representing the entire phase.
-		Element phase = doc.createElement(phaseName);
-		doc.appendChild(phase);
-		elements.push(phase);
+		// Start the root element representing the entire phase.
+		begElement(phaseName);
+	}
+
+	/** Stops writing the log once it cannot be written. */
+	private void fail() {
+		Report.warning("Cannot open log file '" + logFileName + "'.");
+		try {
+			if (logFile != null)
+				logFile.close();
+		} catch (IOException __) {
+		}
+		logFile = null;
+		xml = null;
+		bin = null;
+	}
 
-		// Add XSL declaration.
-		ProcessingInstruction xsl = doc.createProcessingInstruction("xml-stylesheet",
-				"type=\"text/xsl\" href=\"" + this.xslFileName + "\"");
-		doc.insertBefore(xsl, phase);
+	/** Tells whether the log is still being written. */
+	private boolean writing() {
+		return logFile != null;
 	}
 
 	@Override
 	public void close() {
-		try {
-			elements.pop();
-		} catch (EmptyStackException ex) {
-			throw new InternalError();
-		}
-		if (!elements.empty())
+		endElement();
+		if (depth != 0)
 			throw new InternalError();
 
-		// Dump the log document out.
+		// Finish the log document.
+		if (!writing())
+			return;
 		try {
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
-			DOMSource source = new DOMSource(doc);
-			StreamResult result = new StreamResult(new File(xmlFileName));
-			transformer.transform(source, result);
-		} catch (TransformerException ex) {
-			Report.warning("Cannot open log file '" + xmlFileName + "'.");
+			if (xml != null) {
+				xml.writeEndDocument();
+				xml.close();
+			}
+			logFile.close();
+		} catch (IOException | XMLStreamException ex) {
+			fail();
+		}
+	}
+
+	/** Writes out the start of the pending element (if any). */
+	private void writePending(boolean isEmpty) throws IOException, XMLStreamException {
+		if (pendingTagName == null)
+			return;
+		if (bin != null) {
+			bin.writeByte(BEG);
+			writeString(pendingTagName);
+			for (int attr = 0; attr < pendingAttrs.size(); attr += 2) {
+				bin.writeByte(ATTR);
+				writeString(pendingAttrs.get(attr));
+				writeString(pendingAttrs.get(attr + 1));
+			}
+			if (isEmpty)
+				bin.writeByte(END);
+		} else {
+			if (isEmpty)
+				xml.writeEmptyElement(pendingTagName);
+			else
+				xml.writeStartElement(pendingTagName);
+			for (int attr = 0; attr < pendingAttrs.size(); attr += 2)
+				xml.writeAttribute(pendingAttrs.get(attr), pendingAttrs.get(attr + 1));
+		}
+		pendingTagName = null;
+		pendingAttrs.clear();
+	}
+
+	/** Writes out a string to the binary log. */
+	private void writeString(String string) throws IOException {
+		Integer index = strings.get(string);
+		if (index != null) {
+			writeVarInt(bin, index + 1);
+			return;
+		}
+		writeVarInt(bin, 0);
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bin, bytes.length);
+		bin.write(bytes);
+		if (strings.size() < MAX_STRINGS)
+			strings.put(string, strings.size());
+	}
+
+	/** Writes out a nonnegative integer using 7 bits per byte. */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/** Reads a nonnegative integer written by {@link #writeVarInt}. */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
 		}
+		throw new IOException("Malformed varint.");
 	}
 
 	/**
 	 * Starts a new XML element (within the active XML element) and makes it
 	 * active. Only one XML element can be active at each moment.
-	 * 
+	 *
 	 * @param tagName
 	 *            The tag name of a new XML element.
 	 */
 	public void begElement(String tagName) {
-		try {
-			Element element = doc.createElement(tagName);
-			elements.peek().appendChild(element);
-			elements.push(element);
-		} catch (EmptyStackException ex) {
-			throw new InternalError();
+		if (writing()) {
+			try {
+				writePending(false);
+			} catch (IOException | XMLStreamException ex) {
+				fail();
+			}
 		}
+		pendingTagName = tagName;
+		depth++;
 	}
 
 	/**
@@ -106,27 +289,44 @@ public class Logger implements AutoCloseable {
 	 * one XML element can be active at each moment.
 	 */
 	public void endElement() {
-		try {
-			elements.pop();
-		} catch (EmptyStackException ex) {
+		if (depth == 0)
 			throw new InternalError();
+		depth--;
+		if (!writing()) {
+			pendingTagName = null;
+			pendingAttrs.clear();
+			return;
+		}
+		try {
+			if (pendingTagName != null)
+				writePending(true);
+			else if (bin != null)
+				bin.writeByte(END);
+			else
+				xml.writeEndElement();
+		} catch (IOException | XMLStreamException ex) {
+			fail();
 		}
 	}
 
 	/**
 	 * Adds an attribute to the active XML element.
-	 * 
+	 *
 	 * @param attrName
 	 *            The name of an attribute.
 	 * @param attrValue
 	 *            The value of an attribute.
 	 */
 	public void addAttribute(String attrName, String attrValue) {
-		try {
-			elements.peek().setAttribute(attrName, attrValue);
-		} catch (EmptyStackException ex) {
+		if (depth == 0)
 			throw new InternalError();
-		}
+		if (!writing())
+			return;
+		// The active element has already been written out together with its attributes.
+		if (pendingTagName == null)
+			throw new InternalError();
+		pendingAttrs.add(attrName);
+		pendingAttrs.add(attrValue);
 	}
 
 }
@@ -0,0 +1,142 @@
+package common.report;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events of the compiler.
+ *
+ * Events are committed only while a recording with the relating event
+ * enabled is running (e.g., {@code java -XX:StartFlightRecording ...}), so
+ * the cost of an event that is not recorded is the allocation of a short
+ * lived object (usually removed by the JIT compiler) and a single check. All
+ * events belong to the {@code PREV} category and carry the name of the source
+ * file so that recordings of batch compilations and compile servers can be
+ * filtered by program.
+ *
+ * @author zan
+ *
+ */
+public class Events {
+
+	/** A phase of a compilation (from its construction until it is closed). */
+	@Name("prev.Phase")
+	@Label("Phase")
+	@Category({ "PREV", "Phases" })
+	@Description("A phase of a compilation.")
+	public static class Phase extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Phase")
+		public String phaseName;
+
+	}
+
+	/** Instruction selection of a single code fragment. */
+	@Name("prev.InstrSelection")
+	@Label("Instruction Selection")
+	@Category({ "PREV", "Fragments" })
+	@Description("Instruction selection of a single function.")
+	public static class InstrSelection extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Fragment")
+		public String fragment;
+
+		@Label("Instructions")
+		public int instructions;
+
+		@Label("Temporaries")
+		public long temps;
+
+	}
+
+	/** Liveness analysis of a single code fragment. */
+	@Name("prev.Liveness")
+	@Label("Liveness Analysis")
+	@Category({ "PREV", "Fragments" })
+	@Description("Liveness analysis of a single function.")
+	public static class Liveness extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Fragment")
+		public String fragment;
+
+		@Label("Instructions")
+		public int instructions;
+
+		@Label("Iterations")
+		public long iterations;
+
+	}
+
+	/** Register allocation (graph coloring) of a single code fragment. */
+	@Name("prev.Coloring")
+	@Label("Graph Coloring")
+	@Category({ "PREV", "Fragments" })
+	@Description("Register allocation of a single function.")
+	public static class Coloring extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Fragment")
+		public String fragment;
+
+		@Label("Temporaries")
+		public int temps;
+
+		@Label("Spill Rounds")
+		public int iterations;
+
+		@Label("Spilled Temporaries")
+		public int spilledTemps;
+
+	}
+
+	/** A temporary variable spilled to memory during graph coloring. */
+	@Name("prev.Spill")
+	@Label("Spill")
+	@Category({ "PREV", "Fragments" })
+	@Description("A temporary variable spilled to memory.")
+	@StackTrace(false)
+	public static class Spill extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Fragment")
+		public String fragment;
+
+		@Label("Spill Round")
+		public int round;
+
+		@Label("Temporary")
+		public String temp;
+
+		@Label("Degree")
+		public int degree;
+
+	}
+
+	/** Writing out the final code. */
+	@Name("prev.Output")
+	@Label("Output")
+	@Category({ "PREV", "Phases" })
+	@Description("Writing out the final code.")
+	public static class Output extends Event {
+
+		@Label("Source File")
+		public String srcFileName;
+
+		@Label("Characters")
+		public long chars;
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package common.report;
 
+import java.io.*;
+
 import common.logger.*;
 
 /**
@@ -8,7 +10,9 @@ import common.logger.*;
  * @author sliva
  *
  */
-public class Location implements Locatable, Loggable {
+public class Location implements Locatable, Loggable, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * The line number of the first character of the specified part of the
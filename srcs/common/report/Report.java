@@ -1,5 +1,11 @@
 package common.report;
 
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import common.compilation.*;
+
 /**
  * Reporting to the user.
  * 
@@ -8,8 +14,76 @@ package common.report;
  */
 public class Report {
 
+	/**
+	 * A message reported to the user.
+	 * 
+	 * @author zan
+	 *
+	 */
+	public static class Diagnostic {
+
+		/** The kinds of messages. */
+		public enum Kind {
+			INFO, WARNING, ERROR
+		}
+
+		/** The kind of the message. */
+		public final Kind kind;
+
+		/** The part of the source file the message relates to (or {@code null}). */
+		public final String location;
+
+		/** The message. */
+		public final String message;
+
+		private Diagnostic(Kind kind, Locatable location, String message) {
+			this.kind = kind;
+			this.location = location == null ? null : location.location().toString();
+			this.message = message;
+		}
+
+		@Override
+		public String toString() {
+			return kind + (location == null ? "" : " [" + location + "]") + " " + message;
+		}
+
+	}
+
+	/** Messages reported within the current compilation (or {@code null} if not collected). */
+	private static final CompilationLocal<List<Diagnostic>> diagnostics = new CompilationLocal<>();
+
+	/**
+	 * Makes all messages reported within the current compilation be collected
+	 * (in addition to being printed out).
+	 */
+	public static void collectDiagnostics() {
+		diagnostics.set(Collections.synchronizedList(new ArrayList<Diagnostic>()));
+	}
+
+	/**
+	 * Returns all messages reported within the current compilation since
+	 * {@link #collectDiagnostics()} has been called.
+	 * 
+	 * @return The messages reported.
+	 */
+	public static List<Diagnostic> diagnostics() {
+		List<Diagnostic> diagnostics = Report.diagnostics.get();
+		if (diagnostics == null)
+			return new ArrayList<Diagnostic>();
+		synchronized (diagnostics) {
+			return new ArrayList<Diagnostic>(diagnostics);
+		}
+	}
+
+	/** Collects a message if messages are being collected. */
+	private static void collect(Diagnostic.Kind kind, Locatable location, String message) {
+		List<Diagnostic> diagnostics = Report.diagnostics.get();
+		if (diagnostics != null)
+			diagnostics.add(new Diagnostic(kind, location, message));
+	}
+
 	/** Counter of information messages printed out. */
-	private static int numOfInfos = 0;
+	private static final CompilationLocal<AtomicInteger> numOfInfos = new CompilationLocal<>(AtomicInteger::new);
 
 	/**
 	 * Returns the number of information messages printed out.
@@ -17,7 +91,27 @@ public class Report {
 	 * @return The number of information messages printed out.
 	 */
 	public static int numOfInfos() {
-		return numOfInfos;
+		return numOfInfos.get().get();
+	}
+
+	/**
+	 * Returns the stream the regular output of the current compilation is
+	 * printed to.
+	 * 
+	 * @return The output stream.
+	 */
+	public static PrintStream out() {
+		return Compilation.current().out;
+	}
+
+	/**
+	 * Returns the stream the diagnostics of the current compilation are
+	 * printed to.
+	 * 
+	 * @return The diagnostics stream.
+	 */
+	public static PrintStream err() {
+		return Compilation.current().err;
 	}
 
 	/**
@@ -27,9 +121,10 @@ public class Report {
 	 *            The information message to be printed.
 	 */
 	public static void info(String message) {
-		numOfInfos++;
-		System.out.print(":-) ");
-		System.out.println(message);
+		numOfInfos.get().incrementAndGet();
+		collect(Diagnostic.Kind.INFO, null, message);
+		out().print(":-) ");
+		out().println(message);
 	}
 
 	/**
@@ -42,14 +137,15 @@ public class Report {
 	 *            The information message to be printed.
 	 */
 	public static void info(Locatable location, String message) {
-		numOfInfos++;
-		System.out.print(":-) ");
-		System.out.print("[" + location.location() + "] ");
-		System.out.println(message);
+		numOfInfos.get().incrementAndGet();
+		collect(Diagnostic.Kind.INFO, location, message);
+		out().print(":-) ");
+		out().print("[" + location.location() + "] ");
+		out().println(message);
 	}
 
 	/** Counter of warnings printed out. */
-	private static int numOfWarnings = 0;
+	private static final CompilationLocal<AtomicInteger> numOfWarnings = new CompilationLocal<>(AtomicInteger::new);
 
 	/**
 	 * Returns the number of warnings printed out.
@@ -57,7 +153,7 @@ public class Report {
 	 * @return The number of warnings printed out.
 	 */
 	public static int numOfWarnings() {
-		return numOfWarnings;
+		return numOfWarnings.get().get();
 	}
 
 	/**
@@ -67,9 +163,10 @@ public class Report {
 	 *            The warning message.
 	 */
 	public static void warning(String message) {
-		numOfWarnings++;
-		System.err.print(":-o ");
-		System.err.println(message);
+		numOfWarnings.get().incrementAndGet();
+		collect(Diagnostic.Kind.WARNING, null, message);
+		err().print(":-o ");
+		err().println(message);
 	}
 
 	/**
@@ -81,10 +178,11 @@ public class Report {
 	 *            The warning message to be printed.
 	 */
 	public static void warning(Locatable location, String message) {
-		numOfWarnings++;
-		System.err.print(":-o ");
-		System.err.print("[" + location.location() + "] ");
-		System.err.println(message);
+		numOfWarnings.get().incrementAndGet();
+		collect(Diagnostic.Kind.WARNING, location, message);
+		err().print(":-o ");
+		err().print("[" + location.location() + "] ");
+		err().println(message);
 	}
 
 	/**
@@ -106,8 +204,9 @@ public class Report {
 		 *            The error message.
 		 */
 		public Error(String message) {
-			System.err.print(":-( ");
-			System.err.println(message);
+			collect(Diagnostic.Kind.ERROR, null, message);
+			err().print(":-( ");
+			err().println(message);
 		}
 
 		/**
@@ -120,9 +219,10 @@ public class Report {
 		 *            The error message.
 		 */
 		public Error(Locatable location, String message) {
-			System.err.print(":-( ");
-			System.err.print("[" + location.location() + "] ");
-			System.err.println(message);
+			collect(Diagnostic.Kind.ERROR, location, message);
+			err().print(":-( ");
+			err().print("[" + location.location() + "] ");
+			err().println(message);
 		}
 
 	}
@@ -0,0 +1,284 @@
+package common.report;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import common.compilation.*;
+
+/**
+ * Performance statistics of a compilation.
+ *
+ * Once enabled for a compilation, statistics are collected for each phase:
+ * its wall time, the number of bytes allocated by the thread performing it,
+ * and the volumes (counts of tokens, nodes, instructions, iterations, ...)
+ * reported by the phase itself. Phases started while another phase is still
+ * running (e.g., lexical analysis run by syntax analysis) are accounted for
+ * within the enclosing phase. Unless enabled, all methods of this class
+ * return immediately.
+ *
+ * @author zan
+ *
+ */
+public class Stats {
+
+	/** The statistics of the current compilation (or {@code null} if disabled). */
+	private static final CompilationLocal<Stats> stats = new CompilationLocal<>();
+
+	/** The statistics of a single phase. */
+	private static class PhaseStats {
+
+		/** The name of the phase. */
+		final String name;
+
+		/** The wall time of the phase in nanoseconds. */
+		long wallTime;
+
+		/** The number of bytes allocated during the phase (or -1 if unknown). */
+		long allocatedBytes;
+
+		/** The volumes reported by the phase. */
+		final LinkedHashMap<String, Object> volumes = new LinkedHashMap<>();
+
+		PhaseStats(String name) {
+			this.name = name;
+		}
+
+	}
+
+	/** The name of the source file. */
+	private final String srcFileName;
+
+	/** The statistics of all phases finished so far. */
+	private final Vector<PhaseStats> phases = new Vector<>();
+
+	/** The phase currently running. */
+	private PhaseStats currPhase = null;
+
+	/** The number of phases currently running (including nested ones). */
+	private int depth = 0;
+
+	/** Time and allocated bytes at the beginning of the current phase. */
+	private long begTime;
+	private long begBytes;
+
+	/** The number of bytes allocated by other threads during the current phase. */
+	private final AtomicLong workerBytes = new AtomicLong();
+
+	private Stats(String srcFileName) {
+		this.srcFileName = srcFileName;
+	}
+
+	/**
+	 * Enables the collection of statistics within the current compilation.
+	 *
+	 * @param srcFileName
+	 *            The name of the source file.
+	 */
+	public static void enable(String srcFileName) {
+		stats.set(new Stats(srcFileName));
+	}
+
+	/**
+	 * Returns {@code true} if statistics are collected within the current
+	 * compilation.
+	 *
+	 * @return {@code true} if statistics are collected.
+	 */
+	public static boolean enabled() {
+		return stats.get() != null;
+	}
+
+	/**
+	 * Marks the beginning of a phase.
+	 *
+	 * @param phaseName
+	 *            The name of the phase.
+	 */
+	public static void begPhase(String phaseName) {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return;
+		if (stats.depth++ > 0)
+			return;
+		stats.currPhase = new PhaseStats(phaseName);
+		stats.workerBytes.set(0);
+		stats.begBytes = allocatedBytes();
+		stats.begTime = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a phase.
+	 */
+	public static void endPhase() {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return;
+		if (--stats.depth > 0)
+			return;
+		long endTime = System.nanoTime();
+		long endBytes = allocatedBytes();
+		stats.currPhase.wallTime = endTime - stats.begTime;
+		stats.currPhase.allocatedBytes = (stats.begBytes < 0 || endBytes < 0) ? -1
+				: endBytes - stats.begBytes + stats.workerBytes.get();
+		stats.phases.add(stats.currPhase);
+		stats.currPhase = null;
+	}
+
+	/**
+	 * Performs a part of the current phase on another thread (see
+	 * {@link compiler.phases.Phase}) so that the bytes it allocates are
+	 * accounted for within the current phase.
+	 *
+	 * @param task
+	 *            The part of the current phase.
+	 * @return The result of the task.
+	 */
+	public static <Result> Result worker(Supplier<Result> task) {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return task.get();
+		long begBytes = allocatedBytes();
+		try {
+			return task.get();
+		} finally {
+			long endBytes = allocatedBytes();
+			if (begBytes >= 0 && endBytes >= 0)
+				stats.workerBytes.addAndGet(endBytes - begBytes);
+		}
+	}
+
+	/**
+	 * Adds to a volume of the current phase.
+	 *
+	 * @param volume
+	 *            The name of the volume.
+	 * @param value
+	 *            The value added to the volume.
+	 */
+	public static void count(String volume, long value) {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return;
+		synchronized (stats) {
+			if (stats.currPhase == null)
+				return;
+			stats.currPhase.volumes.merge(volume, value, (a, b) -> (Long) a + (Long) b);
+		}
+	}
+
+	/**
+	 * Adds to a volume of the current phase that is kept separately for
+	 * different parts of the program (e.g., for different fragments).
+	 *
+	 * @param volume
+	 *            The name of the volume.
+	 * @param part
+	 *            The name of the part of the program.
+	 * @param value
+	 *            The value added to the volume.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void count(String volume, String part, long value) {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return;
+		synchronized (stats) {
+			if (stats.currPhase == null)
+				return;
+			LinkedHashMap<String, Long> parts = (LinkedHashMap<String, Long>) stats.currPhase.volumes
+					.computeIfAbsent(volume, __ -> new LinkedHashMap<String, Long>());
+			parts.merge(part, value, Long::sum);
+		}
+	}
+
+	/**
+	 * Writes the statistics of the current compilation in JSON format.
+	 *
+	 * @param fileName
+	 *            The name of the file.
+	 * @param succeeded
+	 *            Whether the compilation succeeded.
+	 */
+	public static void write(String fileName, boolean succeeded) {
+		Stats stats = Stats.stats.get();
+		if (stats == null)
+			return;
+		try (PrintStream json = new PrintStream(new FileOutputStream(fileName))) {
+			json.print(stats.toJSON(succeeded));
+		} catch (IOException __) {
+			Report.warning("Cannot write statistics to file '" + fileName + "'.");
+		}
+	}
+
+	/** Produces the JSON representation of the statistics. */
+	private String toJSON(boolean succeeded) {
+		long totalTime = 0;
+		long totalBytes = 0;
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"source\": ").append(string(srcFileName)).append(",\n");
+		json.append("  \"succeeded\": ").append(succeeded).append(",\n");
+		json.append("  \"phases\": [");
+		for (int p = 0; p < phases.size(); p++) {
+			PhaseStats phase = phases.get(p);
+			totalTime += phase.wallTime;
+			totalBytes = (totalBytes < 0 || phase.allocatedBytes < 0) ? -1 : totalBytes + phase.allocatedBytes;
+			json.append(p == 0 ? "\n" : ",\n");
+			json.append("    {\"phase\": ").append(string(phase.name));
+			json.append(", \"wallTimeNs\": ").append(phase.wallTime);
+			json.append(", \"allocatedBytes\": ").append(phase.allocatedBytes);
+			json.append(", \"volumes\": ").append(object(phase.volumes)).append("}");
+		}
+		json.append("\n  ],\n");
+		json.append("  \"total\": {\"wallTimeNs\": ").append(totalTime);
+		json.append(", \"allocatedBytes\": ").append(totalBytes).append("}\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	/** Produces the JSON representation of a map of volumes. */
+	private static String object(Map<String, ?> values) {
+		StringBuilder json = new StringBuilder("{");
+		boolean first = true;
+		for (Map.Entry<String, ?> value : values.entrySet()) {
+			json.append(first ? "" : ", ").append(string(value.getKey())).append(": ");
+			if (value.getValue() instanceof Map<?, ?>) {
+				@SuppressWarnings("unchecked")
+				Map<String, ?> parts = (Map<String, ?>) value.getValue();
+				json.append(object(parts));
+			} else
+				json.append(value.getValue());
+			first = false;
+		}
+		return json.append("}").toString();
+	}
+
+	/** Produces the JSON representation of a string. */
+	private static String string(String value) {
+		StringBuilder json = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if (c < ' ')
+				json.append(String.format("\\u%04x", (int) c));
+			else
+				json.append(c);
+		}
+		return json.append("\"").toString();
+	}
+
+	/** Returns the number of bytes allocated by the current thread so far (or -1 if unknown). */
+	private static long allocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled())
+				return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+}
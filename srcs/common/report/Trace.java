@@ -0,0 +1,201 @@
+package common.report;
+
+import java.util.function.*;
+
+import common.compilation.*;
+
+/**
+ * Debug tracing of the compiler's subsystems.
+ *
+ * Each subsystem has its own tracing level that can be changed at any time
+ * (see {@link #level(Subsystem, Level)} and {@link #configure(String)}, the
+ * latter being used for the command line option {@code --trace}). A trace
+ * message is never built unless the level of its subsystem is high enough:
+ * messages are produced by functions that are applied only then. Within hot
+ * loops messages should be produced by non-capturing lambdas that take the
+ * values printed out as their arguments, e.g.,
+ *
+ * <pre>
+ * Trace.trace(Subsystem.LIVENESS, Level.DETAIL, (curr, next) -&gt; "EDGE " + curr + "--" + next, curr, next);
+ * </pre>
+ *
+ * as such a lambda is a constant and nothing is allocated while tracing is
+ * disabled: as long as tracing has not been enabled in any compilation, all
+ * that remains is a single read of a flag.
+ *
+ * Levels belong to the current compilation (so that compilations performed
+ * concurrently, e.g., by {@link compiler.Server}, are traced independently).
+ * Trace messages are printed to the diagnostics stream of the current
+ * compilation.
+ *
+ * @author zan
+ *
+ */
+public class Trace {
+
+	/** The traced subsystems. */
+	public enum Subsystem {
+		LEXAN, SYNAN, ABSTR, LINCODE, ASMGEN, LIVENESS, REGALLOC
+	}
+
+	/** Tracing levels. */
+	public enum Level {
+		/** No tracing. */
+		OFF,
+		/** Summaries of phases and fragments. */
+		INFO,
+		/** Individual steps (instructions, edges, nodes, ...). */
+		DETAIL
+	}
+
+	/** The levels of all subsystems within the current compilation (by ordinals). */
+	private static final CompilationLocal<int[]> levels = new CompilationLocal<>(
+			() -> new int[Subsystem.values().length]);
+
+	/** Whether tracing has ever been enabled in any compilation. */
+	private static volatile boolean enabled = false;
+
+	/**
+	 * Sets the tracing level of a subsystem within the current compilation.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The new tracing level.
+	 */
+	public static void level(Subsystem subsystem, Level level) {
+		if (level != Level.OFF)
+			enabled = true;
+		levels.get()[subsystem.ordinal()] = level.ordinal();
+	}
+
+	/**
+	 * Returns the tracing level of a subsystem within the current compilation.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @return The tracing level.
+	 */
+	public static Level level(Subsystem subsystem) {
+		return Level.values()[levels.get()[subsystem.ordinal()]];
+	}
+
+	/**
+	 * Sets the tracing levels of the current compilation according to a
+	 * specification of the form {@code SUBSYSTEM[=LEVEL],...}, where
+	 * {@code SUBSYSTEM} is the name of a subsystem or {@code all} and
+	 * {@code LEVEL} is {@code off}, {@code info} or {@code detail} (the
+	 * default).
+	 *
+	 * @param spec
+	 *            The specification of tracing levels.
+	 */
+	public static void configure(String spec) {
+		for (String item : spec.split(",")) {
+			String[] subsystemLevel = item.trim().split("=", 2);
+			Level level;
+			try {
+				level = subsystemLevel.length == 1 ? Level.DETAIL : Level.valueOf(subsystemLevel[1].toUpperCase());
+			} catch (IllegalArgumentException __) {
+				throw new Report.Error("Unknown tracing level '" + subsystemLevel[1] + "'.");
+			}
+			if (subsystemLevel[0].equals("all")) {
+				for (Subsystem subsystem : Subsystem.values())
+					level(subsystem, level);
+				continue;
+			}
+			try {
+				level(Subsystem.valueOf(subsystemLevel[0].toUpperCase()), level);
+			} catch (IllegalArgumentException __) {
+				throw new Report.Error("Unknown traced subsystem '" + subsystemLevel[0] + "'.");
+			}
+		}
+	}
+
+	/**
+	 * Tells whether messages of the specified level are traced within a
+	 * subsystem.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The level of messages.
+	 * @return {@code true} if messages are traced.
+	 */
+	public static boolean on(Subsystem subsystem, Level level) {
+		return enabled && levels.get()[subsystem.ordinal()] >= level.ordinal();
+	}
+
+	/** Prints out a trace message. */
+	private static void print(Subsystem subsystem, String message) {
+		Report.err().println("[" + subsystem.name().toLowerCase() + "] " + message);
+	}
+
+	/**
+	 * Traces a constant message.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The level of the message.
+	 * @param message
+	 *            The message.
+	 */
+	public static void trace(Subsystem subsystem, Level level, String message) {
+		if (on(subsystem, level))
+			print(subsystem, message);
+	}
+
+	/**
+	 * Traces a message produced on demand.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The level of the message.
+	 * @param message
+	 *            Produces the message.
+	 */
+	public static void trace(Subsystem subsystem, Level level, Supplier<String> message) {
+		if (on(subsystem, level))
+			print(subsystem, message.get());
+	}
+
+	/**
+	 * Traces a message produced on demand from a single value.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The level of the message.
+	 * @param message
+	 *            Produces the message.
+	 * @param arg
+	 *            The value the message is produced from.
+	 */
+	public static <Arg> void trace(Subsystem subsystem, Level level, Function<Arg, String> message, Arg arg) {
+		if (on(subsystem, level))
+			print(subsystem, message.apply(arg));
+	}
+
+	/**
+	 * Traces a message produced on demand from two values.
+	 *
+	 * @param subsystem
+	 *            The subsystem.
+	 * @param level
+	 *            The level of the message.
+	 * @param message
+	 *            Produces the message.
+	 * @param fstArg
+	 *            The first value the message is produced from.
+	 * @param sndArg
+	 *            The second value the message is produced from.
+	 */
+	public static <FstArg, SndArg> void trace(Subsystem subsystem, Level level,
+			BiFunction<FstArg, SndArg, String> message, FstArg fstArg, SndArg sndArg) {
+		if (on(subsystem, level))
+			print(subsystem, message.apply(fstArg, sndArg));
+	}
+
+}
@@ -0,0 +1,180 @@
+package compiler;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import common.compilation.*;
+import common.report.*;
+
+/**
+ * The batch compiler.
+ *
+ * Compiles several source files (or all source files found within the
+ * specified directories) concurrently on a pool of threads. Each source file
+ * is compiled within its own {@link Compilation} using the remaining command
+ * line arguments; the output of each compilation is buffered and printed out
+ * in the order the source files have been specified, so that the output does
+ * not depend on the number of threads used. A summary of all compilations is
+ * printed out at the end.
+ *
+ * @author zan
+ */
+public class Batch {
+
+	/** The suffix of source files looked for in directories. */
+	public static final String srcSufix = ".prev";
+
+	/** The source files. */
+	private final Vector<String> srcFileNames = new Vector<>();
+
+	/** The command line arguments common to all compilations. */
+	private final Vector<String> args = new Vector<>();
+
+	/** The number of threads. */
+	private int nThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Constructs a new batch compiler.
+	 *
+	 * @param argv Command line arguments.
+	 */
+	public Batch(String[] argv) {
+		for (String arg : argv) {
+			if (arg.matches("--jobs=[1-9][0-9]*")) {
+				nThreads = Integer.parseInt(arg.replaceFirst("^[^=]*=", ""));
+				continue;
+			}
+			if (arg.matches("--(dst-file-name|stats-file)=.*")) {
+				Report.warning("Command line argument '" + arg + "' ignored in batch mode.");
+				continue;
+			}
+			if (arg.startsWith("--") || arg.matches("-O[0-9]+")) {
+				args.add(arg);
+				continue;
+			}
+			File file = new File(arg);
+			if (file.isDirectory()) {
+				try (Stream<Path> paths = Files.walk(file.toPath())) {
+					paths.map(Path::toString).filter(name -> name.endsWith(srcSufix)).sorted()
+						.forEach(srcFileNames::add);
+				} catch (IOException ex) {
+					Report.warning("Directory '" + arg + "' ignored: " + ex.getMessage());
+				}
+			} else
+				srcFileNames.add(arg);
+		}
+	}
+
+	/**
+	 * Returns {@code true} if the command line arguments ask for a batch
+	 * compilation, i.e., if more than one source file or a directory or the
+	 * number of threads is specified.
+	 *
+	 * @param argv Command line arguments.
+	 * @return {@code true} if the batch compiler should be used.
+	 */
+	public static boolean isBatch(String[] argv) {
+		int nSrcs = 0;
+		for (String arg : argv) {
+			if (arg.matches("--jobs=.*"))
+				return true;
+			if (arg.startsWith("--") || arg.matches("-O[0-9]+"))
+				continue;
+			if (new File(arg).isDirectory())
+				return true;
+			nSrcs++;
+		}
+		return nSrcs > 1;
+	}
+
+	/** The result of a single compilation. */
+	private static class Result {
+
+		/** The source file. */
+		final String srcFileName;
+
+		/** Whether the compilation succeeded. */
+		boolean ok;
+
+		/** The duration of the compilation in milliseconds. */
+		long millis;
+
+		/** The regular output. */
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		/** The diagnostics. */
+		final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+		Result(String srcFileName) {
+			this.srcFileName = srcFileName;
+		}
+
+	}
+
+	/**
+	 * Compiles all source files.
+	 *
+	 * @return {@code true} if all compilations succeeded, {@code false}
+	 * otherwise.
+	 */
+	public boolean run() {
+		if (srcFileNames.isEmpty())
+			throw new Report.Error("Source file not specified.");
+
+		long begTime = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, srcFileNames.size()));
+		Vector<Future<Result>> results = new Vector<>();
+		for (String srcFileName : srcFileNames)
+			results.add(pool.submit(() -> compile(srcFileName)));
+		pool.shutdown();
+
+		int nFailed = 0;
+		Vector<Result> summary = new Vector<>();
+		for (Future<Result> future : results) {
+			Result result;
+			try {
+				result = future.get();
+			} catch (InterruptedException | ExecutionException ex) {
+				throw new Report.InternalError();
+			}
+			System.out.write(result.out.toByteArray(), 0, result.out.size());
+			System.out.flush();
+			System.err.write(result.err.toByteArray(), 0, result.err.size());
+			System.err.flush();
+			if (!result.ok)
+				nFailed++;
+			summary.add(result);
+		}
+		long endTime = System.nanoTime();
+
+		for (Result result : summary)
+			Report.info(String.format("%-6s %6d ms  %s", result.ok ? "ok" : "FAILED", result.millis,
+				result.srcFileName));
+		Report.info(String.format("%d of %d compilations succeeded (%d threads, %d ms).",
+			summary.size() - nFailed, summary.size(), nThreads, (endTime - begTime) / 1000000));
+		return nFailed == 0;
+	}
+
+	/** Compiles a single source file within its own compilation. */
+	private Result compile(String srcFileName) {
+		Result result = new Result(srcFileName);
+		Compilation compilation = new Compilation(new PrintStream(result.out, true), new PrintStream(result.err, true));
+		String[] argv = new String[args.size() + 1];
+		args.toArray(argv);
+		argv[args.size()] = srcFileName;
+
+		long begTime = System.nanoTime();
+		try {
+			result.ok = compilation.call(() -> Main.compile(argv));
+		} catch (Throwable ex) {
+			ex.printStackTrace(compilation.err);
+			result.ok = false;
+		}
+		result.millis = (System.nanoTime() - begTime) / 1000000;
+		return result;
+	}
+
+}
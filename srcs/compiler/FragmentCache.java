@@ -0,0 +1,304 @@
+package compiler;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.regex.*;
+
+import common.compilation.*;
+import common.report.*;
+import compiler.passes.*;
+import compiler.phases.imcgen.*;
+import compiler.phases.imcgen.code.*;
+import compiler.phases.lincode.*;
+
+/**
+ * A cache of the final code of functions that makes the back-end incremental.
+ *
+ * Once enabled for a compilation (using {@code --cache-dir=DIR}), the final
+ * assembly code of each code fragment is stored to the cache directory under
+ * the fingerprint of the fragment's frame and linearized intermediate code
+ * (see {@link ImcFingerprinter}). When a program is recompiled, code fragments
+ * whose fingerprints have not changed skip instruction selection, liveness
+ * analysis and register allocation altogether; their cached code is emitted
+ * instead, with anonymous labels renamed to the labels of the current
+ * compilation. Hence, after an edit only the functions whose intermediate
+ * code has actually changed pass through the back-end again.
+ *
+ * @author zan
+ */
+public class FragmentCache {
+
+	/** The fragment cache of the current compilation (or {@code null} if disabled). */
+	private static final CompilationLocal<FragmentCache> cache = new CompilationLocal<>();
+
+	/** Anonymous labels within the final code. */
+	private static final Pattern anonymousLabel = Pattern.compile("\\bL[0-9]+\\b");
+
+	/** Placeholders of anonymous labels within the cached code. */
+	private static final Pattern placeholder = Pattern.compile("\u0001([0-9]+)\u0001");
+
+	/** The final code of a code fragment. */
+	private static class Code implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The final code with anonymous labels replaced by placeholders. */
+		final String text;
+
+		/** The names of all functions called. */
+		final ArrayList<String> calls;
+
+		Code(String text, ArrayList<String> calls) {
+			this.text = text;
+			this.calls = calls;
+		}
+
+	}
+
+	/** The fingerprint of a code fragment. */
+	private static class Signature {
+
+		/** The hash of the fingerprint. */
+		final String key;
+
+		/** The anonymous labels in the order of their first appearance. */
+		final ArrayList<String> labelNames;
+
+		Signature(String key, ArrayList<String> labelNames) {
+			this.key = key;
+			this.labelNames = labelNames;
+		}
+
+	}
+
+	/** The cache directory. */
+	private final Path cacheDir;
+
+	/** The signatures of all code fragments. */
+	private final HashMap<CodeFragment, Signature> signatures = new HashMap<>();
+
+	/** The cached code of code fragments that are not compiled again. */
+	private final HashMap<CodeFragment, Code> reused = new HashMap<>();
+
+	private FragmentCache(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Enables the fragment cache within the current compilation.
+	 *
+	 * @param cacheDirName
+	 *            The name of the cache directory.
+	 */
+	public static void enable(String cacheDirName) {
+		try {
+			Path cacheDir = Paths.get(cacheDirName);
+			Files.createDirectories(cacheDir);
+			cache.set(new FragmentCache(cacheDir));
+		} catch (IOException ex) {
+			Report.info("Fragment cache disabled: " + ex.getMessage());
+		}
+	}
+
+	/** Computes the signature of a code fragment. */
+	private static Signature signature(CodeFragment fragment) throws IOException, GeneralSecurityException {
+		ImcFingerprinter fingerprinter = new ImcFingerprinter();
+		StringBuilder print = new StringBuilder();
+		print.append(PhaseCache.compilerHash()).append('\n');
+		print.append(PassManager.signature()).append('\n');
+		fingerprinter.label(fragment.frame.label, print);
+		print.append(',').append(fragment.frame.depth).append(',')
+				.append(fragment.frame.size).append(',').append(fragment.frame.locsSize).append(',')
+				.append(fragment.frame.argsSize).append('\n');
+		fingerprinter.temp(fragment.FP, print);
+		print.append(',');
+		fingerprinter.temp(fragment.RV, print);
+		print.append(',');
+		fingerprinter.label(fragment.begLabel, print);
+		print.append(',');
+		fingerprinter.label(fragment.endLabel, print);
+		print.append('\n');
+		for (ImcStmt stmt : fragment.stmts()) {
+			stmt.accept(fingerprinter, print);
+			print.append('\n');
+		}
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		String key = PhaseCache.hex(digest.digest(print.toString().getBytes(StandardCharsets.UTF_8)));
+		return new Signature(key, fingerprinter.labelNames());
+	}
+
+	/** Returns the cache file of a code fragment. */
+	private Path cacheFile(Signature signature) {
+		return cacheDir.resolve("fragment." + signature.key + ".ser");
+	}
+
+	/**
+	 * Looks up all code fragments in the cache and returns the fragments that
+	 * must be compiled.
+	 *
+	 * @param fragments
+	 *            All fragments.
+	 * @return The fragments whose final code is not cached.
+	 */
+	public static LinkedList<Fragment> uncached(LinkedList<Fragment> fragments) {
+		FragmentCache cache = FragmentCache.cache.get();
+		if (cache == null)
+			return fragments;
+		LinkedList<Fragment> uncached = new LinkedList<Fragment>();
+		for (Fragment fragment : fragments) {
+			if (fragment instanceof CodeFragment) {
+				CodeFragment codeFragment = (CodeFragment) fragment;
+				Signature signature;
+				try {
+					signature = signature(codeFragment);
+				} catch (IOException | GeneralSecurityException ex) {
+					Report.info("Cannot fingerprint function '" + codeFragment.frame.label.name + "': "
+							+ ex.getMessage());
+					uncached.add(fragment);
+					continue;
+				}
+				cache.signatures.put(codeFragment, signature);
+				Path cacheFile = cache.cacheFile(signature);
+				if (Files.exists(cacheFile)) {
+					try (ObjectInputStream in = new ObjectInputStream(
+							new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+						cache.reused.put(codeFragment, (Code) in.readObject());
+						Stats.count("reusedFragments", 1);
+						continue;
+					} catch (IOException | ClassNotFoundException | ClassCastException ex) {
+						// The entry is corrupt or stale: drop it so that it is stored anew.
+						Report.info("Cannot read fragment cache file '" + cacheFile + "'.");
+						try {
+							Files.deleteIfExists(cacheFile);
+						} catch (IOException __) {
+						}
+					}
+				}
+			}
+			uncached.add(fragment);
+		}
+		return uncached;
+	}
+
+	/**
+	 * Tells whether the final code of the code fragment is taken from the
+	 * cache.
+	 *
+	 * @param fragment
+	 *            The code fragment.
+	 * @return {@code true} if the final code is cached.
+	 */
+	public static boolean isCached(CodeFragment fragment) {
+		FragmentCache cache = FragmentCache.cache.get();
+		return cache != null && cache.reused.containsKey(fragment);
+	}
+
+	/**
+	 * Returns the cached final code of the code fragment.
+	 *
+	 * @param fragment
+	 *            The code fragment.
+	 * @return The final code.
+	 */
+	public static String code(CodeFragment fragment) {
+		FragmentCache cache = FragmentCache.cache.get();
+		return withLabels(cache.reused.get(fragment).text, cache.signatures.get(fragment).labelNames);
+	}
+
+	/** Replaces placeholders by the anonymous labels of the current compilation. */
+	private static String withLabels(String text, ArrayList<String> labelNames) {
+		Matcher matcher = placeholder.matcher(text);
+		StringBuffer code = new StringBuffer();
+		while (matcher.find())
+			matcher.appendReplacement(code, labelNames.get(Integer.parseInt(matcher.group(1))));
+		matcher.appendTail(code);
+		return code.toString();
+	}
+
+	/**
+	 * Replaces anonymous labels by placeholders (or returns {@code null} if a
+	 * label does not appear in the intermediate code).
+	 */
+	private static String withPlaceholders(String text, HashMap<String, Integer> labels) {
+		Matcher matcher = anonymousLabel.matcher(text);
+		StringBuffer code = new StringBuffer();
+		while (matcher.find()) {
+			Integer label = labels.get(matcher.group());
+			if (label == null)
+				return null;
+			matcher.appendReplacement(code, "\u0001" + label + "\u0001");
+		}
+		matcher.appendTail(code);
+		return code.toString();
+	}
+
+	/**
+	 * Returns the names of functions called by the cached code fragment.
+	 *
+	 * @param fragment
+	 *            The code fragment.
+	 * @return The names of functions called.
+	 */
+	public static List<String> calls(CodeFragment fragment) {
+		FragmentCache cache = FragmentCache.cache.get();
+		ArrayList<String> calls = new ArrayList<String>();
+		for (String call : cache.reused.get(fragment).calls)
+			calls.add(withLabels(call, cache.signatures.get(fragment).labelNames));
+		return calls;
+	}
+
+	/**
+	 * Stores the final code of the code fragment to the cache.
+	 *
+	 * @param fragment
+	 *            The code fragment.
+	 * @param text
+	 *            The final code.
+	 * @param calls
+	 *            The names of all functions called.
+	 */
+	public static void store(CodeFragment fragment, String text, List<String> calls) {
+		FragmentCache cache = FragmentCache.cache.get();
+		if (cache == null || cache.reused.containsKey(fragment))
+			return;
+		Signature signature = cache.signatures.get(fragment);
+		if (signature == null)
+			return;
+
+		// Replace anonymous labels by placeholders.
+		HashMap<String, Integer> labels = new HashMap<String, Integer>();
+		for (String labelName : signature.labelNames)
+			labels.put(labelName, labels.size());
+		String code = withPlaceholders(text, labels);
+		ArrayList<String> codeCalls = new ArrayList<String>();
+		for (String call : calls)
+			codeCalls.add(withPlaceholders(call, labels));
+		// A label not appearing in the intermediate code cannot be renamed.
+		if (code == null || codeCalls.contains(null))
+			return;
+
+		Path cacheFile = cache.cacheFile(signature);
+		if (Files.exists(cacheFile))
+			return;
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile(cache.cacheDir, "fragment.", ".tmp");
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				out.writeObject(new Code(code, codeCalls));
+			}
+			Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			Report.info("Cannot write fragment cache file '" + cacheFile + "'.");
+			try {
+				if (tmpFile != null)
+					Files.deleteIfExists(tmpFile);
+			} catch (IOException __) {
+			}
+		}
+	}
+
+}
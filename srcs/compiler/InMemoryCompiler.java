@@ -0,0 +1,311 @@
+package compiler;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import common.compilation.*;
+import common.report.*;
+import compiler.phases.*;
+import compiler.phases.finalize.*;
+import compiler.phases.lexan.*;
+
+/**
+ * The programmatic interface of the compiler.
+ *
+ * Compiles a program given as a {@link CharSequence} or a UTF-8 encoded
+ * {@link ByteBuffer} without touching the file system: the source is not read
+ * from a file (a buffer is scanned in place and must not be changed while it
+ * is being compiled), the final code is either returned as a string or written to a
+ * caller-supplied {@link WritableByteChannel}, and the logs of the logged
+ * phases are returned as byte arrays. Each call is performed within its own
+ * {@link Compilation}, so several programs can be compiled concurrently.
+ *
+ * <pre>
+ * InMemoryCompiler.Result result = InMemoryCompiler.compile("fib.prev", src,
+ * 		new InMemoryCompiler.Options().loggedPhase("regalloc"));
+ * if (result.succeeded)
+ * 	System.out.print(result.assembly);
+ * </pre>
+ *
+ * The file system is still used if the phase cache ({@link Options#cacheDir})
+ * or statistics ({@link Options#stats}) are requested.
+ *
+ * @author zan
+ */
+public class InMemoryCompiler {
+
+	/** The options of a compilation. */
+	public static class Options {
+
+		private String targetPhase = null;
+
+		private String loggedPhase = null;
+
+		private String logFormat = null;
+
+		private String xsl = null;
+
+		private String backend = null;
+
+		private int backendJobs = 0;
+
+		private String cacheDir = null;
+
+		private String statsFileName = null;
+
+		private int optLevel = -1;
+
+		/**
+		 * Sets the last phase performed (the final code is produced only if the
+		 * target phase is {@code finalize}, the default).
+		 *
+		 * @param targetPhase The name of the phase.
+		 * @return These options.
+		 */
+		public Options targetPhase(String targetPhase) {
+			this.targetPhase = targetPhase;
+			return this;
+		}
+
+		/**
+		 * Sets the phase to be logged (or {@code all}).
+		 *
+		 * @param loggedPhase The name of the phase.
+		 * @return These options.
+		 */
+		public Options loggedPhase(String loggedPhase) {
+			this.loggedPhase = loggedPhase;
+			return this;
+		}
+
+		/**
+		 * Sets the format of logs.
+		 *
+		 * @param logFormat {@code xml} or {@code bin} (the default).
+		 * @return These options.
+		 */
+		public Options logFormat(String logFormat) {
+			this.logFormat = logFormat;
+			return this;
+		}
+
+		/**
+		 * Sets the directory of XSL files referred to by XML logs.
+		 *
+		 * @param xsl The directory of XSL files.
+		 * @return These options.
+		 */
+		public Options xsl(String xsl) {
+			this.xsl = xsl;
+			return this;
+		}
+
+		/**
+		 * Sets the back-end to be used.
+		 *
+		 * @param backend {@code batch} (the default) or {@code stream}.
+		 * @return These options.
+		 */
+		public Options backend(String backend) {
+			this.backend = backend;
+			return this;
+		}
+
+		/**
+		 * Sets the number of threads used by the back-end.
+		 *
+		 * @param backendJobs The number of threads.
+		 * @return These options.
+		 */
+		public Options backendJobs(int backendJobs) {
+			this.backendJobs = backendJobs;
+			return this;
+		}
+
+		/**
+		 * Sets the directory of the phase and fragment caches.
+		 *
+		 * @param cacheDir The cache directory.
+		 * @return These options.
+		 */
+		public Options cacheDir(String cacheDir) {
+			this.cacheDir = cacheDir;
+			return this;
+		}
+
+		/**
+		 * Requests statistics to be written to the specified file.
+		 *
+		 * @param statsFileName The name of the statistics file.
+		 * @return These options.
+		 */
+		public Options stats(String statsFileName) {
+			this.statsFileName = statsFileName;
+			return this;
+		}
+
+		/**
+		 * Sets the optimisation level (see {@link compiler.passes.PassManager}).
+		 *
+		 * @param optLevel The optimisation level.
+		 * @return These options.
+		 */
+		public Options optLevel(int optLevel) {
+			this.optLevel = optLevel;
+			return this;
+		}
+
+		/** Returns the command line arguments equivalent to these options. */
+		private String[] argv(String srcName) {
+			ArrayList<String> argv = new ArrayList<String>();
+			argv.add(srcName);
+			if (targetPhase != null)
+				argv.add("--target-phase=" + targetPhase);
+			if (loggedPhase != null)
+				argv.add("--logged-phase=" + loggedPhase);
+			if (logFormat != null)
+				argv.add("--log-format=" + logFormat);
+			if (xsl != null)
+				argv.add("--xsl=" + xsl);
+			if (backend != null)
+				argv.add("--backend=" + backend);
+			if (backendJobs > 0)
+				argv.add("--backend-jobs=" + backendJobs);
+			if (cacheDir != null)
+				argv.add("--cache-dir=" + cacheDir);
+			if (optLevel >= 0)
+				argv.add("-O" + optLevel);
+			if (statsFileName != null) {
+				argv.add("--stats=json");
+				argv.add("--stats-file=" + statsFileName);
+			}
+			return argv.toArray(new String[0]);
+		}
+
+	}
+
+	/** The result of a compilation. */
+	public static class Result {
+
+		/** Whether the compilation succeeded. */
+		public final boolean succeeded;
+
+		/**
+		 * The final code (or {@code null} if not produced or written to a
+		 * channel).
+		 */
+		public final String assembly;
+
+		/** The regular output of the compilation (including printouts of the target phase). */
+		public final String output;
+
+		/** All messages reported during the compilation. */
+		public final List<Report.Diagnostic> diagnostics;
+
+		/** The logs of the logged phases (by phase names, in the order phases were performed). */
+		public final LinkedHashMap<String, byte[]> logs;
+
+		private Result(boolean succeeded, String assembly, String output, List<Report.Diagnostic> diagnostics,
+				LinkedHashMap<String, byte[]> logs) {
+			this.succeeded = succeeded;
+			this.assembly = assembly;
+			this.output = output;
+			this.diagnostics = diagnostics;
+			this.logs = logs;
+		}
+
+	}
+
+	/**
+	 * Compiles a program and returns the final code as a string.
+	 *
+	 * @param srcName The name of the program (used in messages and as the
+	 *                default name of cache and statistics files).
+	 * @param src     The source text.
+	 * @param options The options.
+	 * @return The result of the compilation.
+	 */
+	public static Result compile(String srcName, CharSequence src, Options options) {
+		return compile(srcName, Source.of(src), options, new StringWriter(), true);
+	}
+
+	/**
+	 * Compiles a UTF-8 encoded program and returns the final code as a string.
+	 *
+	 * @param srcName The name of the program.
+	 * @param src     The source, from its position to its limit (scanned in
+	 *                place).
+	 * @param options The options.
+	 * @return The result of the compilation.
+	 */
+	public static Result compile(String srcName, ByteBuffer src, Options options) {
+		return compile(srcName, Source.of(src), options, new StringWriter(), true);
+	}
+
+	/**
+	 * Compiles a program and writes the final code to a channel. The channel
+	 * is not closed.
+	 *
+	 * @param srcName The name of the program.
+	 * @param src     The source text.
+	 * @param options The options.
+	 * @param dst     The channel the final code is written to.
+	 * @return The result of the compilation (without the final code).
+	 */
+	public static Result compile(String srcName, CharSequence src, Options options, WritableByteChannel dst) {
+		return compile(srcName, Source.of(src), options, Channels.newWriter(dst, StandardCharsets.UTF_8), false);
+	}
+
+	/**
+	 * Compiles a UTF-8 encoded program and writes the final code to a channel.
+	 * The channel is not closed.
+	 *
+	 * @param srcName The name of the program.
+	 * @param src     The source, from its position to its limit (scanned in
+	 *                place).
+	 * @param options The options.
+	 * @param dst     The channel the final code is written to.
+	 * @return The result of the compilation (without the final code).
+	 */
+	public static Result compile(String srcName, ByteBuffer src, Options options, WritableByteChannel dst) {
+		return compile(srcName, Source.of(src), options, Channels.newWriter(dst, StandardCharsets.UTF_8), false);
+	}
+
+	private static Result compile(String srcName, Source src, Options options, Writer dst, boolean keepAssembly) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		Compilation compilation = new Compilation(new PrintStream(out, true, StandardCharsets.UTF_8),
+				new PrintStream(err, true, StandardCharsets.UTF_8));
+		LinkedHashMap<String, ByteArrayOutputStream> logs = new LinkedHashMap<String, ByteArrayOutputStream>();
+
+		boolean succeeded = compilation.call(() -> {
+			Report.collectDiagnostics();
+			LexAn.srcText(src);
+			Finalize.dstWriter(dst);
+			Phase.logStreams(phaseName -> logs.computeIfAbsent(phaseName, __ -> new ByteArrayOutputStream()));
+			try {
+				return Main.compile(options.argv(srcName));
+			} catch (Report.Error __) {
+				return false;
+			}
+		});
+
+		try {
+			dst.flush();
+		} catch (IOException ex) {
+			succeeded = false;
+			compilation.run(() -> Report.warning("Cannot write the final code: " + ex.getMessage()));
+		}
+		List<Report.Diagnostic> diagnostics = compilation.call(Report::diagnostics);
+		LinkedHashMap<String, byte[]> logBytes = new LinkedHashMap<String, byte[]>();
+		for (Map.Entry<String, ByteArrayOutputStream> log : logs.entrySet())
+			logBytes.put(log.getKey(), log.getValue().toByteArray());
+		String assembly = keepAssembly && succeeded && dst.toString().length() > 0 ? dst.toString() : null;
+		return new Result(succeeded, assembly, new String(out.toByteArray(), StandardCharsets.UTF_8), diagnostics,
+				logBytes);
+	}
+
+}
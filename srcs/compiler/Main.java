@@ -2,6 +2,7 @@ package compiler;
 
 import java.util.*;
 
+import common.compilation.*;
 import common.report.*;
 import compiler.phases.lexan.*;
 import compiler.phases.synan.*;
@@ -14,6 +15,7 @@ import compiler.phases.asmgen.*;
 import compiler.phases.liveness.*;
 import compiler.phases.regalloc.*;
 import compiler.phases.finalize.*;
+import compiler.passes.*;
 
 /**
  * The compiler.
@@ -22,14 +24,8 @@ import compiler.phases.finalize.*;
  */
 public class Main {
 
-	public enum DEBUG {
-		NONE, LEXAN, SYNAN, SEMAN, FRAMES, IMCGEN, LINCODE, ASMGEN, LIVENESS, REGALLOC, FINALIZE, FULL
-	}
-
-	public static DEBUG debug = DEBUG.NONE;
-
 	/** All valid phases of the compiler. */
-	private static final String phases = "lexan|synan|abstr|seman|frames|imcgen|lincode|asmgen|liveness|regalloc|finalize";
+	static final String phases = "lexan|synan|abstr|seman|frames|imcgen|lincode|asmgen|liveness|regalloc|finalize";
 
 	/** Number of available physical registers. */
 	public static int nReg = 8;
@@ -42,8 +38,8 @@ public class Main {
 	public static String HP = useMmixAliases ? "HP" : HPReg;
 	public static String dstSufix = ".mms";
 
-	/** Values of command line arguments. */
-	public static HashMap<String, String> cmdLine = new HashMap<String, String>();
+	/** Values of command line arguments (of the current compilation). */
+	private static final CompilationLocal<HashMap<String, String>> cmdLine = new CompilationLocal<>(HashMap::new);
 
 	/**
 	 * Returns the value of a command line argument.
@@ -53,78 +49,229 @@ public class Main {
 	 * if the specified command line argument has not been used.
 	 */
 	public static String cmdLineArgValue(String cmdLineArgName) {
-		return cmdLine.get(cmdLineArgName);
+		return cmdLine.get().get(cmdLineArgName);
 	}
 
-	/** Notify user when each phase is completed */
-	public static boolean progress = false;
-
 	/**
 	 * The compiler's {@code main} method.
 	 *
 	 * @param argv Command line arguments.
 	 */
 	public static void main(String[] argv) {
-		try {
-			Report.info("This is PREV compiler:");
+		for (String arg : argv) {
+			if (arg.matches("--server(=[0-9]+)?")) {
+				String port = arg.replaceFirst("^[^=]*=?", "");
+				new Server(port.isEmpty() ? 0 : Integer.parseInt(port)).run();
+				return;
+			}
+		}
+		if (Batch.isBatch(argv)) {
+			boolean ok;
+			try {
+				ok = new Batch(argv).run();
+			} catch (Report.Error __) {
+				ok = false;
+			}
+			// scripts must be able to tell whether any compilation has failed
+			if (!ok)
+				System.exit(1);
+			return;
+		}
+		compile(argv);
+	}
 
-			// Scan the command line.
-			for (int argc = 0; argc < argv.length; argc++) {
-				if (argv[argc].startsWith("--")) {
-					// Command-line switch.
-					if (argv[argc].matches("--target-phase=(" + phases + "|all)")) {
-						if (cmdLine.get("--target-phase") == null) {
-							cmdLine.put("--target-phase", argv[argc].replaceFirst("^[^=]*=", ""));
-							continue;
-						}
+	/**
+	 * Scans the command line arguments of the current compilation.
+	 *
+	 * @param argv Command line arguments.
+	 */
+	public static void scanCmdLine(String[] argv) {
+		HashMap<String, String> cmdLine = Main.cmdLine.get();
+		for (int argc = 0; argc < argv.length; argc++) {
+			if (argv[argc].startsWith("--")) {
+				// Command-line switch.
+				if (argv[argc].matches("--target-phase=(" + phases + "|all)")) {
+					if (cmdLine.get("--target-phase") == null) {
+						cmdLine.put("--target-phase", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--logged-phase=(" + phases + "|all)")) {
+					if (cmdLine.get("--logged-phase") == null) {
+						cmdLine.put("--logged-phase", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--xml=.*")) {
+					if (cmdLine.get("--xml") == null) {
+						cmdLine.put("--xml", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--log-format=(xml|bin)")) {
+					if (cmdLine.get("--log-format") == null) {
+						cmdLine.put("--log-format", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--xsl=.*")) {
+					if (cmdLine.get("--xsl") == null) {
+						cmdLine.put("--xsl", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+
+				}if (argv[argc].matches("--dst-file-name=.*")) {
+					if (cmdLine.get("--dst-file-name") == null) {
+						cmdLine.put("--dst-file-name", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--cache-dir=.+")) {
+					if (cmdLine.get("--cache-dir") == null) {
+						cmdLine.put("--cache-dir", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--lexer=(mapped|buffered)")) {
+					if (cmdLine.get("--lexer") == null) {
+						cmdLine.put("--lexer", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--lexer-jobs=[1-9][0-9]*")) {
+					if (cmdLine.get("--lexer-jobs") == null) {
+						cmdLine.put("--lexer-jobs", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
 					}
-					if (argv[argc].matches("--logged-phase=(" + phases + "|all)")) {
-						if (cmdLine.get("--logged-phase") == null) {
-							cmdLine.put("--logged-phase", argv[argc].replaceFirst("^[^=]*=", ""));
-							continue;
-						}
+				}
+				if (argv[argc].matches("--backend=(batch|stream)")) {
+					if (cmdLine.get("--backend") == null) {
+						cmdLine.put("--backend", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
 					}
-					if (argv[argc].matches("--xml=.*")) {
-						if (cmdLine.get("--xml") == null) {
-							cmdLine.put("--xml", argv[argc].replaceFirst("^[^=]*=", ""));
-							continue;
-						}
+				}
+				if (argv[argc].matches("--backend-jobs=[1-9][0-9]*")) {
+					if (cmdLine.get("--backend-jobs") == null) {
+						cmdLine.put("--backend-jobs", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
 					}
-					if (argv[argc].matches("--xsl=.*")) {
-						if (cmdLine.get("--xsl") == null) {
-							cmdLine.put("--xsl", argv[argc].replaceFirst("^[^=]*=", ""));
-							continue;
-						}
-
-					}if (argv[argc].matches("--dst-file-name=.*")) {
-						if (cmdLine.get("--dst-file-name") == null) {
-							cmdLine.put("--dst-file-name", argv[argc].replaceFirst("^[^=]*=", ""));
-							continue;
-						}
+				}
+				if (argv[argc].matches("--enable-passes=.+")) {
+					if (cmdLine.get("--enable-passes") == null) {
+						cmdLine.put("--enable-passes", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
 					}
+				}
+				if (argv[argc].matches("--disable-passes=.+")) {
+					if (cmdLine.get("--disable-passes") == null) {
+						cmdLine.put("--disable-passes", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--time-passes")) {
+					if (cmdLine.get("--time-passes") == null) {
+						cmdLine.put("--time-passes", "");
+						continue;
+					}
+				}
+				if (argv[argc].matches("--trace=.+")) {
+					if (cmdLine.get("--trace") == null) {
+						cmdLine.put("--trace", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--stats=json")) {
+					if (cmdLine.get("--stats") == null) {
+						cmdLine.put("--stats", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				if (argv[argc].matches("--stats-file=.*")) {
+					if (cmdLine.get("--stats-file") == null) {
+						cmdLine.put("--stats-file", argv[argc].replaceFirst("^[^=]*=", ""));
+						continue;
+					}
+				}
+				Report.warning("Command line argument '" + argv[argc] + "' ignored.");
+			} else if (argv[argc].matches("-O[0-" + PassManager.maxLevel + "]")) {
+				// Optimisation level.
+				if (cmdLine.get("-O") == null) {
+					cmdLine.put("-O", argv[argc].substring(2));
+				} else {
 					Report.warning("Command line argument '" + argv[argc] + "' ignored.");
+				}
+			} else {
+				// Source file name.
+				if (cmdLine.get("--src-file-name") == null) {
+					cmdLine.put("--src-file-name", argv[argc]);
 				} else {
-					// Source file name.
-					if (cmdLine.get("--src-file-name") == null) {
-						cmdLine.put("--src-file-name", argv[argc]);
-					} else {
-						Report.warning("Source file '" + argv[argc] + "' ignored.");
-					}
+					Report.warning("Source file '" + argv[argc] + "' ignored.");
 				}
 			}
-			if (cmdLine.get("--src-file-name") == null) {
-				throw new Report.Error("Source file not specified.");
-			}
-			if (cmdLine.get("--dst-file-name") == null) {
-				cmdLine.put("--dst-file-name", cmdLine.get("--src-file-name").replaceFirst("\\.[^./]*$", "") + dstSufix);
-			}
-			if (cmdLine.get("--target-phase") == null) {
-				cmdLine.put("--target-phase", phases.replaceFirst("^.*\\|", ""));
-			}
+		}
+		if (cmdLine.get("--src-file-name") == null) {
+			throw new Report.Error("Source file not specified.");
+		}
+		if (cmdLine.get("--dst-file-name") == null) {
+			cmdLine.put("--dst-file-name", cmdLine.get("--src-file-name").replaceFirst("\\.[^./]*$", "") + dstSufix);
+		}
+		if (cmdLine.get("--target-phase") == null) {
+			cmdLine.put("--target-phase", phases.replaceFirst("^.*\\|", ""));
+		}
+
+		PassManager.configure(cmdLine.get("-O") == null ? PassManager.defaultLevel : Integer.parseInt(cmdLine.get("-O")),
+				cmdLine.get("--enable-passes"), cmdLine.get("--disable-passes"));
 
-			if (cmdLine.get("--progress") != null) {
-				progress = true;
+		if (cmdLine.get("--trace") != null) {
+			Trace.configure(cmdLine.get("--trace"));
+		}
+
+		if (cmdLine.get("--stats") != null) {
+			if (cmdLine.get("--stats-file") == null) {
+				cmdLine.put("--stats-file", cmdLine.get("--src-file-name").replaceFirst("\\.[^./]*$", "") + ".stats.json");
 			}
+			Stats.enable(cmdLine.get("--src-file-name"));
+		}
+
+		if (cmdLine.get("--cache-dir") != null) {
+			PhaseCache.enable(cmdLine.get("--cache-dir"), cmdLine.get("--src-file-name"));
+			if (cmdLine.get("--target-phase").equals("finalize"))
+				FragmentCache.enable(cmdLine.get("--cache-dir"));
+		}
+	}
+
+	/**
+	 * Tells whether the back-end compiles one function at a time (see
+	 * {@link Finalize#stream}). The streaming back-end is used only if it has
+	 * been requested, the final code is to be produced and none of the
+	 * back-end phases is to be logged.
+	 */
+	private static boolean streamBackend() {
+		String loggedPhase = cmdLine.get().get("--logged-phase");
+		return "stream".equals(cmdLine.get().get("--backend"))
+				&& cmdLine.get().get("--target-phase").equals("finalize")
+				&& (loggedPhase == null || !loggedPhase.matches("asmgen|liveness|regalloc|all"));
+	}
+
+	/**
+	 * Compiles a single program within the current compilation.
+	 *
+	 * @param argv Command line arguments.
+	 * @return {@code true} if the compilation succeeded, {@code false}
+	 * otherwise.
+	 */
+	public static boolean compile(String[] argv) {
+		HashMap<String, String> cmdLine = Main.cmdLine.get();
+		try {
+			Report.info("This is PREV compiler:");
+
+			// Scan the command line.
+			scanCmdLine(argv);
+
+			// Resume from the deepest cached phase (if any).
+			PhaseCache.resume(cmdLine.get("--target-phase"), cmdLine.get("--logged-phase"));
+
+			boolean progress = cmdLine.get("--progress") != null;
 			// Compile phase by phase.
 			do {
 
@@ -143,8 +290,10 @@ public class Main {
 				if (progress) Report.info("Lexical analysis complete.");
 
 				// Syntax analysis.
-				try (SynAn synAn = new SynAn()) {
-					synAn.parser();
+				if (!PhaseCache.skips("synan")) {
+					try (SynAn synAn = new SynAn()) {
+						synAn.parser();
+					}
 				}
 
 				if (progress) Report.info("Syntax analysis complete.");
@@ -153,22 +302,28 @@ public class Main {
 					break;
 
 				// Abstract syntax.
-				try (Abstr abstr = new Abstr()) {
-					abstr.fromDerTree(SynAn.derTree());
+				if (!PhaseCache.skips("abstr")) {
+					try (Abstr abstr = new Abstr()) {
+						abstr.fromDerTree(SynAn.derTree());
+					}
+					PhaseCache.store("abstr");
 				}
 
 				if (cmdLine.get("--target-phase").equals("abstr"))
 					break;
 
 				// Semantic analysis.
-				try (SemAn semAn = new SemAn()) {
-					Abstr.absTree().accept(new NameChecker(new SymbTable()), null);
-					Abstr.absTree().accept(new AddrChecker(), null);
-					Abstr.absTree().accept(new TypeChecker(), null);
-
-					compiler.phases.seman.type.SemType typeOfPrg = SemAn.isOfType().get(Abstr.absTree());
-					if (!typeOfPrg.isAKindOf(compiler.phases.seman.type.SemIntType.class))
-						Report.warning("The program must return a result of type int.");
+				if (!PhaseCache.skips("seman")) {
+					try (SemAn semAn = new SemAn()) {
+						Abstr.absTree().accept(new NameChecker(new SymbTable()), null);
+						Abstr.absTree().accept(new AddrChecker(), null);
+						Abstr.absTree().accept(new TypeChecker(), null);
+
+						compiler.phases.seman.type.SemType typeOfPrg = SemAn.isOfType().get(Abstr.absTree());
+						if (!typeOfPrg.isAKindOf(compiler.phases.seman.type.SemIntType.class))
+							Report.warning("The program must return a result of type int.");
+					}
+					PhaseCache.store("seman");
 				}
 
 				if (progress) Report.info("Semantic analysis complete.");
@@ -177,8 +332,11 @@ public class Main {
 					break;
 
 				// Frames.
-				try (Frames frames = new Frames()) {
-					Abstr.absTree().accept(new FrameEvaluator(), null);
+				if (!PhaseCache.skips("frames")) {
+					try (Frames frames = new Frames()) {
+						Abstr.absTree().accept(new FrameEvaluator(), null);
+					}
+					PhaseCache.store("frames");
 				}
 
 				if (progress) Report.info("Frames and access evaluation complete.");
@@ -187,8 +345,11 @@ public class Main {
 					break;
 
 				// Intermediate code generation.
-				try (ImcGen imCode = new ImcGen()) {
-					Abstr.absTree().accept(new ImcExprGenerator(), null);
+				if (!PhaseCache.skips("imcgen")) {
+					try (ImcGen imCode = new ImcGen()) {
+						Abstr.absTree().accept(new ImcExprGenerator(), null);
+					}
+					PhaseCache.store("imcgen");
 				}
 
 				if (progress) Report.info("Intermediate code generation complete.");
@@ -197,8 +358,12 @@ public class Main {
 					break;
 
 				// Linear intermediate code.
-				try (LinCode linCode = new LinCode()) {
-					Abstr.absTree().accept(new Fragmenter(), null);
+				if (!PhaseCache.skips("lincode")) {
+					try (LinCode linCode = new LinCode()) {
+						Abstr.absTree().accept(new Fragmenter(), null);
+						PassManager.runImcPasses(LinCode.fragments());
+					}
+					PhaseCache.store("lincode");
 				}
 
 				if (progress) Report.info("Linear intermediate code generation complete.");
@@ -208,9 +373,22 @@ public class Main {
 					break;
 				}
 
-				// Assembly code generation.
+				// Streaming back-end: one function at a time all the way to the final code.
+				if (streamBackend()) {
+					try (Finalize finalize = new Finalize()) {
+						finalize.stream();
+					}
+
+					if (progress) Report.info("Finalize phase complete.");
+
+					if (begWarnings != Report.numOfWarnings())
+						throw new Report.Error("Compilation stopped.");
+					break;
+				}
+
+				// Assembly code generation (of fragments whose final code is not cached).
 				try (AsmGen asmGen = new AsmGen()) {
-					asmGen.generateInstructions(LinCode.fragments());
+					asmGen.generateInstructions(FragmentCache.uncached(LinCode.fragments()));
 				}
 
 				if (progress) Report.info("Generation of machine code instructions complete.");
@@ -229,7 +407,7 @@ public class Main {
 					break;
 
 				// Register allocation.
-				try (RegAlloc regAlloc = new RegAlloc(LiveAn.interferenceGraphs)) {	}
+				try (RegAlloc regAlloc = new RegAlloc(LiveAn.interferenceGraphs())) {	}
 
 				if (progress) Report.info("Register allocation complete.");
 
@@ -249,8 +427,14 @@ public class Main {
 
 			} while (false);
 
+			if (cmdLine.get("--time-passes") != null)
+				PassManager.report();
 			Report.info("Done.");
+			Stats.write(cmdLine.get("--stats-file"), true);
+			return true;
 		} catch (Report.Error __) {
+			Stats.write(cmdLine.get("--stats-file"), false);
+			return false;
 		}
 	}
 
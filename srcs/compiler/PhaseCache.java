@@ -0,0 +1,284 @@
+package compiler;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.stream.*;
+
+import common.compilation.*;
+import common.report.*;
+import compiler.passes.*;
+import compiler.phases.lexan.*;
+import compiler.phases.abstr.*;
+import compiler.phases.abstr.abstree.*;
+import compiler.phases.seman.*;
+import compiler.phases.frames.*;
+import compiler.phases.imcgen.*;
+import compiler.phases.lincode.*;
+
+/**
+ * An on-disk cache of the results of phases.
+ *
+ * Once enabled for a compilation (using {@code --cache-dir=DIR}), the results
+ * of abstract syntax, semantic analysis, frames, intermediate code generation
+ * and linearization are serialized to the cache directory as soon as each of
+ * these phases is finished. The cache files are keyed by the hash of the
+ * source file, of the compiler itself and of the enabled passes (see
+ * {@link PassManager}), so a cache file can never be used with a different
+ * program, by a different build of the compiler or with different passes. A later
+ * compilation of the same source file resumes from the deepest cached phase
+ * that does not exceed its target phase and is not logged.
+ *
+ * Results are cached only if no warnings have been reported so far, as
+ * warnings of the skipped phases could not be reported again.
+ *
+ * @author zan
+ */
+public class PhaseCache {
+
+	/** The phases whose results can be cached, in the order they are performed. */
+	private static final List<String> cachedPhases = Arrays.asList("abstr", "seman", "frames", "imcgen", "lincode");
+
+	/** All phases of the compiler, in the order they are performed. */
+	private static final List<String> allPhases = Arrays.asList(Main.phases.split("\\|"));
+
+	/** The cache of the current compilation (or {@code null} if disabled). */
+	private static final CompilationLocal<PhaseCache> cache = new CompilationLocal<>();
+
+	/** The hash of the compiler's classes (computed once). */
+	private static String compilerHash = null;
+
+	/** The cache directory. */
+	private final Path cacheDir;
+
+	/** The key of the source file within the cache directory. */
+	private final String key;
+
+	/** The deepest phase the compilation has been resumed from (or {@code null}). */
+	private String resumedPhase = null;
+
+	/** The results of all phases up to and including a cached phase. */
+	private static class Snapshot implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		AbsExpr absTree;
+
+		Names names;
+
+		final ArrayList<HashMap<?, ?>> mappings = new ArrayList<>();
+
+		final ArrayList<Boolean> locks = new ArrayList<>();
+
+		Frame mainFrame;
+
+		LinkedList<Fragment> fragments;
+
+		long tempCount;
+
+		long labelCount;
+
+	}
+
+	private PhaseCache(Path cacheDir, String key) {
+		this.cacheDir = cacheDir;
+		this.key = key;
+	}
+
+	/**
+	 * Returns all attributes of the abstract syntax tree that are cached.
+	 */
+	private static List<AbsAttribute<?, ?>> attributes() {
+		return Arrays.asList(SemAn.declAt(), SemAn.declType(), SemAn.descType(), SemAn.isOfType(),
+				SemAn.recSymbTable(), SemAn.isLValue(), Frames.frames, Frames.accesses, ImcGen.exprImCode,
+				ImcGen.stmtImCode);
+	}
+
+	/**
+	 * Enables the cache within the current compilation.
+	 *
+	 * @param cacheDirName
+	 *            The name of the cache directory.
+	 * @param srcFileName
+	 *            The name of the source file.
+	 */
+	public static void enable(String cacheDirName, String srcFileName) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(compilerHash().getBytes(StandardCharsets.US_ASCII));
+			digest.update(PassManager.signature().getBytes(StandardCharsets.US_ASCII));
+			Source srcText = LexAn.srcText();
+			if (srcText != null)
+				srcText.digest(digest);
+			else
+				digest.update(Files.readAllBytes(Paths.get(srcFileName)));
+			Path cacheDir = Paths.get(cacheDirName);
+			Files.createDirectories(cacheDir);
+			cache.set(new PhaseCache(cacheDir, hex(digest.digest())));
+		} catch (IOException | GeneralSecurityException ex) {
+			Report.info("Phase cache disabled: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the hash of all classes of the compiler.
+	 */
+	static synchronized String compilerHash() throws IOException, GeneralSecurityException {
+		if (compilerHash != null)
+			return compilerHash;
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		Path location;
+		try {
+			location = Paths.get(PhaseCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		} catch (Exception ex) {
+			throw new IOException("Cannot locate the compiler's classes.");
+		}
+		if (Files.isDirectory(location)) {
+			ArrayList<Path> classFiles = new ArrayList<>();
+			try (Stream<Path> files = Files.walk(location)) {
+				files.filter(file -> file.toString().endsWith(".class")).forEach(classFiles::add);
+			}
+			Collections.sort(classFiles);
+			for (Path classFile : classFiles) {
+				digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+				digest.update(Files.readAllBytes(classFile));
+			}
+		} else {
+			digest.update(Files.readAllBytes(location));
+		}
+		compilerHash = hex(digest.digest());
+		return compilerHash;
+	}
+
+	static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes)
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	/** Returns the cache file of the specified phase. */
+	private Path cacheFile(String phase) {
+		return cacheDir.resolve(key + "." + phase + ".ser");
+	}
+
+	/**
+	 * Resumes the current compilation from the deepest cached phase that does
+	 * not exceed the target phase and is not logged.
+	 *
+	 * @param targetPhase
+	 *            The target phase.
+	 * @param loggedPhase
+	 *            The logged phase (or {@code null}).
+	 */
+	public static void resume(String targetPhase, String loggedPhase) {
+		PhaseCache cache = PhaseCache.cache.get();
+		if (cache == null)
+			return;
+		int maxPhase = allPhases.indexOf(targetPhase);
+		if (loggedPhase != null)
+			maxPhase = Math.min(maxPhase, loggedPhase.equals("all") ? -1 : allPhases.indexOf(loggedPhase) - 1);
+		for (int phase = cachedPhases.size() - 1; phase >= 0; phase--) {
+			String phaseName = cachedPhases.get(phase);
+			if (allPhases.indexOf(phaseName) > maxPhase)
+				continue;
+			Path cacheFile = cache.cacheFile(phaseName);
+			if (!Files.exists(cacheFile))
+				continue;
+			try (ObjectInputStream in = new ObjectInputStream(
+					new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+				restore((Snapshot) in.readObject());
+			} catch (IOException | ClassNotFoundException | ClassCastException ex) {
+				continue;
+			}
+			cache.resumedPhase = phaseName;
+			Report.info("Resumed from the cached result of phase '" + phaseName + "'.");
+			return;
+		}
+	}
+
+	/**
+	 * Tells whether the specified phase is skipped because its result has been
+	 * restored from the cache.
+	 *
+	 * @param phaseName
+	 *            The name of the phase.
+	 * @return {@code true} if the phase is to be skipped.
+	 */
+	public static boolean skips(String phaseName) {
+		PhaseCache cache = PhaseCache.cache.get();
+		if (cache == null || cache.resumedPhase == null)
+			return false;
+		return allPhases.indexOf(phaseName) <= allPhases.indexOf(cache.resumedPhase);
+	}
+
+	/**
+	 * Stores the results of all phases up to and including the specified
+	 * phase to the cache (unless they are already there).
+	 *
+	 * @param phaseName
+	 *            The name of the phase just finished.
+	 */
+	public static void store(String phaseName) {
+		PhaseCache cache = PhaseCache.cache.get();
+		if (cache == null || skips(phaseName) || Report.numOfWarnings() > 0)
+			return;
+		Path cacheFile = cache.cacheFile(phaseName);
+		if (Files.exists(cacheFile))
+			return;
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile(cache.cacheDir, cache.key, ".tmp");
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				out.writeObject(snapshot());
+			}
+			Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			Report.info("Cannot write phase cache file '" + cacheFile + "'.");
+			try {
+				if (tmpFile != null)
+					Files.deleteIfExists(tmpFile);
+			} catch (IOException __) {
+			}
+		}
+	}
+
+	private static Snapshot snapshot() {
+		Snapshot snapshot = new Snapshot();
+		snapshot.absTree = Abstr.absTree();
+		snapshot.names = Names.names();
+		for (AbsAttribute<?, ?> attribute : attributes()) {
+			snapshot.mappings.add(attribute.mapping());
+			snapshot.locks.add(attribute.locked());
+		}
+		snapshot.mainFrame = Frames.mainFrame();
+		snapshot.fragments = LinCode.fragments();
+		snapshot.tempCount = Temp.count();
+		snapshot.labelCount = Label.count();
+		return snapshot;
+	}
+
+	private static void restore(Snapshot snapshot) {
+		Abstr.absTree(snapshot.absTree);
+		Names.names(snapshot.names);
+		List<AbsAttribute<?, ?>> attributes = attributes();
+		for (int attribute = 0; attribute < attributes.size(); attribute++)
+			restore(attributes.get(attribute), snapshot.mappings.get(attribute), snapshot.locks.get(attribute));
+		Frames.mainFrame(snapshot.mainFrame);
+		LinCode.reset();
+		for (Fragment fragment : snapshot.fragments)
+			LinCode.add(fragment);
+		Temp.count(snapshot.tempCount);
+		Label.count(snapshot.labelCount);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <Node, Value> void restore(AbsAttribute<Node, Value> attribute, HashMap<?, ?> mapping,
+			boolean locked) {
+		attribute.restore((HashMap<Node, Value>) mapping, locked);
+	}
+
+}
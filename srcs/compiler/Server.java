@@ -0,0 +1,146 @@
+package compiler;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import common.compilation.*;
+import common.report.*;
+
+/**
+ * The resident compile server.
+ *
+ * The server keeps the JVM running between compilations so that all but the
+ * first compilation run already loaded and warmed-up code. Each request
+ * consists of the command line arguments of one compilation (exactly as they
+ * would be passed to the compiler), one argument per line, and is terminated
+ * by an empty line (or by the end of the input), so that arguments may
+ * contain spaces. Each request is compiled
+ * within its own {@link Compilation}, i.e., with its own phase state, and is
+ * answered with a response of the following form:
+ *
+ * <pre>
+ * status ok|failed
+ * out N      followed by N bytes of the regular output
+ * err N      followed by N bytes of diagnostics
+ * mms N      followed by N bytes of the assembly code produced
+ * end
+ * </pre>
+ *
+ * The server reads requests from the standard input and writes responses to
+ * the standard output or, if a port is specified, accepts connections on the
+ * loopback interface and serves the requests of each connection (each
+ * connection in its own thread) until the connection is closed.
+ *
+ * @author zan
+ */
+public class Server {
+
+	/** The port the server listens on (or 0 for the standard input/output). */
+	private final int port;
+
+	/**
+	 * Constructs a new compile server.
+	 *
+	 * @param port The port the server listens on (or 0 for the standard
+	 *             input/output).
+	 */
+	public Server(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * Serves compile requests until the input is exhausted (or forever if
+	 * listening on a port).
+	 */
+	public void run() {
+		try {
+			if (port == 0) {
+				serve(System.in, System.out);
+				return;
+			}
+			ExecutorService connections = Executors.newCachedThreadPool();
+			try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+				Report.info("Compile server listening on port " + port + ".");
+				while (true) {
+					Socket socket = serverSocket.accept();
+					// a slow compilation must not block other clients
+					connections.execute(() -> {
+						try (Socket connection = socket) {
+							serve(connection.getInputStream(), connection.getOutputStream());
+						} catch (IOException ex) {
+							Report.warning("Compile server connection failed: " + ex.getMessage());
+						}
+					});
+				}
+			} finally {
+				connections.shutdown();
+			}
+		} catch (IOException ex) {
+			throw new Report.Error("Compile server failed: " + ex.getMessage());
+		}
+	}
+
+	/** Serves all requests read from the input stream. */
+	private void serve(InputStream in, OutputStream out) throws IOException {
+		BufferedReader requests = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		OutputStream responses = new BufferedOutputStream(out);
+		ArrayList<String> argv = new ArrayList<String>();
+		String arg;
+		do {
+			arg = requests.readLine();
+			if (arg != null && !arg.isEmpty()) {
+				argv.add(arg);
+				continue;
+			}
+			if (argv.isEmpty())
+				continue;
+			respond(argv.toArray(new String[0]), responses);
+			responses.flush();
+			argv.clear();
+		} while (arg != null);
+	}
+
+	/** Compiles a single program and writes the response. */
+	private void respond(String[] argv, OutputStream response) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		Compilation compilation = new Compilation(new PrintStream(out, true), new PrintStream(err, true));
+
+		boolean ok;
+		try {
+			ok = compilation.call(() -> Main.compile(argv));
+		} catch (Throwable ex) {
+			ex.printStackTrace(compilation.err);
+			ok = false;
+		}
+
+		byte[] mms = new byte[0];
+		String dstFileName = compilation.call(() -> Main.cmdLineArgValue("--dst-file-name"));
+		String targetPhase = compilation.call(() -> Main.cmdLineArgValue("--target-phase"));
+		if (ok && "finalize".equals(targetPhase) && dstFileName != null) {
+			try {
+				mms = Files.readAllBytes(Paths.get(dstFileName));
+			} catch (IOException ex) {
+				ok = false;
+				compilation.err.println(":-( Cannot read destination file '" + dstFileName + "'.");
+			}
+		}
+
+		response.write(("status " + (ok ? "ok" : "failed") + "\n").getBytes(StandardCharsets.US_ASCII));
+		section(response, "out", out.toByteArray());
+		section(response, "err", err.toByteArray());
+		section(response, "mms", mms);
+		response.write("end\n".getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/** Writes a single section of the response. */
+	private static void section(OutputStream response, String name, byte[] content) throws IOException {
+		response.write((name + " " + content.length + "\n").getBytes(StandardCharsets.US_ASCII));
+		response.write(content);
+	}
+
+}
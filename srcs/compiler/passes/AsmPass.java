@@ -0,0 +1,23 @@
+package compiler.passes;
+
+import compiler.phases.regalloc.*;
+
+/**
+ * A pass over the instructions of a function once registers are allocated.
+ *
+ * @author zan
+ */
+public abstract class AsmPass extends Pass {
+
+	public AsmPass(String name, int level, String description) {
+		super(name, level, description);
+	}
+
+	/**
+	 * Transforms the instructions of a colored interference graph in place.
+	 *
+	 * @param cg The colored interference graph of a code fragment.
+	 */
+	public abstract void run(ColoredGraph cg);
+
+}
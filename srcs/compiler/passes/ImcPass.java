@@ -0,0 +1,23 @@
+package compiler.passes;
+
+import compiler.phases.lincode.*;
+
+/**
+ * A pass over the linearized intermediate code of a function.
+ *
+ * @author zan
+ */
+public abstract class ImcPass extends Pass {
+
+	public ImcPass(String name, int level, String description) {
+		super(name, level, description);
+	}
+
+	/**
+	 * Transforms the statements of a code fragment in place.
+	 *
+	 * @param fragment The code fragment.
+	 */
+	public abstract void run(CodeFragment fragment);
+
+}
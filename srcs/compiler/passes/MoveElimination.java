@@ -0,0 +1,38 @@
+package compiler.passes;
+
+import java.util.*;
+
+import compiler.phases.asmgen.*;
+import compiler.phases.frames.*;
+import compiler.phases.regalloc.*;
+
+/**
+ * Removes moves whose source and destination have been allocated the same
+ * register.
+ *
+ * @author zan
+ */
+public class MoveElimination extends AsmPass {
+
+	public MoveElimination() {
+		super("moves", 2, "Removes moves between temporaries allocated the same register.");
+	}
+
+	@Override
+	public void run(ColoredGraph cg) {
+		if (!cg.coloringSuccessful)
+			return;
+		Iterator<AsmInstr> instrs = cg.instructions.iterator();
+		while (instrs.hasNext()) {
+			AsmInstr instr = instrs.next();
+			if (!(instr instanceof AsmMOVE))
+				continue;
+			Temp src = instr.uses().firstElement();
+			Temp dst = instr.defs().firstElement();
+			Integer srcReg = cg.regMapping.get(src);
+			if (srcReg != null && srcReg.equals(cg.regMapping.get(dst)))
+				instrs.remove();
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package compiler.passes;
+
+/**
+ * An optimisation pass (or an optional transformation performed by a phase).
+ *
+ * A pass is enabled if the optimisation level of the compilation is at least
+ * the level of the pass, unless it has been enabled or disabled explicitly
+ * (see {@link PassManager}). Passes that are not subclasses of
+ * {@link ImcPass} or {@link AsmPass} are performed by the phases themselves,
+ * which ask {@link PassManager#enabled(String)} whether to perform them.
+ *
+ * @author zan
+ */
+public class Pass {
+
+	/** The name of the pass. */
+	public final String name;
+
+	/** The lowest optimisation level the pass is enabled at. */
+	public final int level;
+
+	/** The description of the pass. */
+	public final String description;
+
+	public Pass(String name, int level, String description) {
+		this.name = name;
+		this.level = level;
+		this.description = description;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,183 @@
+package compiler.passes;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import common.compilation.*;
+import common.report.*;
+import compiler.phases.lincode.*;
+import compiler.phases.regalloc.*;
+
+/**
+ * The pass manager.
+ *
+ * All optimisation passes of the compiler are registered here. Passes over
+ * the intermediate code ({@link ImcPass}) are performed at the end of the
+ * linearization of the intermediate code, passes over the instructions
+ * ({@link AsmPass}) once registers of a function are allocated, and all other
+ * passes are performed by the phases themselves. Which passes are enabled
+ * depends on the optimisation level of the compilation:
+ *
+ * <ul>
+ * <li>{@code -O0} compiles as fast as possible,</li>
+ * <li>{@code -O1} (the default) balances the time of compilation and the
+ * quality of the code,</li>
+ * <li>{@code -O2} produces the best code.</li>
+ * </ul>
+ *
+ * Individual passes are enabled or disabled with
+ * {@code --enable-passes=NAME,...} and {@code --disable-passes=NAME,...}
+ * regardless of the level. The time each pass takes is reported with
+ * {@code --time-passes} (and within statistics, see {@link Stats}).
+ *
+ * @author zan
+ */
+public class PassManager {
+
+	/** The default optimisation level. */
+	public static final int defaultLevel = 1;
+
+	/** The highest optimisation level. */
+	public static final int maxLevel = 2;
+
+	/** All passes in the order they are performed. */
+	public static final List<Pass> passes = Collections.unmodifiableList(Arrays.asList(
+			new Pass("short-array-access", 0, "Accesses array elements without copying them to temporaries."),
+			new Pass("binop-temps", 1, "Evaluates operands of binary operators to temporaries."),
+			new TraceScheduling(),
+			new Pass("spill-temps", 0, "Loads and stores spilled temporaries through new temporaries."),
+			new MoveElimination()));
+
+	/** The configuration of passes within a compilation. */
+	private static class Config {
+
+		/** The optimisation level. */
+		final int level;
+
+		/** The names of enabled passes. */
+		final LinkedHashSet<String> enabled = new LinkedHashSet<String>();
+
+		/** The time spent in each pass in nanoseconds (by names of passes). */
+		final LinkedHashMap<String, AtomicLong> times = new LinkedHashMap<String, AtomicLong>();
+
+		Config(int level) {
+			this.level = level;
+			for (Pass pass : passes) {
+				if (level >= pass.level)
+					enabled.add(pass.name);
+				if (pass instanceof ImcPass || pass instanceof AsmPass)
+					times.put(pass.name, new AtomicLong());
+			}
+		}
+
+	}
+
+	/** The configuration of passes of the current compilation. */
+	private static final CompilationLocal<Config> config = new CompilationLocal<>(() -> new Config(defaultLevel));
+
+	/** Returns the pass of the specified name. */
+	private static Pass pass(String name) {
+		for (Pass pass : passes)
+			if (pass.name.equals(name))
+				return pass;
+		throw new Report.Error("Unknown pass '" + name + "'.");
+	}
+
+	/**
+	 * Configures the passes of the current compilation.
+	 *
+	 * @param level          The optimisation level.
+	 * @param enabledPasses  The names of passes enabled regardless of the level
+	 *                       (comma separated, or {@code null}).
+	 * @param disabledPasses The names of passes disabled regardless of the
+	 *                       level (comma separated, or {@code null}).
+	 */
+	public static void configure(int level, String enabledPasses, String disabledPasses) {
+		Config config = new Config(level);
+		if (enabledPasses != null)
+			for (String name : enabledPasses.split(","))
+				config.enabled.add(pass(name).name);
+		if (disabledPasses != null)
+			for (String name : disabledPasses.split(","))
+				config.enabled.remove(pass(name).name);
+		PassManager.config.set(config);
+	}
+
+	/**
+	 * Tells whether a pass is enabled within the current compilation.
+	 *
+	 * @param name The name of the pass.
+	 * @return {@code true} if the pass is enabled.
+	 */
+	public static boolean enabled(String name) {
+		return config.get().enabled.contains(name);
+	}
+
+	/**
+	 * Returns the signature of the configuration of passes (the names of the
+	 * enabled passes) so that cached results of different configurations are
+	 * told apart.
+	 *
+	 * @return The signature.
+	 */
+	public static String signature() {
+		StringBuilder signature = new StringBuilder();
+		for (Pass pass : passes)
+			if (enabled(pass.name))
+				signature.append(pass.name).append(';');
+		return signature.toString();
+	}
+
+	/** Adds to the time spent in a pass. */
+	private static void time(Pass pass, long time) {
+		config.get().times.get(pass.name).addAndGet(time);
+		Stats.count("passTime", pass.name, time);
+	}
+
+	/**
+	 * Performs all enabled passes over the intermediate code of all code
+	 * fragments.
+	 *
+	 * @param fragments The fragments.
+	 */
+	public static void runImcPasses(Collection<Fragment> fragments) {
+		for (Pass pass : passes) {
+			if (!(pass instanceof ImcPass) || !enabled(pass.name))
+				continue;
+			long begTime = System.nanoTime();
+			for (Fragment fragment : fragments)
+				if (fragment instanceof CodeFragment)
+					((ImcPass) pass).run((CodeFragment) fragment);
+			time(pass, System.nanoTime() - begTime);
+		}
+	}
+
+	/**
+	 * Performs all enabled passes over the instructions of a code fragment
+	 * once its registers are allocated.
+	 *
+	 * @param cg The colored interference graph of the code fragment.
+	 */
+	public static void runAsmPasses(ColoredGraph cg) {
+		for (Pass pass : passes) {
+			if (!(pass instanceof AsmPass) || !enabled(pass.name))
+				continue;
+			long begTime = System.nanoTime();
+			((AsmPass) pass).run(cg);
+			time(pass, System.nanoTime() - begTime);
+		}
+	}
+
+	/**
+	 * Prints out the optimisation level, the enabled passes and the time spent
+	 * in each pass performed by the pass manager.
+	 */
+	public static void report() {
+		Config config = PassManager.config.get();
+		Report.info("Optimisation level -O" + config.level + ", passes: " + String.join(", ", config.enabled));
+		for (Map.Entry<String, AtomicLong> time : config.times.entrySet())
+			if (config.enabled.contains(time.getKey()))
+				Report.info(String.format(Locale.ROOT, "Pass %-20s %10.3f ms", time.getKey(), time.getValue().get() / 1e6));
+	}
+
+}
@@ -0,0 +1,106 @@
+package compiler.passes;
+
+import java.util.*;
+
+import common.report.Trace;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
+import compiler.phases.frames.*;
+import compiler.phases.imcgen.code.*;
+import compiler.phases.lincode.*;
+
+/**
+ * Orders the basic blocks of a function into traces so that the false branch
+ * of a conditional jump and the target of an unconditional jump follow the
+ * jump whenever possible (such jumps are then removed by the final phase).
+ *
+ * @author zan
+ */
+public class TraceScheduling extends ImcPass {
+
+	public TraceScheduling() {
+		super("traces", 1, "Orders basic blocks into traces.");
+	}
+
+	@Override
+	public void run(CodeFragment fragment) {
+		Vector<ImcStmt> newStmts = optTraces(fragment.stmts());
+		fragment.stmts().clear();
+		fragment.stmts().addAll(newStmts);
+	}
+
+	private Vector<Vector<ImcStmt>> getBlocks(Vector<ImcStmt> stmts) {
+		Vector<Vector<ImcStmt>> blocks = new Vector<>();
+		boolean finished = true;
+		boolean started = false;
+		for (ImcStmt stmt : stmts) {
+			if (!started) {
+				blocks.add(new Vector<>());
+				started = true;
+				finished = false;
+				if (!(stmt instanceof ImcLABEL)) {
+					blocks.lastElement().add(new ImcLABEL(new Label()));
+					continue;
+				}
+			} else if (stmt instanceof ImcLABEL) {
+				if (!finished) {
+					blocks.lastElement().add(new ImcJUMP(((ImcLABEL) stmt).label));
+				}
+				blocks.add(new Vector<>());
+				started = true;
+				finished = false;
+			} else if (stmt instanceof ImcCJUMP || stmt instanceof ImcJUMP) {
+				finished = true;
+				started = false;
+			}
+			blocks.lastElement().add(stmt);
+		}
+		if (Trace.on(Subsystem.LINCODE, Level.DETAIL)) {
+			for (Vector<ImcStmt> block : blocks) {
+				Trace.trace(Subsystem.LINCODE, Level.DETAIL, Integer.toString(block.size()));
+				Trace.trace(Subsystem.LINCODE, Level.DETAIL, ((ImcLABEL) block.firstElement()).label.name);
+				Trace.trace(Subsystem.LINCODE, Level.DETAIL, block.lastElement().getClass().getSimpleName());
+			}
+		}
+		return blocks;
+	}
+
+	private Vector<ImcStmt> optTraces(Vector<ImcStmt> stmts) {
+		LinkedList<Vector<ImcStmt>> blocks = new LinkedList<>(getBlocks(stmts));
+		HashMap<Label, Vector<ImcStmt>> labelBlocks = new HashMap<>();
+		for (Vector<ImcStmt> block : blocks) {
+			labelBlocks.put(((ImcLABEL) block.firstElement()).label, block);
+		}
+		HashSet<Vector<ImcStmt>> marked = new HashSet<>();
+		Vector<ImcStmt> newStmts = new Vector<>();
+		while (blocks.size() > 0) {
+			Vector<ImcStmt> currBlock = blocks.removeFirst();
+			Vector<ImcStmt> trace = new Vector<>();
+			while (!marked.contains(currBlock)) {
+				marked.add(currBlock);
+				trace.addAll(currBlock);
+				ImcStmt jump = currBlock.lastElement();
+				if (jump instanceof ImcJUMP) {
+					Vector<ImcStmt> succ = labelBlocks.get(((ImcJUMP) jump).label);
+					if (!marked.contains(succ)) {
+						currBlock = succ;
+					}
+				} else if (jump instanceof ImcCJUMP) {
+					Vector<ImcStmt> succ = labelBlocks.get(((ImcCJUMP) jump).negLabel);
+					if (!marked.contains(succ)) {
+						currBlock = succ;
+						continue;
+					}
+					succ = labelBlocks.get(((ImcCJUMP) jump).posLabel);
+					if (!marked.contains(succ)) {
+						currBlock = succ;
+					}
+				}
+
+			}
+			newStmts.addAll(trace);
+		}
+		return newStmts;
+	}
+
+}
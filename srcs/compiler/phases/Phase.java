@@ -1,6 +1,13 @@
 package compiler.phases;
 
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import common.compilation.*;
 import common.logger.*;
+import common.report.*;
 
 /**
  * An abstract compiler phase. All concrete compiler phases should be
@@ -15,21 +22,55 @@ public abstract class Phase implements AutoCloseable {
 	/** The logger used to produce the log of this phase. */
 	public final Logger logger;
 
+	/** The flight recorder event of this phase. */
+	private final Events.Phase event = new Events.Phase();
+
+	/**
+	 * The streams logs are written to instead of files, by phase names (or
+	 * {@code null} if logs are written to files).
+	 */
+	private static final CompilationLocal<Function<String, OutputStream>> logStreams = new CompilationLocal<>();
+
+	/**
+	 * Makes logs of the current compilation be written to streams instead of
+	 * files.
+	 *
+	 * @param logStreams Returns the stream the log of a phase is written to.
+	 */
+	public static void logStreams(Function<String, OutputStream> logStreams) {
+		Phase.logStreams.set(logStreams);
+	}
+
 	/**
 	 * Constructs a new phase of a compiler. If logging of this phase has been
-	 * requested, it prepares a logger using the phase name for naming the XML
-	 * and XSL files as well as for the topmost XML element within the XML file.
+	 * requested, it prepares a logger using the phase name for naming the log
+	 * and XSL files as well as for the topmost XML element within the log. The
+	 * log is binary (see {@link common.logger.LogConverter}) unless
+	 * {@code --log-format=xml} has been specified or the log file has been
+	 * named by {@code --xml} without specifying its format.
 	 * 
 	 * @param phaseName The phase name.
 	 */
 	protected Phase(String phaseName) {
+		event.phaseName = phaseName;
+		event.begin();
+		Stats.begPhase(phaseName);
 		String loggedPhase = compiler.Main.cmdLineArgValue("--logged-phase");
 		if ((loggedPhase != null) && loggedPhase.matches(phaseName + "|all")) {
-			// Prepare the name of the xml file.
-			String xmlFileName = compiler.Main.cmdLineArgValue("--xml");
-			if (xmlFileName == null) {
-				xmlFileName = compiler.Main.cmdLineArgValue("--src-file-name").replaceFirst("\\.[^./]*$", "") + "."
-						+ phaseName + ".xml";
+			// Prepare the format of the log (a log named by --xml is XML unless
+			// specified otherwise).
+			String logFileName = compiler.Main.cmdLineArgValue("--xml");
+			String logFormat = compiler.Main.cmdLineArgValue("--log-format");
+			if (logFormat == null)
+				logFormat = logFileName == null ? "bin" : "xml";
+			Logger.Format format = "xml".equals(logFormat) ? Logger.Format.XML : Logger.Format.BIN;
+
+			// Prepare the name of the log file.
+			if (logFileName == null) {
+				logFileName = compiler.Main.cmdLineArgValue("--src-file-name").replaceFirst("\\.[^./]*$", "") + "."
+						+ phaseName + (format == Logger.Format.XML ? ".xml" : ".bin");
+			} else if (format == Logger.Format.BIN && logFileName.endsWith(".xml")) {
+				Report.warning("Binary log of phase '" + phaseName + "' written to '" + logFileName + "'.");
 			}
 
 			// Prepare the name of the supporting xsl file.
@@ -38,16 +79,80 @@ public abstract class Phase implements AutoCloseable {
 				xslDirName = "";
 			}
 
-			logger = new Logger(phaseName, xmlFileName, xslDirName + phaseName + ".xsl");
+			Function<String, OutputStream> logStreams = Phase.logStreams.get();
+			logger = new Logger(phaseName, logFileName, logStreams == null ? null : logStreams.apply(phaseName),
+					xslDirName + phaseName + ".xsl", format);
 		} else {
 			logger = null;
 		}
 	}
 
+	/** Fork-join pools the back-end phases run on (by their parallelism). */
+	private static final ConcurrentHashMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+	/**
+	 * Performs a task for each element of a list, in parallel unless
+	 * {@code --backend-jobs=1} has been specified. Tasks are performed within
+	 * the current compilation and must not depend on each other.
+	 *
+	 * @param elems The elements.
+	 * @param task  The task.
+	 * @return The results of the task, in the order of elements.
+	 */
+	protected static <Elem, Result> ArrayList<Result> parallel(List<Elem> elems, Function<Elem, Result> task) {
+		String backendJobs = compiler.Main.cmdLineArgValue("--backend-jobs");
+		int jobs = backendJobs == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(backendJobs);
+		return parallel(elems, jobs, task);
+	}
+
+	/**
+	 * Performs a task for each element of a list using the specified number of
+	 * threads (see {@link #parallel(List, Function)}).
+	 *
+	 * @param elems The elements.
+	 * @param jobs  The number of threads.
+	 * @param task  The task.
+	 * @return The results of the task, in the order of elements.
+	 */
+	protected static <Elem, Result> ArrayList<Result> parallel(List<Elem> elems, int jobs,
+			Function<Elem, Result> task) {
+		ArrayList<Result> results = new ArrayList<>(elems.size());
+		if ((jobs <= 1) || (elems.size() <= 1)) {
+			for (Elem elem : elems)
+				results.add(task.apply(elem));
+			return results;
+		}
+
+		Compilation compilation = Compilation.current();
+		ArrayList<Callable<Result>> tasks = new ArrayList<>(elems.size());
+		for (Elem elem : elems)
+			tasks.add(() -> compilation.call(() -> Stats.worker(() -> task.apply(elem))));
+		for (Future<Result> result : pools.computeIfAbsent(jobs, ForkJoinPool::new).invokeAll(tasks)) {
+			try {
+				results.add(result.get());
+			} catch (ExecutionException ex) {
+				if (ex.getCause() instanceof RuntimeException)
+					throw (RuntimeException) ex.getCause();
+				if (ex.getCause() instanceof Error)
+					throw (Error) ex.getCause();
+				throw new Report.InternalError();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new Report.InternalError();
+			}
+		}
+		return results;
+	}
+
 	@Override
 	public void close() {
 		if (logger != null)
 			logger.close();
+		Stats.endPhase();
+		if (event.shouldCommit()) {
+			event.srcFileName = compiler.Main.cmdLineArgValue("--src-file-name");
+			event.commit();
+		}
 	}
 
 }
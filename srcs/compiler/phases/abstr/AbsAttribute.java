@@ -1,6 +1,7 @@
 package compiler.phases.abstr;
 
 import java.util.*;
+import common.compilation.*;
 import common.report.*;
 
 /**
@@ -15,16 +16,16 @@ import common.report.*;
  */
 public class AbsAttribute<Node, Value> {
 
-	/** Mapping of nodes to attribute values. */
-	private HashMap<Node, Value> mapping;
+	/** Mapping of nodes to attribute values (within each compilation). */
+	private final CompilationLocal<HashMap<Node, Value>> mapping;
 
 	/** Whether this attribute's values can no longer be modified or not. */
-	private boolean lock;
+	private final CompilationLocal<Boolean> lock;
 
 	/** Constructs a new attribute. */
 	public AbsAttribute() {
-		mapping = new HashMap<Node, Value>();
-		lock = false;
+		mapping = new CompilationLocal<>(HashMap::new);
+		lock = new CompilationLocal<>(() -> false);
 	}
 
 	/**
@@ -38,9 +39,9 @@ public class AbsAttribute<Node, Value> {
 	 * @return The value itself.
 	 */
 	public Value put(Node node, Value value) {
-		if (lock)
+		if (lock.get())
 			throw new Report.InternalError();
-		mapping.put(node, value);
+		mapping.get().put(node, value);
 		return value;
 	}
 
@@ -53,14 +54,47 @@ public class AbsAttribute<Node, Value> {
 	 * @return The attribute value.
 	 */
 	public Value get(Node node) {
-		return mapping.get(node);
+		return mapping.get().get(node);
 	}
 
 	/**
 	 * Prevents further modification of this attributte's values.
 	 */
 	public void lock() {
-		lock = true;
+		lock.set(true);
+	}
+
+	/**
+	 * Tells whether this attribute's values can no longer be modified.
+	 *
+	 * @return {@code true} if this attribute has been locked.
+	 */
+	public boolean locked() {
+		return lock.get();
+	}
+
+	/**
+	 * Returns the mapping of nodes to attribute values (used for caching the
+	 * results of phases).
+	 *
+	 * @return The mapping of nodes to attribute values.
+	 */
+	public HashMap<Node, Value> mapping() {
+		return mapping.get();
+	}
+
+	/**
+	 * Replaces the mapping of nodes to attribute values (when the compilation
+	 * is resumed from a cached phase).
+	 *
+	 * @param mapping
+	 *            The mapping of nodes to attribute values.
+	 * @param locked
+	 *            Whether this attribute's values can no longer be modified.
+	 */
+	public void restore(HashMap<Node, Value> mapping, boolean locked) {
+		this.mapping.set(mapping);
+		this.lock.set(locked);
 	}
 
 	/**
@@ -68,8 +102,8 @@ public class AbsAttribute<Node, Value> {
 	 * For test purposes only. Use with caution.
 	 */
 	public void reset(){
-		mapping = new HashMap<Node, Value>();
-		lock = false;
+		mapping.set(new HashMap<Node, Value>());
+		lock.set(false);
 	}
 
 }
@@ -0,0 +1,211 @@
+package compiler.phases.abstr;
+
+import compiler.phases.abstr.abstree.*;
+
+/**
+ * Counts the nodes of the abstract syntax tree.
+ * 
+ * @author zan
+ *
+ */
+public class AbsCounter extends AbsFullVisitor<Object, Object> {
+
+	/** The number of nodes visited so far. */
+	private long numOfNodes = 0;
+
+	/**
+	 * Returns the number of nodes visited so far.
+	 * 
+	 * @return The number of nodes.
+	 */
+	public long numOfNodes() {
+		return numOfNodes;
+	}
+
+	@Override
+	public Object visit(AbsArgs args, Object visArg) {
+		numOfNodes++;
+		return super.visit(args, visArg);
+	}
+
+	@Override
+	public Object visit(AbsArrExpr arrExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(arrExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsArrType arrType, Object visArg) {
+		numOfNodes++;
+		return super.visit(arrType, visArg);
+	}
+
+	@Override
+	public Object visit(AbsAssignStmt assignStmt, Object visArg) {
+		numOfNodes++;
+		return super.visit(assignStmt, visArg);
+	}
+
+	@Override
+	public Object visit(AbsAtomExpr atomExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(atomExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsAtomType atomType, Object visArg) {
+		numOfNodes++;
+		return super.visit(atomType, visArg);
+	}
+
+	@Override
+	public Object visit(AbsBinExpr binExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(binExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsCastExpr castExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(castExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsCompDecl compDecl, Object visArg) {
+		numOfNodes++;
+		return super.visit(compDecl, visArg);
+	}
+
+	@Override
+	public Object visit(AbsCompDecls compDecls, Object visArg) {
+		numOfNodes++;
+		return super.visit(compDecls, visArg);
+	}
+
+	@Override
+	public Object visit(AbsDecls decls, Object visArg) {
+		numOfNodes++;
+		return super.visit(decls, visArg);
+	}
+
+	@Override
+	public Object visit(AbsDelExpr delExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(delExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsExprStmt exprStmt, Object visArg) {
+		numOfNodes++;
+		return super.visit(exprStmt, visArg);
+	}
+
+	@Override
+	public Object visit(AbsFunDecl funDecl, Object visArg) {
+		numOfNodes++;
+		return super.visit(funDecl, visArg);
+	}
+
+	@Override
+	public Object visit(AbsFunDef funDef, Object visArg) {
+		numOfNodes++;
+		return super.visit(funDef, visArg);
+	}
+
+	@Override
+	public Object visit(AbsFunName funName, Object visArg) {
+		numOfNodes++;
+		return super.visit(funName, visArg);
+	}
+
+	@Override
+	public Object visit(AbsIfStmt ifStmt, Object visArg) {
+		numOfNodes++;
+		return super.visit(ifStmt, visArg);
+	}
+
+	@Override
+	public Object visit(AbsNewExpr newExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(newExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsParDecl parDecl, Object visArg) {
+		numOfNodes++;
+		return super.visit(parDecl, visArg);
+	}
+
+	@Override
+	public Object visit(AbsParDecls absPars, Object visArg) {
+		numOfNodes++;
+		return super.visit(absPars, visArg);
+	}
+
+	@Override
+	public Object visit(AbsPtrType ptrType, Object visArg) {
+		numOfNodes++;
+		return super.visit(ptrType, visArg);
+	}
+
+	@Override
+	public Object visit(AbsRecExpr recExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(recExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsRecType recType, Object visArg) {
+		numOfNodes++;
+		return super.visit(recType, visArg);
+	}
+
+	@Override
+	public Object visit(AbsStmtExpr stmtExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(stmtExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsStmts stmts, Object visArg) {
+		numOfNodes++;
+		return super.visit(stmts, visArg);
+	}
+
+	@Override
+	public Object visit(AbsTypeDecl typeDecl, Object visArg) {
+		numOfNodes++;
+		return super.visit(typeDecl, visArg);
+	}
+
+	@Override
+	public Object visit(AbsTypeName typeName, Object visArg) {
+		numOfNodes++;
+		return super.visit(typeName, visArg);
+	}
+
+	@Override
+	public Object visit(AbsUnExpr unExpr, Object visArg) {
+		numOfNodes++;
+		return super.visit(unExpr, visArg);
+	}
+
+	@Override
+	public Object visit(AbsVarDecl varDecl, Object visArg) {
+		numOfNodes++;
+		return super.visit(varDecl, visArg);
+	}
+
+	@Override
+	public Object visit(AbsVarName varName, Object visArg) {
+		numOfNodes++;
+		return super.visit(varName, visArg);
+	}
+
+	@Override
+	public Object visit(AbsWhileStmt whileStmt, Object visArg) {
+		numOfNodes++;
+		return super.visit(whileStmt, visArg);
+	}
+
+}
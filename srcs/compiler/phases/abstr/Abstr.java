@@ -1,5 +1,6 @@
 package compiler.phases.abstr;
 
+import common.compilation.*;
 import common.report.*;
 import compiler.phases.*;
 import compiler.phases.abstr.abstree.*;
@@ -14,7 +15,7 @@ import compiler.phases.synan.dertree.DerTree;
 public class Abstr extends Phase {
 
 	/** The costructed abstract syntax tree. */
-	private static AbsExpr absTree;
+	private static final CompilationLocal<AbsExpr> absTree = new CompilationLocal<>();
 
 	/**
 	 * Returns the constructed abstract syntax tree.
@@ -22,7 +23,18 @@ public class Abstr extends Phase {
 	 * @return The constructed abstract syntax tree.
 	 */
 	public static AbsExpr absTree() {
-		return absTree;
+		return absTree.get();
+	}
+
+	/**
+	 * Sets the abstract syntax tree (when the compilation is resumed from a
+	 * cached phase).
+	 * 
+	 * @param absTree
+	 *            The abstract syntax tree.
+	 */
+	public static void absTree(AbsExpr absTree) {
+		Abstr.absTree.set(absTree);
 	}
 
 	/**
@@ -43,13 +55,19 @@ public class Abstr extends Phase {
 		AbsTree absTree = derTree.accept(new DerToAbsTree(), null);
 		if (!(absTree instanceof AbsExpr))
 			throw new Report.InternalError();
-		Abstr.absTree = (AbsExpr) absTree;
-		return Abstr.absTree;
+		Abstr.absTree.set((AbsExpr) absTree);
+		return Abstr.absTree();
 	}
 
 	@Override
 	public void close() {
-		Abstr.absTree().accept(new AbsLogger(logger), null);
+		if (logger != null)
+			Abstr.absTree().accept(new AbsLogger(logger), null);
+		if (Stats.enabled()) {
+			AbsCounter counter = new AbsCounter();
+			Abstr.absTree().accept(counter, null);
+			Stats.count("absNodes", counter.numOfNodes());
+		}
 		super.close();
 	}
 
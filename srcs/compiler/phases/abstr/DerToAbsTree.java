@@ -3,6 +3,8 @@ package compiler.phases.abstr;
 import java.util.*;
 
 import common.report.*;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.phases.abstr.abstree.*;
 import compiler.phases.lexan.Term;
 import compiler.phases.synan.*;
@@ -15,10 +17,13 @@ import compiler.phases.synan.dertree.*;
  */
 public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 
-	private static final boolean debug = false;
-
+	/** Traces a message (messages that must be built are to be traced only if {@link #tracing()}). */
 	private void dump(DerTree node, String msg) {
-		if (debug) System.out.println("[" + node.location() + "]: " + msg);
+		if (tracing()) Trace.trace(Subsystem.ABSTR, Level.DETAIL, "[" + node.location() + "]: " + msg);
+	}
+
+	private static boolean tracing() {
+		return Trace.on(Subsystem.ABSTR, Level.DETAIL);
 	}
 
 	private void skip(DerNode node, int index) {
@@ -27,18 +32,18 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 
 	@Override
 	public AbsTree visit(DerLeaf leaf, AbsTree visArg) {
-		dump(leaf, "Visit leaf: " + leaf.symb + ": " + visArg);
+		if (tracing()) dump(leaf, "Visit leaf: " + leaf.symb + ": " + visArg);
 		switch (leaf.symb.token) {
 			case INTCONST:
-				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.INT, leaf.symb.lexeme);
+				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.INT, leaf.symb.lexeme());
 			case VOIDCONST:
-				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.VOID, leaf.symb.lexeme);
+				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.VOID, leaf.symb.lexeme());
 			case BOOLCONST:
-				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.BOOL, leaf.symb.lexeme);
+				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.BOOL, leaf.symb.lexeme());
 			case PTRCONST:
-				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.PTR, leaf.symb.lexeme);
+				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.PTR, leaf.symb.lexeme());
 			case CHARCONST:
-				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.CHAR, leaf.symb.lexeme);
+				return new AbsAtomExpr(leaf.location(), AbsAtomExpr.Type.CHAR, leaf.symb.lexeme());
 			case INT:
 				return new AbsAtomType(leaf.location(), AbsAtomType.Type.INT);
 			case BOOL:
@@ -48,13 +53,13 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 			case CHAR:
 				return new AbsAtomType(leaf.location(), AbsAtomType.Type.CHAR);
 			case IDENTIFIER:
-				dump(leaf, "Identifier " + visArg + ".");
+				if (tracing()) dump(leaf, "Identifier " + visArg + ".");
 				if (visArg instanceof AbsTypeDecl) {
-					return new AbsTypeName(leaf.location(), leaf.symb.lexeme);
+					return new AbsTypeName(leaf.location(), leaf.symb.lexeme());
 				} else if (visArg instanceof AbsArgs) {
-					return new AbsFunName(leaf.location(), leaf.symb.lexeme, (AbsArgs) visArg);
+					return new AbsFunName(leaf.location(), leaf.symb.lexeme(), (AbsArgs) visArg);
 				} else {
-					return new AbsVarName(leaf.location(), leaf.symb.lexeme);
+					return new AbsVarName(leaf.location(), leaf.symb.lexeme());
 				}
 			default:
 				return visArg;
@@ -63,7 +68,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 
 	@Override
 	public AbsTree visit(DerNode node, AbsTree visArg) {
-		dump(node, "Visit node: " + node.label);
+		if (tracing()) dump(node, "Visit node: " + node.label);
 		if (node.location() == null) return visArg;
 
 		AbsTree at;
@@ -132,7 +137,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 						case DOT:
 							// record access
 							DerLeaf var = (DerLeaf) node.subtree(1);
-							AbsExpr recExpr = new AbsRecExpr(node.location(), (AbsExpr) visArg, new AbsVarName(var.location(), var.symb.lexeme));
+							AbsExpr recExpr = new AbsRecExpr(node.location(), (AbsExpr) visArg, new AbsVarName(var.location(), var.symb.lexeme()));
 							at = recExpr.relocate(new Location(visArg, recExpr));
 							at = node.subtree(2).accept(this, at);
 							break;
@@ -243,7 +248,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 							at = new AbsRecType(node.location(), recDecls);
 							break;
 						case IDENTIFIER:
-							at = new AbsTypeName(node.location(), ((DerLeaf) node.subtree(0)).symb.lexeme);
+							at = new AbsTypeName(node.location(), ((DerLeaf) node.subtree(0)).symb.lexeme());
 							break;
 					}
 				}
@@ -288,7 +293,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 						skip(node, 1);
 						skip(node, 2);
 						at = new AbsVarDecl(node.location(),
-							((DerLeaf) node.subtree(1)).symb.lexeme,
+							((DerLeaf) node.subtree(1)).symb.lexeme(),
 							(AbsType) node.subtree(3).accept(this, visArg));
 						break;
 				}
@@ -338,7 +343,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 	private String getIdName(DerNode node, int index) {
 		DerLeaf id = (DerLeaf) node.subtree(index);
 		node.subtree(index).accept(this, null);
-		return id.symb.lexeme;
+		return id.symb.lexeme();
 	}
 
 	private <T extends AbsTree> Location getVecLocation(Vector<T> vec) {
@@ -350,7 +355,7 @@ public class DerToAbsTree implements DerVisitor<AbsTree, AbsTree> {
 		DerLeaf id = (DerLeaf) node.subtree(index);
 		node.subtree(0).accept(this, null);
 		AbsType type = (AbsType) node.subtree(index + 2).accept(this, null);
-		AbsParDecl parDecl = new AbsParDecl(new Location(id.location(), type.location()), id.symb.lexeme, type);
+		AbsParDecl parDecl = new AbsParDecl(new Location(id.location(), type.location()), id.symb.lexeme(), type);
 		parDecls.add(parDecl);
 		AbsTree at = node.subtree(index + 3).accept(this, parDecl);
 		if (at instanceof AbsParDecls) {
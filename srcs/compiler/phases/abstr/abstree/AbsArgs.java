@@ -6,6 +6,8 @@ import compiler.phases.abstr.*;
 
 public class AbsArgs extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<AbsExpr> args;
 
 	public AbsArgs(Locatable location, Vector<AbsExpr> args) {
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsArrExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr array;
 
 	public final AbsExpr index;
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsArrType extends AbsType {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr len;
 
 	public final AbsType elemType;
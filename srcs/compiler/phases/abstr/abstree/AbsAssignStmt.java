@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsAssignStmt extends AbsStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr dst;
 
 	public final AbsExpr src;
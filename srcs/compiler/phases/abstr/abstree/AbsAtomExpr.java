@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsAtomExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public enum Type {
 		VOID, BOOL, CHAR, INT, PTR,
 	}
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsAtomType extends AbsType {
 
+	private static final long serialVersionUID = 1L;
+
 	public enum Type {
 		VOID, BOOL, CHAR, INT,
 	}
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsBinExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public enum Oper {
 		IOR, XOR, AND, EQU, NEQ, LTH, GTH, LEQ, GEQ, ADD, SUB, MUL, DIV, MOD,
 	}
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsCastExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsType type;
 
 	public final AbsExpr expr;
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsCompDecl extends AbsVarDecl {
 
+	private static final long serialVersionUID = 1L;
+
 	public AbsCompDecl(Locatable location, String name, AbsType type) {
 		super(location, name, type);
 	}
@@ -6,6 +6,8 @@ import compiler.phases.abstr.*;
 
 public class AbsCompDecls extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<AbsCompDecl> compDecls;
 
 	public AbsCompDecls(Locatable location, Vector<AbsCompDecl> compDecls) {
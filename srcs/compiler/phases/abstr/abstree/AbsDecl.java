@@ -1,16 +1,22 @@
 package compiler.phases.abstr.abstree;
 
 import common.report.*;
+import compiler.phases.lexan.*;
 
 public abstract class AbsDecl extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	public final String name;
+
+	public final int id;
 	
 	public final AbsType type;
 
 	public AbsDecl(Locatable location, String name, AbsType type) {
 		super(location);
 		this.name = name;
+		this.id = Names.id(name);
 		this.type = type;
 	}
 
@@ -6,6 +6,8 @@ import compiler.phases.abstr.*;
 
 public class AbsDecls extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<AbsDecl> decls;
 
 	public AbsDecls(Locatable location, Vector<AbsDecl> decls) {
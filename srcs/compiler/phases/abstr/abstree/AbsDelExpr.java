@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsDelExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr expr;
 
 	public AbsDelExpr(Locatable location, AbsExpr expr) {
@@ -4,6 +4,8 @@ import common.report.*;
 
 public abstract class AbsExpr extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	public AbsExpr(Locatable location) {
 		super(location);
 	}
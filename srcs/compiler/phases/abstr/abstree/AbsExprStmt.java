@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsExprStmt extends AbsStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr expr;
 
 	public AbsExprStmt(Locatable location, AbsExpr expr) {
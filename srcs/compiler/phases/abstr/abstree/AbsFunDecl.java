@@ -4,6 +4,8 @@ import common.report.*;
 import compiler.phases.abstr.*;
 
 public class AbsFunDecl extends AbsDecl {
+
+	private static final long serialVersionUID = 1L;
 		
 	public final AbsParDecls parDecls;
 	
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsFunDef extends AbsFunDecl {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr value;
 
 	public AbsFunDef(Locatable location, String name, AbsParDecls parDecls, AbsType type, AbsExpr value) {
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsFunName extends AbsVarName implements AbsName {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsArgs args;
 
 	public AbsFunName(Locatable location, String name, AbsArgs args) {
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsIfStmt extends AbsStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr cond;
 
 	public final AbsStmts thenBody;
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsNewExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsType type;
 
 	public AbsNewExpr(Locatable location, AbsType type) {
@@ -4,6 +4,8 @@ import common.report.*;
 import compiler.phases.abstr.*;
 
 public class AbsParDecl extends AbsVarDecl {
+
+	private static final long serialVersionUID = 1L;
 	
 	public AbsParDecl(Locatable location, String name, AbsType type) {
 		super(location, name, type);
@@ -6,6 +6,8 @@ import compiler.phases.abstr.*;
 
 public class AbsParDecls extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<AbsParDecl> parDecls;
 
 	public AbsParDecls(Locatable location, Vector<AbsParDecl> parDecls) {
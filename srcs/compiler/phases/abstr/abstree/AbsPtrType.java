@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsPtrType extends AbsType {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsType subType;
 
 	public AbsPtrType(Locatable location, AbsType subType) {
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsRecExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsExpr record;
 
 	public final AbsVarName comp;
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsRecType extends AbsType {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsCompDecls compDecls;
 
 	public AbsRecType(Locatable location, AbsCompDecls compDecls) {
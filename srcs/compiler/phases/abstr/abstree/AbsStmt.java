@@ -4,6 +4,8 @@ import common.report.*;
 
 public abstract class AbsStmt extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	public AbsStmt(Locatable location) {
 		super(location);
 	}
@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsStmtExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final AbsDecls decls;
 
 	public final AbsStmts stmts;
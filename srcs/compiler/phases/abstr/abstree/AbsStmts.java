@@ -6,6 +6,8 @@ import compiler.phases.abstr.*;
 
 public class AbsStmts extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<AbsStmt> stmts;
 
 	public AbsStmts(Locatable location, Vector<AbsStmt> stmts) {
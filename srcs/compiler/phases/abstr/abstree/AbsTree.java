@@ -1,9 +1,13 @@
 package compiler.phases.abstr.abstree;
 
+import java.io.*;
+
 import common.report.*;
 import compiler.phases.abstr.*;
 
-public abstract class AbsTree implements Locatable {
+public abstract class AbsTree implements Locatable, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	public final Location location;
 
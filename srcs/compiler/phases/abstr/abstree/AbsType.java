@@ -4,6 +4,8 @@ import common.report.*;
 
 public abstract class AbsType extends AbsTree {
 
+	private static final long serialVersionUID = 1L;
+
 	public AbsType(Locatable location) {
 		super(location);
 	}
@@ -2,14 +2,20 @@ package compiler.phases.abstr.abstree;
 
 import common.report.*;
 import compiler.phases.abstr.*;
+import compiler.phases.lexan.*;
 
 public class AbsTypeName extends AbsType implements AbsName {
 
+	private static final long serialVersionUID = 1L;
+
 	public final String name;
 
+	public final int id;
+
 	public AbsTypeName(Locatable location, String name) {
 		super(location);
 		this.name = name;
+		this.id = Names.id(name);
 	}
 
 	@Override
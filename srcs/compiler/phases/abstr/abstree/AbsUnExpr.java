@@ -5,6 +5,8 @@ import compiler.phases.abstr.*;
 
 public class AbsUnExpr extends AbsExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public enum Oper {
 		NOT, ADD, SUB, MEM, VAL,
 	}
@@ -4,6 +4,8 @@ import common.report.*;
 import compiler.phases.abstr.*;
 
 public class AbsVarDecl extends AbsDecl {
+
+	private static final long serialVersionUID = 1L;
 	
 	public AbsVarDecl(Locatable location, String name, AbsType type) {
 		super(location, name, type);
@@ -1,23 +1,32 @@
 package compiler.phases.asmgen;
 
+import common.compilation.CompilationLocal;
+import common.report.Events;
+import common.report.Report;
+import common.report.Stats;
 import compiler.Main;
 import compiler.phases.Phase;
 import compiler.phases.frames.Label;
+import compiler.phases.frames.Temp;
 import compiler.phases.imcgen.code.ImcStmt;
 import compiler.phases.lincode.CodeFragment;
 import compiler.phases.lincode.Fragment;
 import compiler.phases.regalloc.InstrLogger;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 public class AsmGen extends Phase {
 
 	public static final boolean addFragmentComment = true;
 	private static final boolean printOnAdd = false;
-	private static Fragment currFrag;
 
-	private static final HashMap<Fragment, LinkedList<AsmInstr>> fragmentInstructions = new HashMap<>();
-	private static final HashMap<Label, AsmInstr> labelInstruction = new HashMap<>();
+	/** Instructions of the fragment being generated by the current thread. */
+	private static final ThreadLocal<LinkedList<AsmInstr>> currInstrs = new ThreadLocal<>();
+
+	/** Instructions of fragments (in the order of fragments). */
+	private static final CompilationLocal<LinkedHashMap<Fragment, LinkedList<AsmInstr>>> fragmentInstructions = new CompilationLocal<>(LinkedHashMap::new);
+	private static final CompilationLocal<ConcurrentHashMap<Label, AsmInstr>> labelInstruction = new CompilationLocal<>(ConcurrentHashMap::new);
 
 	public AsmGen() {
 		super("asmgen");
@@ -29,17 +38,17 @@ public class AsmGen extends Phase {
 	 * @param instr The new instruction.
 	 */
 	public static void add(AsmInstr instr) {
-		if (printOnAdd) System.out.println(instr);
-		fragmentInstructions.get(currFrag).add(instr);
+		if (printOnAdd) Report.out().println(instr);
+		currInstrs.get().add(instr);
 	}
 
 	public static void addLabel(Label label, AsmInstr instrLabel) {
-		if (currFrag != null) add(instrLabel);
-		labelInstruction.put(label, instrLabel);
+		if (currInstrs.get() != null) add(instrLabel);
+		labelInstruction.get().put(label, instrLabel);
 	}
 
 	public static AsmInstr removeLast() {
-		return fragmentInstructions.get(currFrag).removeLast();
+		return currInstrs.get().removeLast();
 	}
 
 	/**
@@ -48,52 +57,105 @@ public class AsmGen extends Phase {
 	 * @return The list of fragments instructions.
 	 */
 	public static HashMap<Fragment, LinkedList<AsmInstr>> instructions() {
-		return new HashMap<Fragment, LinkedList<AsmInstr>>(fragmentInstructions);
+		return new LinkedHashMap<Fragment, LinkedList<AsmInstr>>(fragmentInstructions.get());
 	}
 
-	public static HashMap<Label, AsmInstr> labelInstructions() {
-		return labelInstruction;
+	public static Map<Label, AsmInstr> labelInstructions() {
+		return labelInstruction.get();
 	}
 
 
+	/**
+	 * Generates instructions of all code fragments. Fragments are independent
+	 * of each other and are therefore processed in parallel (see
+	 * {@link Phase#parallel}); temporary variables are numbered per fragment
+	 * so the instructions do not depend on the order fragments are processed.
+	 *
+	 * @param fragments The fragments.
+	 */
 	public void generateInstructions(LinkedList<Fragment> fragments) {
-		String titleComment = "";
+		ArrayList<CodeFragment> codeFragments = new ArrayList<>();
 		for (Fragment fragment : fragments) {
 			// process each fragment - ignore data fragment
-			if (fragment instanceof CodeFragment) {
-				currFrag = fragment;
-				fragmentInstructions.put(currFrag, new LinkedList<>());
-				if (addFragmentComment) {
-					titleComment = InstrLogger.comment("Fun body [" + ((CodeFragment) fragment).frame.label.name + "]");
-					AsmGen.add(new AsmOPER(titleComment, null, null, null));
-				}
-				for (ImcStmt stmt : ((CodeFragment) fragment).stmts()) {
-					stmt.accept(new InstrEvaluator((CodeFragment) fragment), null);
-				}
-				if (addFragmentComment) {
-					String endComment = InstrLogger.comment("");
-					AsmGen.add(new AsmOPER(endComment, null, null, null));
-				}
+			if (fragment instanceof CodeFragment)
+				codeFragments.add((CodeFragment) fragment);
+		}
+		ArrayList<LinkedList<AsmInstr>> instructions = parallel(codeFragments, AsmGen::generateInstructions);
+		for (int i = 0; i < codeFragments.size(); i++)
+			fragmentInstructions.get().put(codeFragments.get(i), instructions.get(i));
+	}
+
+	/**
+	 * Generates instructions of a single code fragment.
+	 *
+	 * @param fragment The code fragment.
+	 * @return The instructions of the fragment.
+	 */
+	public static LinkedList<AsmInstr> generateInstructions(CodeFragment fragment) {
+		Events.InstrSelection event = new Events.InstrSelection();
+		event.begin();
+		LinkedList<AsmInstr> instructions = new LinkedList<>();
+		currInstrs.set(instructions);
+		Temp.beginFragment(fragment.frame.label.name);
+		try {
+			if (addFragmentComment) {
+				String titleComment = InstrLogger.comment("Fun body [" + fragment.frame.label.name + "]");
+				AsmGen.add(new AsmOPER(titleComment, null, null, null));
+			}
+			for (ImcStmt stmt : fragment.stmts()) {
+				stmt.accept(new InstrEvaluator(fragment), null);
+			}
+			if (addFragmentComment) {
+				String endComment = InstrLogger.comment("");
+				AsmGen.add(new AsmOPER(endComment, null, null, null));
 			}
+		} finally {
+			Temp.endFragment();
+			currInstrs.remove();
+		}
+		if (event.shouldCommit()) {
+			event.srcFileName = Main.cmdLineArgValue("--src-file-name");
+			event.fragment = fragment.frame.label.name;
+			event.instructions = instructions.size();
+			event.temps = Temp.numOfTemps(fragment.frame.label.name);
+			event.commit();
+		}
+		return instructions;
+	}
+
+	/**
+	 * Forgets the labels of instructions of a code fragment that has already
+	 * been emitted.
+	 *
+	 * @param instructions The instructions of the fragment.
+	 */
+	public static void release(LinkedList<AsmInstr> instructions) {
+		for (AsmInstr instr : instructions) {
+			if (instr instanceof AsmLABEL)
+				labelInstruction.get().remove(((AsmLABEL) instr).label());
 		}
 	}
 
 
 	@Override
 	public void close() {
-		if (Main.cmdLine.get("--target-phase").equals("asmgen"))
-			for (LinkedList<AsmInstr> instructions : new TreeMap<Fragment, LinkedList<AsmInstr>>(fragmentInstructions).values()) {
+		if (Main.cmdLineArgValue("--target-phase").equals("asmgen"))
+			for (LinkedList<AsmInstr> instructions : new TreeMap<Fragment, LinkedList<AsmInstr>>(fragmentInstructions.get()).values()) {
 				for (AsmInstr instr : instructions) {
-					if (!printOnAdd) System.out.println(instr);
-					instr.log(logger);
+					if (!printOnAdd) Report.out().println(instr);
+					if (logger != null) instr.log(logger);
 				}
 			}
+		if (Stats.enabled()) {
+			for (Map.Entry<Fragment, LinkedList<AsmInstr>> fragment : fragmentInstructions.get().entrySet())
+				Stats.count("asmInstrs", ((CodeFragment) fragment.getKey()).frame.label.name, fragment.getValue().size());
+			Stats.count("temps", Temp.numOfTemps());
+		}
 		super.close();
 	}
 
 	public static void reset() {
-		fragmentInstructions.clear();
-		labelInstruction.clear();
-		currFrag = null;
+		fragmentInstructions.get().clear();
+		labelInstruction.get().clear();
 	}
 }
@@ -21,6 +21,11 @@ public class AsmLABEL extends AsmOPER {
 		this.label = label;
 	}
 
+	/** Returns the label. */
+	public Label label() {
+		return label;
+	}
+
 	@Override
 	public String toString() {
 		return label.name;
@@ -1,5 +1,8 @@
 package compiler.phases.asmgen;
 
+import common.report.Trace;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.Main;
 import compiler.phases.frames.Label;
 import compiler.phases.frames.Temp;
@@ -34,11 +37,11 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 
 	/** Debug dump */
 	private void dump(ImcInstr node, String msg) {
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.ASMGEN) {
+		if (Trace.on(Subsystem.ASMGEN, Level.DETAIL)) {
 			if (node != null) {
-				System.err.println("[" + node.getClass().getSimpleName() + "]: " + msg);
+				Trace.trace(Subsystem.ASMGEN, Level.DETAIL, "[" + node.getClass().getSimpleName() + "]: " + msg);
 			} else {
-				System.err.println(msg);
+				Trace.trace(Subsystem.ASMGEN, Level.DETAIL, msg);
 			}
 		}
 	}
@@ -264,6 +267,14 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 		// set FP to 0
 		long offset = 0;
 		for (ImcExpr arg : call.args()) {
+			if (isFP(arg)) {
+				// the frame pointer itself (the static link of a child function)
+				instrBuilder.setLength(0);
+				instrBuilder.append("STO ").append(Main.FP).append(", ").append(Main.SP).append(", ").append(offset);
+				AsmGen.add(new AsmOPER(instrBuilder.toString(), null, null, null));
+				offset += 8;
+				continue;
+			}
 			memType = MemType.LOAD;
 			ImcTEMP tempArg = (ImcTEMP) arg.accept(this, null);
 			instrBuilder.setLength(0);
@@ -368,6 +379,9 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 				String[] operands = addrOper.toString().split(" ");
 				instrBuilder.append(operands[2]).append(" ").append(operands[3]);
 			}
+		} else if (isFP(memExpr)) {
+			// through the frame pointer itself (e.g., the static link of the parent function)
+			instrBuilder.append(Main.FP).append(", 0");
 		} else {
 			// worst case - general store
 			instrBuilder.append("`s").append(uses.size()).append(", 0");
@@ -420,6 +434,14 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 		return result;
 	}
 
+	/**
+	 * Tells whether the code denotes the frame pointer, which is a register of
+	 * its own and not a temporary variable to be allocated.
+	 */
+	private boolean isFP(Object code) {
+		return code instanceof ImcTEMP && ((ImcTEMP) code).temp.temp == fragment.FP.temp;
+	}
+
 	@Override
 	public Object visit(ImcTEMP temp, Object visArg) {
 		return temp;
@@ -434,7 +456,10 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 	public Object visit(ImcCJUMP cjump, Object visArg) {
 		Vector<Temp> uses = new Vector<>();
 		Vector<Label> jumps = new Vector<>();
+		MemType currMemType = memType;
+		memType = MemType.LOAD;
 		ImcTEMP condVar = (ImcTEMP) cjump.cond.accept(this, null);
+		memType = currMemType;
 		uses.add(condVar.temp);
 		jumps.add(cjump.posLabel);
 		AsmGen.add(new AsmOPER("BNZ `s0, " + cjump.posLabel.name, uses, null, jumps));
@@ -449,14 +474,17 @@ public class InstrEvaluator implements ImcVisitor<Object, Object> {
 		Vector<Temp> defs = new Vector<>();
 		Vector<Temp> uses = new Vector<>();
 		ImcTEMP result = null;
+		MemType currMemType = memType;
+		memType = MemType.LOAD;
 		ImcTEMP unOpExpr = (ImcTEMP) unOp.subExpr.accept(this, visArg);
+		memType = currMemType;
 		defs.add(unOpExpr.temp);
 		uses.add(unOpExpr.temp);
 		result = unOpExpr;
 		if (unOp.oper == ImcUNOP.Oper.NEG) {
 			AsmGen.add(new AsmOPER("NEG `d0, `s0", uses, defs, null));
 		} else if (unOp.oper == ImcUNOP.Oper.NOT) {
-			AsmGen.add(new AsmOPER("ZSZ `d0, `s0 1", uses, defs, null));
+			AsmGen.add(new AsmOPER("ZSZ `d0, `s0, 1", uses, defs, null));
 		}
 		return result;
 	}
@@ -0,0 +1,100 @@
+package compiler.phases.finalize;
+
+import java.util.*;
+
+import compiler.phases.imcgen.*;
+import compiler.phases.imcgen.code.*;
+
+/**
+ * Collects the names of all functions called within the intermediate code.
+ *
+ * @author zan
+ */
+class CallCollector implements ImcVisitor<Object, Set<String>> {
+
+	@Override
+	public Object visit(ImcBINOP binOp, Set<String> calls) {
+		binOp.fstExpr.accept(this, calls);
+		binOp.sndExpr.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCALL call, Set<String> calls) {
+		calls.add(call.label.name);
+		for (ImcExpr arg : call.args())
+			arg.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCJUMP cjump, Set<String> calls) {
+		cjump.cond.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCONST constant, Set<String> calls) {
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcESTMT eStmt, Set<String> calls) {
+		eStmt.expr.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcJUMP jump, Set<String> calls) {
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcLABEL label, Set<String> calls) {
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcMEM mem, Set<String> calls) {
+		mem.addr.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcMOVE move, Set<String> calls) {
+		move.dst.accept(this, calls);
+		move.src.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcNAME name, Set<String> calls) {
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcSEXPR sExpr, Set<String> calls) {
+		sExpr.stmt.accept(this, calls);
+		sExpr.expr.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcSTMTS stmts, Set<String> calls) {
+		for (ImcStmt stmt : stmts.stmts())
+			stmt.accept(this, calls);
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcTEMP temp, Set<String> calls) {
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcUNOP unOp, Set<String> calls) {
+		unOp.subExpr.accept(this, calls);
+		return null;
+	}
+
+}
@@ -1,21 +1,31 @@
 package compiler.phases.finalize;
 
+import common.compilation.CompilationLocal;
+import common.report.Events;
 import common.report.Report;
+import common.report.Stats;
+import compiler.FragmentCache;
 import compiler.Main;
 import compiler.phases.Phase;
+import compiler.phases.asmgen.AsmGen;
 import compiler.phases.asmgen.AsmInstr;
 import compiler.phases.asmgen.AsmLABEL;
 import compiler.phases.asmgen.AsmMOVE;
 import compiler.phases.asmgen.AsmOPER;
+import compiler.phases.imcgen.code.ImcStmt;
+import compiler.phases.lincode.CodeFragment;
 import compiler.phases.lincode.DataFragment;
 import compiler.phases.lincode.Fragment;
 import compiler.phases.lincode.LinCode;
+import compiler.phases.liveness.InterferenceGraph;
+import compiler.phases.liveness.LiveAn;
 import compiler.phases.regalloc.ColoredGraph;
 import compiler.phases.regalloc.InstrLogger;
 import compiler.phases.regalloc.RegAlloc;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.*;
 
 public class Finalize extends Phase {
 
@@ -40,47 +50,205 @@ public class Finalize extends Phase {
 
 	private HashSet<String> defFun;
 	private HashSet<String> usedStd;
+	private ArrayList<String> calls;
 	private LinkedList<AsmInstr> localInstr;
 	private StringBuilder asmBuilder;
-	private BufferedWriter dstFile;
+	private Writer dstFile;
 	private StringBuilder localInstrBuilder;
 	private int dataSegmentOffset;
 
+	/** The writer of the final code of the current compilation (or {@code null} if written to the destination file). */
+	private static final CompilationLocal<Writer> dstWriter = new CompilationLocal<>();
+
+	/** The number of lines of final code (without comments) written out within the current compilation. */
+	private static final CompilationLocal<Long> codeSize = new CompilationLocal<>(() -> 0L);
+
+	/**
+	 * Returns the static size of the final code of the current compilation,
+	 * i.e., the number of instructions and directives written out (comments
+	 * excluded).
+	 *
+	 * @return The number of lines of final code.
+	 */
+	public static long codeSize() {
+		return codeSize.get();
+	}
+
+	/**
+	 * Makes the final code of the current compilation be written by the
+	 * specified writer instead of to the destination file.
+	 *
+	 * @param dstWriter The writer of the final code.
+	 */
+	public static void dstWriter(Writer dstWriter) {
+		Finalize.dstWriter.set(dstWriter);
+	}
+
 	public Finalize() {
 		super("finalize");
 		asmBuilder = new StringBuilder();
 		localInstrBuilder = new StringBuilder();
 		localInstr = new LinkedList<>();
-		interferenceColeredGraphs = new ArrayList<>(RegAlloc.interferenceColeredGraphs);
+		interferenceColeredGraphs = new ArrayList<>(RegAlloc.interferenceColeredGraphs());
 		usedStd = new HashSet<>();
+		calls = new ArrayList<>();
 		defFun = new HashSet<>();
 		dataSegmentOffset = 0;
+		codeSize.set(0L);
 		try {
 			String dstFileName = compiler.Main.cmdLineArgValue("--dst-file-name");
-			dstFile = new BufferedWriter(new FileWriter(dstFileName));
+			dstFile = dstWriter.get() != null ? dstWriter.get() : new BufferedWriter(new FileWriter(dstFileName));
 		} catch (IOException ___) {
 			throw new Report.Error("Cannot open destination file '" + dstFile + "'.");
 		}
 	}
 
+	/**
+	 * Emits the final code of all fragments using the colored interference
+	 * graphs produced by register allocation.
+	 */
 	public void run() {
+		// colored graphs are in the order of code fragments that are not cached
+		Iterator<ColoredGraph> cgs = interferenceColeredGraphs.iterator();
+		emit(codeFragment -> {
+			if (!cgs.hasNext())
+				throw new Report.InternalError();
+			return cgs.next();
+		}, false);
+	}
+
+	/**
+	 * Compiles code fragments one at a time: each fragment passes through
+	 * instruction selection, liveness analysis and register allocation, and
+	 * its final code is written out and released before the next fragment
+	 * starts. Hence, the memory used by the back-end is bounded by the
+	 * largest function instead of the entire program.
+	 */
+	public void stream() {
+		// look up the final code of unchanged functions
+		FragmentCache.uncached(LinCode.fragments());
+		emit(codeFragment -> {
+			LinkedList<AsmInstr> instrs = AsmGen.generateInstructions(codeFragment);
+			Stats.count("asmInstrs", codeFragment.frame.label.name, instrs.size());
+			InterferenceGraph ig = LiveAn.livenessAnalysis(codeFragment, instrs);
+			LiveAn.count(ig);
+			ColoredGraph cg = RegAlloc.allocateRegisters(ig);
+			RegAlloc.count(cg);
+			AsmGen.release(instrs);
+			return cg;
+		}, true);
+	}
+
+	private void emit(Function<CodeFragment, ColoredGraph> coloredGraphs, boolean streaming) {
 		if (Main.useMmixAliases) prependAliases();
 		else prependGlobalRegisters();
 		prependDataFragments();
 		getUserDefFun();
+		// the data of the standard library precedes the code written out so far
+		boolean predictedStd = streaming && callsStdLib();
+		if (predictedStd) prependStdLibData();
 		prependMainWrapper();
-		for (ColoredGraph cg : interferenceColeredGraphs) {
-			prologue(cg);
-			formatFragmentInstructions(cg);
-			appendFragment(cg);
-			epilogue(cg);
+		for (Fragment fragment : LinCode.fragments()) {
+			if (!(fragment instanceof CodeFragment))
+				continue;
+			CodeFragment codeFragment = (CodeFragment) fragment;
+			// reuse the code of unchanged functions
+			if (FragmentCache.isCached(codeFragment)) {
+				asmBuilder.append(FragmentCache.code(codeFragment));
+				for (String funName : FragmentCache.calls(codeFragment))
+					link(funName);
+			} else {
+				ColoredGraph cg = coloredGraphs.apply(codeFragment);
+				int fragmentBegin = asmBuilder.length();
+				calls.clear();
+				prologue(cg);
+				formatFragmentInstructions(cg);
+				appendFragment(cg);
+				epilogue(cg);
+				FragmentCache.store(codeFragment, asmBuilder.substring(fragmentBegin), calls);
+			}
+			if (streaming) flush();
+		}
+		if (streaming && predictedStd == usedStd.isEmpty())
+			throw new Report.InternalError();
+		if (!usedStd.isEmpty()) {
+			if (!streaming) prependStdLibData();
+			appendStdLib();
+		}
+	}
+
+	/** Tells whether any function of the standard library is called. */
+	private boolean callsStdLib() {
+		HashSet<String> calledFun = new HashSet<>();
+		for (Fragment fragment : LinCode.fragments()) {
+			if (fragment instanceof CodeFragment) {
+				for (ImcStmt stmt : ((CodeFragment) fragment).stmts())
+					stmt.accept(new CallCollector(), calledFun);
+			}
+		}
+		for (String funName : calledFun) {
+			if (!defFun.contains(funName) && stdLibrary.contains(funName))
+				return true;
 		}
-		if (!usedStd.isEmpty()) appendStdLib();
+		return false;
+	}
+
+	/** Writes out the final code produced so far. */
+	private void flush() {
+		try {
+			write();
+		} catch (IOException ___) {
+			throw new Report.Error("Cannot write destination file '" + Main.cmdLineArgValue("--dst-file-name") + "'.");
+		}
+		asmBuilder.setLength(0);
+	}
+
+	private void write() throws IOException {
+		Events.Output event = new Events.Output();
+		event.begin();
+		dstFile.write(asmBuilder.toString());
+		long lines = codeLines(asmBuilder);
+		codeSize.set(codeSize.get() + lines);
+		Stats.count("codeSize", lines);
+		if (event.shouldCommit()) {
+			event.srcFileName = Main.cmdLineArgValue("--src-file-name");
+			event.chars = asmBuilder.length();
+			event.commit();
+		}
+	}
+
+	/** Counts the lines of code that are neither empty nor comments. */
+	private static long codeLines(CharSequence code) {
+		long lines = 0;
+		boolean lineBegin = true;
+		for (int i = 0; i < code.length(); i++) {
+			char c = code.charAt(i);
+			if (c == '\n') {
+				lineBegin = true;
+			} else if (lineBegin && c != ' ' && c != '\t') {
+				if (c != '%')
+					lines++;
+				lineBegin = false;
+			}
+		}
+		return lines;
 	}
 
 	private void getUserDefFun() {
-		for (ColoredGraph cg : interferenceColeredGraphs) {
-			defFun.add(cg.fragment.frame.label.name);
+		for (Fragment fragment : LinCode.fragments()) {
+			if (fragment instanceof CodeFragment)
+				defFun.add(((CodeFragment) fragment).frame.label.name);
+		}
+	}
+
+	/** Links a called function to a user defined one or to the one in standard library */
+	private void link(String funName) {
+		if (!defFun.contains(funName)) {
+			if (stdLibrary.contains(funName)) {
+				usedStd.add(funName);
+			} else {
+				Report.warning("Definition of function [" + funName + "] is missing or cannot be linked.");
+			}
 		}
 	}
 
@@ -162,13 +330,8 @@ public class Finalize extends Phase {
 			// link functions to ones in standard library
 			if (curr instanceof AsmOPER && curr.toString().startsWith("PUSHJ")) {
 				String funName = curr.toString().split(",")[1].replaceAll(" ", "");
-				if (!defFun.contains(funName)) {
-					if (stdLibrary.contains(funName)) {
-						usedStd.add(funName);
-					} else {
-						Report.warning("Definition of function [" + funName + "] is missing or cannot be linked.");
-					}
-				}
+				calls.add(funName);
+				link(funName);
 			}
 
 			// place labels into next line and remove unnecessary jumps
@@ -238,12 +401,15 @@ public class Finalize extends Phase {
 		asmBuilder.append(InstrLogger.instructions(localInstr, null));
 	}
 
-	private void appendStdLib() {
+	private void prependStdLibData() {
 		localInstr.clear();
 		localInstr.add(new AsmOPER("Buf BYTE", null, null, null));
 		localInstr.add(new AsmOPER("NewLn BYTE #a,0", null, null, null));
 		localInstr.add(new AsmOPER("Blanks BYTE \" \",0", null, null, null));
 		asmBuilder.insert(dataSegmentOffset, InstrLogger.instructions(localInstr, null));
+	}
+
+	private void appendStdLib() {
 		localInstr.clear();
 		for (String stdFun : usedStd) {
 			switch (stdFun) {
@@ -303,7 +469,7 @@ public class Finalize extends Phase {
 	@Override
 	public void close() {
 		try {
-			dstFile.write(asmBuilder.toString());
+			write();
 			dstFile.flush();
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -9,6 +9,8 @@ import common.logger.Logger;
  */
 public class AbsAccess extends Access {
 
+	private static final long serialVersionUID = 1L;
+
 	/** Label denoting a fixed address. */
 	public final Label label;
 
@@ -1,5 +1,7 @@
 package compiler.phases.frames;
 
+import java.io.*;
+
 import common.logger.*;
 
 /**
@@ -7,7 +9,9 @@ import common.logger.*;
  *
  * @author sliva
  */
-public abstract class Access implements Loggable {
+public abstract class Access implements Loggable, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** The size of the variable. */
 	public final long size;
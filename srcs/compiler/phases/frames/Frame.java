@@ -1,5 +1,7 @@
 package compiler.phases.frames;
 
+import java.io.*;
+
 import common.logger.*;
 import compiler.phases.seman.type.*;
 
@@ -8,7 +10,9 @@ import compiler.phases.seman.type.*;
  *
  * @author sliva
  */
-public class Frame implements Loggable {
+public class Frame implements Loggable, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** The function's entry label. */
 	public final Label label;
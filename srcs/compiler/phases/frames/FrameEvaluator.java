@@ -107,7 +107,7 @@ public class FrameEvaluator extends AbsFullVisitor<Long, Long> {
 		if (wasGlobal) {
 			FrameAttr mainFrame = stackFrames.pop();
 			isGlobal = true;
-			Frames.mainFrame = new Frame(new Label(""), currDepth, mainFrame.locsSize, mainFrame.argsSize);
+			Frames.mainFrame(new Frame(new Label(""), currDepth, mainFrame.locsSize, mainFrame.argsSize));
 		}
 
 		return null;
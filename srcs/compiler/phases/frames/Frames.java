@@ -1,5 +1,6 @@
 package compiler.phases.frames;
 
+import common.compilation.*;
 import compiler.phases.*;
 import compiler.phases.abstr.*;
 import compiler.phases.abstr.abstree.*;
@@ -17,7 +18,26 @@ public class Frames extends Phase {
 
 	public static final AbsAttribute<AbsVarDecl, Access> accesses = new AbsAttribute<AbsVarDecl, Access>();
 
-	public static Frame mainFrame;
+	/** The frame of the main program. */
+	private static final CompilationLocal<Frame> mainFrame = new CompilationLocal<>();
+
+	/**
+	 * Returns the frame of the main program.
+	 *
+	 * @return The frame of the main program.
+	 */
+	public static Frame mainFrame() {
+		return mainFrame.get();
+	}
+
+	/**
+	 * Sets the frame of the main program.
+	 *
+	 * @param frame The frame of the main program.
+	 */
+	public static void mainFrame(Frame frame) {
+		mainFrame.set(frame);
+	}
 
 	/**
 	 * Constructs a new phase for computing frames and accesses.
@@ -30,8 +50,9 @@ public class Frames extends Phase {
 	public void close() {
 		frames.lock();
 		accesses.lock();
-		Abstr.absTree().accept(
-				new AbsLogger(logger).addSubvisitor(new SemLogger(logger)).addSubvisitor(new FrmLogger(logger)), null);
+		if (logger != null)
+			Abstr.absTree().accept(
+					new AbsLogger(logger).addSubvisitor(new SemLogger(logger)).addSubvisitor(new FrmLogger(logger)), null);
 		super.close();
 	}
 
@@ -1,22 +1,28 @@
 package compiler.phases.frames;
 
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
+import common.compilation.*;
+
 /**
  * A label.
  *
  * @author sliva
  */
-public class Label {
+public class Label implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** The name of a label. */
 	public String name;
 
 	/** Counter of anonymous labels. */
-	private static long count = 0;
+	private static final CompilationLocal<AtomicLong> count = new CompilationLocal<>(AtomicLong::new);
 
 	/** Creates a new anonymous label. */
 	public Label() {
-		this.name = "L" + count;
-		count++;
+		this.name = "L" + count.get().getAndIncrement();
 	}
 
 	/**
@@ -28,8 +34,27 @@ public class Label {
 		this.name = "_" + name;
 	}
 
+	/**
+	 * Returns the counter of anonymous labels.
+	 *
+	 * @return The number of the next anonymous label.
+	 */
+	public static long count() {
+		return count.get().get();
+	}
+
+	/**
+	 * Sets the counter of anonymous labels (when the compilation is resumed
+	 * from a cached phase).
+	 *
+	 * @param next The number of the next anonymous label.
+	 */
+	public static void count(long next) {
+		count.get().set(next);
+	}
+
 	public static void reset() {
-		count = 0;
+		count.get().set(0);
 	}
 
 	@Override
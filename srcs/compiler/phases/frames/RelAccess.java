@@ -9,6 +9,8 @@ import common.logger.Logger;
  */
 public class RelAccess extends Access {
 
+	private static final long serialVersionUID = 1L;
+
 	/** Offset of a variable relative to a base address. */
 	public final long offset;
 
@@ -1,23 +1,107 @@
 package compiler.phases.frames;
 
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import common.compilation.*;
+
 /**
  * A temporary variable.
  * 
  * @author sliva
  *
  */
-public class Temp {
+public class Temp implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** The name of a temporary variable. */
 	public final long temp;
 
-	/** Counter of temporary variables. */
-	private static long count = 0;
+	/** Counter of temporary variables (temporary 0 is the frame pointer). */
+	private static final CompilationLocal<AtomicLong> count = new CompilationLocal<>(() -> new AtomicLong(1));
+
+	/**
+	 * Counters of temporary variables of individual code fragments in the
+	 * back-end (by names of fragments).
+	 */
+	private static final CompilationLocal<ConcurrentHashMap<String, AtomicLong>> fragmentCounts = new CompilationLocal<>(ConcurrentHashMap::new);
+
+	/** The number of temporary variables created by fragment counters. */
+	private static final CompilationLocal<AtomicLong> numOfFragmentTemps = new CompilationLocal<>(AtomicLong::new);
+
+	/** The fragment counter used by the current thread (if any). */
+	private static final ThreadLocal<AtomicLong> currFragmentCount = new ThreadLocal<>();
 
 	/** Creates a new temporary variable. */
 	public Temp() {
-		this.temp = count;
-		count++;
+		AtomicLong fragmentCount = currFragmentCount.get();
+		if (fragmentCount == null) {
+			this.temp = count.get().getAndIncrement();
+		} else {
+			this.temp = fragmentCount.getAndIncrement();
+			numOfFragmentTemps.get().incrementAndGet();
+		}
+	}
+
+	/**
+	 * Makes the current thread create temporary variables of the specified
+	 * code fragment. Temporary variables of every fragment are numbered from
+	 * the first number not used before the back-end, so their names do not
+	 * depend on the order (or concurrency) in which fragments are processed.
+	 *
+	 * @param fragmentName The name of the code fragment.
+	 */
+	public static void beginFragment(String fragmentName) {
+		currFragmentCount.set(fragmentCounts.get().computeIfAbsent(fragmentName, __ -> new AtomicLong(count.get().get())));
+	}
+
+	/**
+	 * Returns the number of temporary variables created by the back-end for
+	 * the specified code fragment so far.
+	 *
+	 * @param fragmentName The name of the code fragment.
+	 * @return The number of temporary variables.
+	 */
+	public static long numOfTemps(String fragmentName) {
+		AtomicLong fragmentCount = fragmentCounts.get().get(fragmentName);
+		return fragmentCount == null ? 0 : fragmentCount.get() - count.get().get();
+	}
+
+	/**
+	 * Makes the current thread create temporary variables using the counter
+	 * of the entire program again.
+	 */
+	public static void endFragment() {
+		currFragmentCount.remove();
+	}
+
+	/**
+	 * Creates a temporary variable with the specified name, i.e., without
+	 * using the counter of temporary variables.
+	 *
+	 * @param temp The name of a temporary variable.
+	 */
+	public Temp(long temp) {
+		this.temp = temp;
+	}
+
+	/**
+	 * Returns the hash code of the name of this temporary variable.
+	 *
+	 * Temporary variables remain equal only if they are the same object (there
+	 * is no {@code equals}), so the hash code is consistent with the equality:
+	 * two distinct temporary variables with the same name (e.g., temporary
+	 * variables of different fragments numbered from the same first number) are
+	 * still different keys, they merely share a bucket. Unlike the identity hash
+	 * code, the name is the same in every compilation and in every schedule of
+	 * the back-end, so the iteration order of hash based collections of
+	 * temporary variables (and with it the register allocation) is as well.
+	 */
+	@Override
+	public int hashCode() {
+		return Long.hashCode(temp);
 	}
 
 	@Override
@@ -25,8 +109,44 @@ public class Temp {
 		return "T"+temp;
 	}
 
+	/**
+	 * Returns the number of temporary variables created so far (excluding the
+	 * frame pointer).
+	 * 
+	 * @return The number of temporary variables.
+	 */
+	public static long numOfTemps() {
+		return count.get().get() - 1 + numOfFragmentTemps.get().get();
+	}
+
+	/**
+	 * Returns the counter of temporary variables.
+	 *
+	 * @return The name of the next temporary variable.
+	 */
+	public static long count() {
+		return count.get().get();
+	}
+
+	/**
+	 * Sets the counter of temporary variables (when the compilation is resumed
+	 * from a cached phase).
+	 *
+	 * @param next The name of the next temporary variable.
+	 */
+	public static void count(long next) {
+		count.get().set(next);
+	}
+
+	/** Keeps the frame pointer unique within a deserialized program. */
+	private Object readResolve() {
+		return temp == compiler.phases.imcgen.ImcGen.FP.temp ? compiler.phases.imcgen.ImcGen.FP : this;
+	}
+
 	public static void reset(){
-		count = 1;
+		count.get().set(1);
+		fragmentCounts.get().clear();
+		numOfFragmentTemps.get().set(0);
 	}
 
 }
@@ -73,7 +73,7 @@ public class ImcExprGenerator implements AbsVisitor<ImcExpr, Stack<Frame>> {
 					Report.warning(atomExpr.location, "Invalid BOOL value!");
 				}
 			case CHAR:
-				Long charValue = (long) atomExpr.expr.charAt(0);
+				Long charValue = (long) atomExpr.expr.charAt(1); // skip the opening quote
 				return ImcGen.exprImCode.put(atomExpr, new ImcCONST(charValue));
 			case VOID:
 				return ImcGen.exprImCode.put(atomExpr, new ImcCONST(0));
@@ -129,8 +129,8 @@ public class ImcExprGenerator implements AbsVisitor<ImcExpr, Stack<Frame>> {
 	@Override
 	public ImcExpr visit(AbsRecExpr recExpr, Stack<Frame> visArg) {
 		ImcExpr imcRecExpr = recExpr.record.accept(this, null);
-		if (recExpr.record instanceof AbsRecExpr) {
-			// record of type record access (e.g. a.b.c) needing address
+		if (recExpr.record instanceof AbsRecExpr || recExpr.record instanceof AbsArrExpr) {
+			// record of type record or array access (e.g. a.b.c, a[i].b) needing address
 			imcRecExpr = ((ImcMEM) imcRecExpr).addr;
 			ImcGen.exprImCode.put(recExpr.record, imcRecExpr);
 		} else if (recExpr.record instanceof AbsVarName) {
@@ -139,6 +139,10 @@ public class ImcExprGenerator implements AbsVisitor<ImcExpr, Stack<Frame>> {
 				imcRecExpr = ((ImcMEM) imcRecExpr).addr;
 				ImcGen.exprImCode.put(recExpr.record, imcRecExpr);
 			}
+		} else if (recExpr.record instanceof AbsUnExpr && ((AbsUnExpr) recExpr.record).oper == AbsUnExpr.Oper.VAL) {
+			// record pointed to (e.g. (@p).a) needing only the value of the pointer
+			imcRecExpr = ((ImcMEM) imcRecExpr).addr;
+			ImcGen.exprImCode.put(recExpr.record, imcRecExpr);
 		}
 		recExpr.comp.accept(this, null);
 		long compOffset = ((RelAccess) Frames.accesses.get((AbsVarDecl) SemAn.declAt().get(recExpr.comp))).offset;
@@ -210,8 +214,8 @@ public class ImcExprGenerator implements AbsVisitor<ImcExpr, Stack<Frame>> {
 				ImcExpr funExpr;
 
 				if (numberOfFetches < 0) {
-					// child function
-					funExpr = new ImcMEM(new ImcTEMP(ImcGen.FP));
+					// child function (static link is the caller's frame pointer)
+					funExpr = new ImcTEMP(ImcGen.FP);
 				} else {
 					// parent function
 					funExpr = new ImcMEM(new ImcTEMP(ImcGen.FP));
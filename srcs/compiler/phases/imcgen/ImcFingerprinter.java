@@ -0,0 +1,210 @@
+package compiler.phases.imcgen;
+
+import java.util.*;
+
+import compiler.phases.frames.*;
+import compiler.phases.imcgen.code.*;
+
+/**
+ * Prints out the intermediate code in a canonical form that does not depend
+ * on the numbering of temporary variables and anonymous labels: temporary
+ * variables and anonymous labels are renamed in the order of their first
+ * appearance. Hence, the same code produces the same fingerprint regardless
+ * of the code generated before it.
+ *
+ * @author zan
+ */
+public class ImcFingerprinter implements ImcVisitor<Object, StringBuilder> {
+
+	/** The canonical names of temporary variables. */
+	private final HashMap<Long, Integer> temps = new HashMap<Long, Integer>();
+
+	/** The canonical names of anonymous labels. */
+	private final HashMap<String, Integer> labels = new HashMap<String, Integer>();
+
+	/** Anonymous labels in the order of their first appearance. */
+	private final ArrayList<String> labelNames = new ArrayList<String>();
+
+	/**
+	 * Returns the names of all anonymous labels in the order of their first
+	 * appearance.
+	 *
+	 * @return The names of anonymous labels.
+	 */
+	public ArrayList<String> labelNames() {
+		return labelNames;
+	}
+
+	/**
+	 * Tells whether the label is an anonymous label.
+	 *
+	 * @param name The name of a label.
+	 * @return {@code true} if the label is anonymous.
+	 */
+	public static boolean isAnonymous(String name) {
+		return name.matches("L[0-9]+");
+	}
+
+	/**
+	 * Appends the canonical name of a temporary variable.
+	 *
+	 * @param temp  The temporary variable.
+	 * @param print The fingerprint.
+	 */
+	public void temp(Temp temp, StringBuilder print) {
+		Integer name = temps.get(temp.temp);
+		if (name == null) {
+			name = temps.size();
+			temps.put(temp.temp, name);
+		}
+		print.append('t').append(name);
+	}
+
+	/**
+	 * Appends the canonical name of a label.
+	 *
+	 * @param label The label.
+	 * @param print The fingerprint.
+	 */
+	public void label(Label label, StringBuilder print) {
+		if (!isAnonymous(label.name)) {
+			print.append(label.name);
+			return;
+		}
+		Integer name = labels.get(label.name);
+		if (name == null) {
+			name = labels.size();
+			labels.put(label.name, name);
+			labelNames.add(label.name);
+		}
+		print.append('l').append(name);
+	}
+
+	@Override
+	public Object visit(ImcBINOP binOp, StringBuilder print) {
+		print.append("BINOP(").append(binOp.oper).append(',');
+		binOp.fstExpr.accept(this, print);
+		print.append(',');
+		binOp.sndExpr.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCALL call, StringBuilder print) {
+		print.append("CALL(");
+		label(call.label, print);
+		for (ImcExpr arg : call.args()) {
+			print.append(',');
+			arg.accept(this, print);
+		}
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCJUMP cjump, StringBuilder print) {
+		print.append("CJUMP(");
+		cjump.cond.accept(this, print);
+		print.append(',');
+		label(cjump.posLabel, print);
+		print.append(',');
+		label(cjump.negLabel, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcCONST constant, StringBuilder print) {
+		print.append("CONST(").append(constant.value).append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcESTMT eStmt, StringBuilder print) {
+		print.append("ESTMT(");
+		eStmt.expr.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcJUMP jump, StringBuilder print) {
+		print.append("JUMP(");
+		label(jump.label, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcLABEL label, StringBuilder print) {
+		print.append("LABEL(");
+		label(label.label, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcMEM mem, StringBuilder print) {
+		print.append("MEM(");
+		mem.addr.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcMOVE move, StringBuilder print) {
+		print.append("MOVE(");
+		move.dst.accept(this, print);
+		print.append(',');
+		move.src.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcNAME name, StringBuilder print) {
+		print.append("NAME(");
+		label(name.label, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcSEXPR sExpr, StringBuilder print) {
+		print.append("SEXPR(");
+		sExpr.stmt.accept(this, print);
+		print.append(',');
+		sExpr.expr.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcSTMTS stmts, StringBuilder print) {
+		print.append("STMTS(");
+		for (ImcStmt stmt : stmts.stmts()) {
+			stmt.accept(this, print);
+			print.append(';');
+		}
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcTEMP temp, StringBuilder print) {
+		print.append("TEMP(");
+		temp(temp.temp, print);
+		print.append(')');
+		return null;
+	}
+
+	@Override
+	public Object visit(ImcUNOP unOp, StringBuilder print) {
+		print.append("UNOP(").append(unOp.oper).append(',');
+		unOp.subExpr.accept(this, print);
+		print.append(')');
+		return null;
+	}
+
+}
@@ -26,7 +26,7 @@ public class ImcGen extends Phase {
 	/** Intermediate code of statements. */
 	public static final AbsAttribute<AbsStmt, ImcStmt> stmtImCode = new AbsAttribute<AbsStmt, ImcStmt>();
 
-	public static final Temp FP = new Temp();
+	public static final Temp FP = new Temp(0);
 
 	/**
 	 * Constructs a new phase for computing frames and accesses.
@@ -46,8 +46,9 @@ public class ImcGen extends Phase {
 	public void close() {
 		exprImCode.lock();
 		stmtImCode.lock();
-		Abstr.absTree().accept(new AbsLogger(logger).addSubvisitor(new SemLogger(logger))
-			.addSubvisitor(new FrmLogger(logger)).addSubvisitor(new ImcGenLogger(logger)), null);
+		if (logger != null)
+			Abstr.absTree().accept(new AbsLogger(logger).addSubvisitor(new SemLogger(logger))
+				.addSubvisitor(new FrmLogger(logger)).addSubvisitor(new ImcGenLogger(logger)), null);
 		super.close();
 	}
 
@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcBINOP extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public enum Oper {
 		IOR, XOR, AND, EQU, NEQ, LTH, GTH, LEQ, GEQ, ADD, SUB, MUL, DIV, MOD,
 	}
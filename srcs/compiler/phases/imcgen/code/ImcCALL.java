@@ -7,6 +7,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcCALL extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final Label label;
 	
 	private final Vector<ImcExpr> args;
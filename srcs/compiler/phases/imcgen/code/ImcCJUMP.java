@@ -5,6 +5,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcCJUMP extends ImcStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public ImcExpr cond;
 
 	public Label posLabel;
@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcCONST extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final long value;
 
 	public ImcCONST(long value) {
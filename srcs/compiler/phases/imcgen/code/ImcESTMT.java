@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcESTMT extends ImcStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public final ImcExpr expr;
 
 	public ImcESTMT(ImcExpr expr) {
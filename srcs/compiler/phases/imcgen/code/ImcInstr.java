@@ -1,5 +1,7 @@
 package compiler.phases.imcgen.code;
 
+import java.io.*;
+
 import compiler.phases.imcgen.*;
 
 /**
@@ -8,7 +10,9 @@ import compiler.phases.imcgen.*;
  * @author sliva
  *
  */
-public abstract class ImcInstr {
+public abstract class ImcInstr implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	public abstract <Result, Arg> Result accept(ImcVisitor<Result, Arg> visitor, Arg accArg);
 
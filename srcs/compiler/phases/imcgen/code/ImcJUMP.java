@@ -4,6 +4,8 @@ import compiler.phases.frames.*;
 import compiler.phases.imcgen.*;
 
 public class ImcJUMP extends ImcStmt {
+
+	private static final long serialVersionUID = 1L;
 	
 	public Label label;
 	
@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcMEM extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final ImcExpr addr;
 
 	public ImcMEM(ImcExpr addr) {
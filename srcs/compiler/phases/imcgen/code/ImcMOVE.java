@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcMOVE extends ImcStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	public final ImcExpr dst;
 
 	public final ImcExpr src;
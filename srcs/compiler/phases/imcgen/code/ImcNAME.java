@@ -5,6 +5,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcNAME extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final Label label;
 
 	public ImcNAME(Label label) {
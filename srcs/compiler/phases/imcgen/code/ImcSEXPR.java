@@ -4,6 +4,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcSEXPR extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final ImcStmt stmt;
 
 	public final ImcExpr expr;
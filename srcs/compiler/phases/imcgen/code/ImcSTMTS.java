@@ -6,6 +6,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcSTMTS extends ImcStmt {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Vector<ImcStmt> stmts;
 
 	public ImcSTMTS(Vector<ImcStmt> stmts) {
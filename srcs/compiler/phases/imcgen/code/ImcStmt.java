@@ -8,4 +8,6 @@ package compiler.phases.imcgen.code;
  */
 public abstract class ImcStmt extends ImcInstr {
 
+	private static final long serialVersionUID = 1L;
+
 }
@@ -5,6 +5,8 @@ import compiler.phases.imcgen.*;
 
 public class ImcTEMP extends ImcExpr {
 
+	private static final long serialVersionUID = 1L;
+
 	public final Temp temp;
 
 	public ImcTEMP(Temp temp) {
@@ -3,6 +3,8 @@ package compiler.phases.imcgen.code;
 import compiler.phases.imcgen.*;
 
 public class ImcUNOP extends ImcExpr {
+
+	private static final long serialVersionUID = 1L;
 	
 	public enum Oper {
 		NOT, NEG,
@@ -0,0 +1,230 @@
+package compiler.phases.lexan;
+
+import java.nio.charset.*;
+import java.util.*;
+
+import common.report.*;
+
+/**
+ * The deterministic finite automaton of the lexer.
+ *
+ * The automaton is generated from the symbols and the keywords of the
+ * language once the lexer is loaded. Characters are first mapped to classes
+ * (letters, digits, the quote, each character starting a symbol, other
+ * printable characters, control characters and non ASCII characters) and the
+ * automaton moves from state to state according to a single table indexed by
+ * the state and the class of the current character. Every symbol is
+ * recognized by its own states, e.g., {@code <} and {@code <=} by the state
+ * reached on {@code <} and the state reached from it on {@code =}, so that no
+ * lexeme is built and no map is looked up.
+ *
+ * An identifier is turned into a keyword or a literal ({@code none},
+ * {@code true}, {@code false} and {@code null}) using a perfect hash of its
+ * length and its first, middle and last characters, so that at most one
+ * keyword is compared to its bytes.
+ *
+ * @author zan
+ */
+public class Dfa {
+
+	/** The state the automaton starts in. */
+	public static final int START = 0;
+
+	/** The state within an identifier. */
+	public static final int IDENTIFIER = 1;
+
+	/** The state within an integer constant. */
+	public static final int INTCONST = 2;
+
+	/** The state after the opening quote of a char constant. */
+	public static final int CHARCONST = 3;
+
+	/** The state after the character of a char constant. */
+	public static final int CHARCONSTEND = 4;
+
+	/** The state after the closing quote of a char constant. */
+	public static final int CHARCONSTDONE = 5;
+
+	/** The state after an unknown character. */
+	public static final int ERRORDONE = 6;
+
+	/** The first state of symbols. */
+	private static final int SYMBOLS = 7;
+
+	/** The transition stopping the automaton. */
+	public static final int STOP = -1;
+
+	/** The flag of a transition on an erroneous character. */
+	public static final int ERROR = 1 << 16;
+
+	/** The mask of the target state of a transition. */
+	public static final int STATE = ERROR - 1;
+
+	/** The classes of ASCII characters (and the class of all other characters at the end). */
+	private final int[] classes = new int[129];
+
+	/** The number of classes. */
+	private final int nClasses;
+
+	/** The transitions (by states and classes). */
+	private final int[] transitions;
+
+	/** The tokens of states, i.e., the tokens of lexemes the automaton stops in the states. */
+	private final Term[] tokens;
+
+	/** The keywords and their tokens (by perfect hashes). */
+	private final byte[][] keywordBytes;
+	private final Term[] keywordTerms;
+
+	/** The multipliers of the first, the middle and the last character of the perfect hash. */
+	private final int fstMul, midMul, lstMul;
+
+	/** The largest multiplier tried while generating the perfect hash. */
+	private static final int maxMul = 64;
+
+	/**
+	 * Generates the automaton.
+	 *
+	 * @param symbols  The symbols.
+	 * @param keywords The keywords and the literals spelled as identifiers.
+	 */
+	public Dfa(Map<String, Term> symbols, Map<String, Term> keywords) {
+		// classes of characters
+		final int letter = 0, digit = 1, quote = 2, printable = 3, control = 4, nonAscii = 5;
+		int nextClass = 6;
+		TreeMap<Character, Integer> symbolClasses = new TreeMap<Character, Integer>();
+		for (String symbol : symbols.keySet())
+			for (char c : symbol.toCharArray())
+				if (!symbolClasses.containsKey(c))
+					symbolClasses.put(c, nextClass++);
+		nClasses = nextClass;
+		for (int c = 0; c < 128; c++) {
+			if (('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || c == '_')
+				classes[c] = letter;
+			else if ('0' <= c && c <= '9')
+				classes[c] = digit;
+			else if (c == '\'')
+				classes[c] = quote;
+			else if (symbolClasses.containsKey((char) c))
+				classes[c] = symbolClasses.get((char) c);
+			else if (' ' <= c && c <= '~')
+				classes[c] = printable;
+			else
+				classes[c] = control;
+		}
+		classes[128] = nonAscii;
+
+		// states of symbols (a state for every prefix of every symbol)
+		TreeMap<String, Integer> symbolStates = new TreeMap<String, Integer>();
+		for (String symbol : symbols.keySet())
+			for (int length = 1; length <= symbol.length(); length++)
+				symbolStates.putIfAbsent(symbol.substring(0, length), 0);
+		int nStates = SYMBOLS;
+		for (Map.Entry<String, Integer> symbolState : symbolStates.entrySet())
+			symbolState.setValue(nStates++);
+
+		transitions = new int[nStates * nClasses];
+		Arrays.fill(transitions, STOP);
+		tokens = new Term[nStates];
+		for (int cls = 0; cls < nClasses; cls++)
+			transitions[START * nClasses + cls] = ERRORDONE | ERROR;
+		transitions[START * nClasses + letter] = IDENTIFIER;
+		transitions[START * nClasses + digit] = INTCONST;
+		transitions[START * nClasses + quote] = CHARCONST;
+		transitions[IDENTIFIER * nClasses + letter] = IDENTIFIER;
+		transitions[IDENTIFIER * nClasses + digit] = IDENTIFIER;
+		transitions[INTCONST * nClasses + digit] = INTCONST;
+		for (int cls = 0; cls < nClasses; cls++) {
+			boolean isPrintable = cls != control && cls != nonAscii;
+			transitions[CHARCONST * nClasses + cls] = CHARCONSTEND | (isPrintable ? 0 : ERROR);
+			transitions[CHARCONSTEND * nClasses + cls] = CHARCONSTDONE | (cls == quote ? 0 : ERROR);
+		}
+		tokens[START] = Term.EOF;
+		tokens[IDENTIFIER] = Term.IDENTIFIER;
+		tokens[INTCONST] = Term.INTCONST;
+		tokens[CHARCONST] = tokens[CHARCONSTEND] = tokens[CHARCONSTDONE] = Term.CHARCONST;
+		tokens[ERRORDONE] = Term.ERROR;
+		for (Map.Entry<String, Integer> symbolState : symbolStates.entrySet()) {
+			String prefix = symbolState.getKey();
+			int prevState = prefix.length() == 1 ? START : symbolStates.get(prefix.substring(0, prefix.length() - 1));
+			transitions[prevState * nClasses + symbolClasses.get(prefix.charAt(prefix.length() - 1))] = symbolState.getValue();
+			tokens[symbolState.getValue()] = symbols.containsKey(prefix) ? symbols.get(prefix) : Term.ERROR;
+		}
+
+		// the perfect hash of keywords: the first multipliers without collisions (a sparse table keeps the search short)
+		for (int size = Integer.highestOneBit(keywords.size() * 4 - 1); size <= 1 << 12; size *= 2) {
+			for (int mul = 0; mul < maxMul * maxMul * maxMul; mul++) {
+				int fstMul = 1 + mul % maxMul;
+				int midMul = 1 + mul / maxMul % maxMul;
+				int lstMul = 1 + mul / maxMul / maxMul;
+				byte[][] keywordBytes = new byte[size][];
+				Term[] keywordTerms = new Term[size];
+				boolean perfect = true;
+				for (Map.Entry<String, Term> keyword : keywords.entrySet()) {
+					byte[] bytes = keyword.getKey().getBytes(StandardCharsets.US_ASCII);
+					int hash = (bytes[0] * fstMul + bytes[bytes.length / 2] * midMul + bytes[bytes.length - 1] * lstMul
+							+ bytes.length) & (size - 1);
+					if (keywordBytes[hash] != null) {
+						perfect = false;
+						break;
+					}
+					keywordBytes[hash] = bytes;
+					keywordTerms[hash] = keyword.getValue();
+				}
+				if (perfect) {
+					this.keywordBytes = keywordBytes;
+					this.keywordTerms = keywordTerms;
+					this.fstMul = fstMul;
+					this.midMul = midMul;
+					this.lstMul = lstMul;
+					return;
+				}
+			}
+		}
+		throw new Report.InternalError();
+	}
+
+	/**
+	 * Returns the transition from a state on a character.
+	 *
+	 * @param state The state.
+	 * @param c     The character.
+	 * @return The target state (possibly with the {@link #ERROR} flag) or
+	 *         {@link #STOP}.
+	 */
+	public int next(int state, int c) {
+		return transitions[state * nClasses + classes[c < 128 ? c : 128]];
+	}
+
+	/**
+	 * Returns the token of a lexeme the automaton stops in the specified state.
+	 *
+	 * @param state The state.
+	 * @return The token.
+	 */
+	public Term token(int state) {
+		return tokens[state];
+	}
+
+	/**
+	 * Returns the token of an identifier, i.e., the token of a keyword or a
+	 * literal, or {@link Term#IDENTIFIER} if the identifier is neither.
+	 *
+	 * @param source The source text.
+	 * @param offset The offset of the identifier.
+	 * @param length The length of the identifier.
+	 * @return The token.
+	 */
+	public Term keyword(Source source, int offset, int length) {
+		int hash = (source.byteAt(offset) * fstMul + source.byteAt(offset + length / 2) * midMul
+				+ source.byteAt(offset + length - 1) * lstMul + length) & (keywordBytes.length - 1);
+		byte[] bytes = keywordBytes[hash];
+		if (bytes == null || bytes.length != length)
+			return Term.IDENTIFIER;
+		for (int i = 0; i < length; i++)
+			if (source.byteAt(offset + i) != bytes[i])
+				return Term.IDENTIFIER;
+		return keywordTerms[hash];
+	}
+
+}
@@ -1,37 +1,45 @@
 package compiler.phases.lexan;
 
 import java.io.*;
-import java.util.HashMap;
+import java.util.*;
 
+import common.compilation.*;
 import common.report.*;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.phases.*;
 
 /**
  * Lexical analysis.
  *
+ * The source file is mapped into memory (or, with {@code --lexer=buffered},
+ * read into a single buffer) and its bytes are scanned directly (see
+ * {@link Source}). Symbols refer to their lexemes by offsets and lengths, so
+ * no lexeme is built unless it is asked for. Tokens are recognized by an
+ * automaton generated from the keywords and symbols below (see {@link Dfa}).
+ * Large source texts are scanned in parallel chunks (see {@link #tokens()}).
+ *
  * @author sliva
  */
 public class LexAn extends Phase {
 
-	/** Settings for warning/errors and debug mode. */
-	private final boolean debug = false;
-	private final boolean completePhase = false;
-	private final boolean nonAsciiComments = false;
-
 	/** The name of the source file. */
 	private final String srcFileName;
 
-	/** The source file reader. */
-	private final BufferedReader srcFile;
+	/** The source text. */
+	private final Source source;
+
+	/** The source text of the current compilation (or {@code null} if read from the source file). */
+	private static final CompilationLocal<Source> srcText = new CompilationLocal<>();
+
+	/** The identifiers of the current compilation. */
+	private final Names names = Names.names();
 
-	/** StringBuilder to build longest lexeme. */
-	private StringBuilder lexemeBuilder;
+	/** The scanner of the entire source text. */
+	private final Scanner scanner;
 
-	/** Identification for column and line for positioning. */
-	private int line;
-	private int column;
-	/** Current character */
-	private int currChar;
+	/** The number of symbols returned by the lexer so far. */
+	private long numOfSymbols = 0;
 
 	// @formatter:off
 	/** Hash set of keywords and literals for fast access and flexible for modification. */
@@ -68,6 +76,14 @@ public class LexAn extends Phase {
 	}
 	// @formatter:on
 
+	/** The automaton recognizing all of the above. */
+	private static final Dfa dfa;
+	static {
+		HashMap<String, Term> allKeywords = new HashMap<String, Term>(keywords);
+		allKeywords.putAll(literalsConst);
+		dfa = new Dfa(symbols, allKeywords);
+	}
+
 
 	/**
 	 * Constructs a new lexical analysis phase.
@@ -76,17 +92,40 @@ public class LexAn extends Phase {
 		super("lexan");
 		srcFileName = compiler.Main.cmdLineArgValue("--src-file-name");
 		try {
-			srcFile = new BufferedReader(new FileReader(srcFileName));
+			if (srcText.get() != null)
+				source = srcText.get();
+			else if ("buffered".equals(compiler.Main.cmdLineArgValue("--lexer")))
+				source = Source.read(srcFileName);
+			else
+				source = Source.map(srcFileName);
 			// read first character in advance
-			column = 0;
-			line = 1;
-			readNext();
-			if (currChar == -1)
+			scanner = new Scanner(source, 0);
+			scanner.start();
+			if (scanner.currChar == -1)
 				Report.warning("Source file '" + this.srcFileName + "' is empty.");
 		} catch (IOException ___) {
 			throw new Report.Error("Cannot open source file '" + srcFileName + "'.");
 		}
-		lexemeBuilder = new StringBuilder();
+	}
+
+	/**
+	 * Returns the source text of the current compilation.
+	 *
+	 * @return The source text or {@code null} if the source is read from the
+	 *         source file.
+	 */
+	public static Source srcText() {
+		return srcText.get();
+	}
+
+	/**
+	 * Sets the source text of the current compilation so that the source file
+	 * is not read.
+	 *
+	 * @param srcText The source text.
+	 */
+	public static void srcText(Source srcText) {
+		LexAn.srcText.set(srcText);
 	}
 
 	/**
@@ -94,225 +133,395 @@ public class LexAn extends Phase {
 	 * <p>
 	 * This method returns the next symbol from the source file. To perform the
 	 * lexical analysis of the entire source file, this method must be called
-	 * until it returns EOF. This method calls {@link #lexify()}, logs its
-	 * result if requested, and returns it.
+	 * until it returns EOF. This method calls {@link Scanner#lexify(int)},
+	 * logs its result if requested, and returns it.
 	 *
 	 * @return The next symbol from the source file.
 	 */
 	public Symbol lexer() {
-		Symbol symb = lexify();
-		symb.log(logger);
+		Term token = scanner.lexify(source.length);
+		int id = token == Term.IDENTIFIER ? names.intern(source, scanner.symbOffset, scanner.symbLength) : -1;
+		Symbol symb = new Symbol(token, source, scanner.symbOffset, scanner.symbLength, id,
+				id >= 0 ? names.name(id) : null, scanner.symbBegLine, scanner.symbBegColumn, scanner.symbEndLine,
+				scanner.symbEndColumn);
+		numOfSymbols++;
+		if (logger != null)
+			symb.log(logger);
 		return symb;
 	}
 
-	@Override
-	public void close() {
-		try {
-			srcFile.close();
-		} catch (IOException ___) {
-			Report.warning("Cannot close source file '" + this.srcFileName + "'.");
-		}
-		super.close();
+	/**
+	 * Performs the lexical analysis of the entire source file in a single pass.
+	 * <p>
+	 * All symbols up to and including EOF (or up to the first lexical error)
+	 * are returned without creating a {@link Symbol} for each of them (unless
+	 * they are logged). A lexical error is not reported until the symbol the
+	 * lexer has failed at is asked for (see {@link Tokens}).
+	 * <p>
+	 * A large source text is split into chunks at the beginnings of lines and
+	 * chunks are scanned in parallel (by {@code --lexer-jobs} threads), see
+	 * {@link #chunks(int)}. Identifiers are given their IDs (see {@link Names})
+	 * once all symbols are known.
+	 *
+	 * @return The symbols of the source file.
+	 */
+	public Tokens tokens() {
+		String lexerJobs = compiler.Main.cmdLineArgValue("--lexer-jobs");
+		int jobs = lexerJobs == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(lexerJobs);
+		Tokens tokens;
+		if (jobs <= 1 || source.length < 2 * minChunkLength || !source.splitsAtNewlines()) {
+			// roughly one symbol per four bytes of source text
+			tokens = new Tokens(source, source.length / 4);
+			scanner.scan(tokens, source.length);
+		} else
+			tokens = chunks(jobs);
+		tokens.intern(names);
+		numOfSymbols += tokens.size();
+		if (logger != null)
+			for (int index = 0; index < tokens.size(); index++)
+				tokens.symbol(index).log(logger);
+		return tokens;
 	}
 
+	/** The length of the shortest chunk scanned in parallel. */
+	private static final int minChunkLength = 1 << 20;
+
+	/** A chunk of the source text scanned on its own. */
+	private static class Chunk {
+
+		/** The offset the chunk ends at. */
+		final int limit;
 
-	/** Set warning message and continue compilation or throw an error. */
-	private void report(Location location, String msg) {
-		if (completePhase) {
-			Report.warning(location, msg);
-		} else {
-			throw new Report.Error(location, msg);
+		/** The scanner (with line numbers relative to the beginning of the chunk). */
+		final Scanner scanner;
+
+		/** The symbols starting within the chunk. */
+		final Tokens tokens;
+
+		/** Whether the scanner has reached EOF or an error. */
+		boolean ended;
+
+		Chunk(Scanner scanner, Tokens tokens, int limit) {
+			this.limit = limit;
+			this.scanner = scanner;
+			this.tokens = tokens;
 		}
-	}
 
+	}
 
 	/**
-	 * Reads next character.
-	 * Modifies column/line number accordingly and
-	 * remembers current character for easy access at next symbol.
-	 * In case of allowing non ASCII characters in the comments you can pass parameter to method.
+	 * Scans the source text in chunks.
+	 * <p>
+	 * Chunks start at the beginnings of lines (as a comment ends with a
+	 * newline, no chunk starts within a comment) and are scanned in parallel,
+	 * each from its first character up to the first symbol starting after its
+	 * end. A chunk is then appended to the symbols of the preceding chunks if
+	 * its first symbol is exactly where the scanner of the preceding chunk has
+	 * stopped, and its line numbers are corrected accordingly. Otherwise, i.e.,
+	 * if a symbol (a char constant, for instance) or an error spans the
+	 * boundary between chunks, or if the chunk has failed, the chunk is
+	 * scanned once more by the scanner of the preceding chunk. Either way the
+	 * symbols are exactly the same as if the source text were scanned by a
+	 * single scanner.
+	 *
+	 * @param jobs The number of threads.
+	 * @return The symbols of the source file.
 	 */
-	private void readNext() { readNext(false); }
-
-	private void readNext(boolean allowNonAscii) {
-		// check if new line
-		if (currChar == '\n') {
-			column = 1;
-			line++;
-		} else if (currChar == '\t') {
-			column += 4;
-		} else {
-			column++;
+	private Tokens chunks(int jobs) {
+		// a few chunks per thread to balance the load
+		int chunkLength = Math.max(minChunkLength, source.length / (4 * jobs));
+		ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+		for (int offset = 0; offset < source.length;) {
+			int limit = source.lineStart(offset + chunkLength);
+			// the symbols of the first chunk are followed by the symbols of all other chunks
+			if (offset == 0)
+				chunks.add(new Chunk(scanner, new Tokens(source, source.length / 4), limit));
+			else
+				chunks.add(new Chunk(new Scanner(source, offset), new Tokens(source, (limit - offset) / 4), limit));
+			offset = limit;
 		}
-
-		try {
-			currChar = srcFile.read();
-
-			// check if non-ascii - warning and skip or throw error
-			while (!allowNonAscii && 128 < currChar) {
-				report(new Location(line, column++),
-					"[" + (char) currChar + ", " + currChar + "]: Non ASCII character.");
-				currChar = srcFile.read();
-			}
-		} catch (IOException ___) {
-			throw new Report.InternalError();
+		parallel(chunks, jobs, chunk -> {
+			chunk.ended = chunk.scanner.scan(chunk.tokens, chunk.limit);
+			return chunk;
+		});
+
+		Tokens tokens = chunks.get(0).tokens;
+		Scanner scanner = chunks.get(0).scanner;
+		boolean ended = chunks.get(0).ended;
+		for (int index = 1; !ended && index < chunks.size(); index++) {
+			Chunk chunk = chunks.get(index);
+			if (!chunk.tokens.failed() && chunk.tokens.size() > 0 && chunk.tokens.offset(0) == scanner.currOffset
+					&& chunk.tokens.begColumn(0) == scanner.column) {
+				int lineDelta = scanner.line - chunk.tokens.begLine(0);
+				tokens.append(chunk.tokens, lineDelta);
+				scanner = chunk.scanner;
+				scanner.line += lineDelta;
+				ended = chunk.ended;
+			} else
+				ended = scanner.scan(tokens, chunk.limit);
 		}
+		return tokens;
 	}
 
+	@Override
+	public void close() {
+		Stats.count("tokens", numOfSymbols);
+		super.close();
+	}
+
+	/** A lexical error to be reported once the parser reaches it. */
+	@SuppressWarnings("serial")
+	private static class DeferredError extends RuntimeException {
+
+		final Location location;
+
+		DeferredError(Location location, String message) {
+			super(message, null, false, false);
+			this.location = location;
+		}
 
-	/** States of state machine. */
-	private enum State {
-		INITIAL, IDENTIFIER, LITERALCHAR, LITERALINT, SYMBOL, LITERALCHAREND, ADVANCEANDFINISH
 	}
 
 	/**
-	 * Performs the lexical analysis of the source file.
-	 * <p>
-	 * This method returns the next symbol from the source file. To perform the
-	 * lexical analysis of the entire source file, this method must be called
-	 * until it returns EOF.
-	 *
-	 * @return The next symbol from the source file or EOF if no symbol is
-	 * available any more.
+	 * The scanner of the source text (or of its part starting at the beginning
+	 * of a line).
 	 */
-	private Symbol lexify() throws Report.Error {
+	private static class Scanner {
+
+		/** Settings for warning/errors. */
+		private final boolean completePhase = false;
+		private final boolean nonAsciiComments = false;
+
+		/** The source text. */
+		private final Source source;
+
+		/** Identification for column and line for positioning. */
+		private int line;
+		private int column;
+		/** Current character */
+		private int currChar;
+		/** The offset of the current character and of the character following it. */
+		private int currOffset;
+		private int nextOffset;
+
+		/** The offset, the length and the location of the last symbol recognized. */
+		private int symbOffset;
+		private int symbLength;
+		private int symbBegLine, symbBegColumn, symbEndLine, symbEndColumn;
+
+		/** Whether the first character has been read. */
+		private boolean started = false;
+
+		/** Whether errors are thrown as {@link DeferredError} (see {@link #scan(Tokens, int)}). */
+		private boolean deferErrors = false;
+
+		/**
+		 * Constructs a new scanner.
+		 *
+		 * @param source The source text.
+		 * @param offset The offset of the first character (at the beginning of
+		 *               a line), which is in line 1.
+		 */
+		Scanner(Source source, int offset) {
+			this.source = source;
+			this.line = 1;
+			this.column = 0;
+			this.currOffset = this.nextOffset = offset;
+		}
 
-		Term token = Term.EOF;
-		// reset lexeme builder
-		lexemeBuilder.setLength(0);
+		/** Reads the first character. */
+		void start() {
+			started = true;
+			readNext();
+		}
 
-		// local symbol location
-		int begColumn;
-		int begLine;
-		int endColumn = column;
-		int endLine = line;
+		/**
+		 * Scans symbols up to and including EOF or up to the first symbol
+		 * starting at or after the specified offset.
+		 *
+		 * @param tokens The symbols the symbols scanned are appended to.
+		 * @param limit  The offset the scanner stops at.
+		 * @return {@code true} if EOF has been reached or the scanner has
+		 *         failed, {@code false} if the scanner has stopped at the limit.
+		 */
+		boolean scan(Tokens tokens, int limit) {
+			deferErrors = true;
+			try {
+				if (!started)
+					start();
+				while (true) {
+					Term token = lexify(limit);
+					if (token == null)
+						return false;
+					tokens.add(token, symbOffset, symbLength, symbBegLine, symbBegColumn, symbEndLine, symbEndColumn);
+					if (token == Term.EOF)
+						return true;
+				}
+			} catch (DeferredError error) {
+				tokens.fail(error.location, error.getMessage());
+				return true;
+			} finally {
+				deferErrors = false;
+			}
+		}
 
-		State state = State.INITIAL;
+		/** Set warning message and continue compilation or throw an error. */
+		private void report(Location location, String msg) {
+			if (completePhase) {
+				Report.warning(location, msg);
+			} else if (deferErrors) {
+				throw new DeferredError(location, msg);
+			} else {
+				throw new Report.Error(location, msg);
+			}
+		}
 
-		// skip comments and white spaces
-		while (currChar == '#' || currChar == ' ' || currChar == '\t' || currChar == '\r' || currChar == '\n') {
-			if (currChar == '#') {
-				while (currChar != '\n' && currChar != -1) {
-					readNext(nonAsciiComments);    // change to readNext(true) if non-ascii is allowed in the comments
-				}
+		/**
+		 * Reads next character.
+		 * Modifies column/line number accordingly and
+		 * remembers current character for easy access at next symbol.
+		 * In case of allowing non ASCII characters in the comments you can pass parameter to method.
+		 * (Skipped non ASCII characters remain within the lexeme as it spans from its first to its last character.)
+		 */
+		private void readNext() { readNext(false); }
+
+		private void readNext(boolean allowNonAscii) {
+			// check if new line
+			if (currChar == '\n') {
+				column = 1;
+				line++;
+			} else if (currChar == '\t') {
+				column += 4;
+			} else {
+				column++;
+			}
+
+			currChar = nextChar();
+
+			// check if non-ascii - warning and skip or throw error
+			while (!allowNonAscii && 128 < currChar) {
+				report(new Location(line, column++),
+					"[" + (char) currChar + ", " + currChar + "]: Non ASCII character.");
+				currChar = nextChar();
 			}
-			readNext();
 		}
 
-		begColumn = column;
-		begLine = line;
-
-		boolean step = true;
-		boolean isAlphaUnderscore;
-		/* state machine implementation */
-		while (currChar != -1 && step) {
-			switch (state) {
-				case INITIAL:
-					// start of identifier
-					isAlphaUnderscore = ('a' <= currChar && currChar <= 'z') ||
-						('A' <= currChar && currChar <= 'Z') ||
-						currChar == '_';
-					if (isAlphaUnderscore) {
-						token = Term.IDENTIFIER;
-						state = State.IDENTIFIER;
-						// start of literal of type char
-					} else if (currChar == '\'') {
-						state = State.LITERALCHAR;
-						token = Term.CHARCONST;
-						// start of a symbol
-					} else if (symbols.containsKey(String.valueOf((char) currChar))) {
-						token = symbols.get(String.valueOf((char) currChar));
-						state = State.SYMBOL;
-						// start of literal of type int
-					} else if ('0' <= currChar && currChar <= '9') {
-						token = Term.INTCONST;
-						state = State.LITERALINT;
-					} else {
-						token = Term.ERROR; // error could be general not just in this case
-						report(new Location(line, column),
-							"[" + (char) currChar + ", " + currChar + "]: Unknown character in this context!");
-						state = State.ADVANCEANDFINISH;
-					}
-					break;
-				case IDENTIFIER:
-					isAlphaUnderscore = ('a' <= currChar && currChar <= 'z') ||
-						('A' <= currChar && currChar <= 'Z') ||
-						currChar == '_';
-					if (isAlphaUnderscore || ('0' <= currChar && currChar <= '9')) {
-						token = Term.IDENTIFIER;
-						state = State.IDENTIFIER;
-					} else {
-						step = false;
-					}
-					break;
-				case SYMBOL:
-					if (currChar == '=' && (lexemeBuilder.charAt(0) == '!' || (lexemeBuilder.charAt(0) == '<') ||
-						(lexemeBuilder.charAt(0) == '>') || (lexemeBuilder.charAt(0) == '='))) {
-						token = symbols.get(lexemeBuilder.toString() + (char) currChar);
-						state = State.ADVANCEANDFINISH;
-					} else {
-						step = false;
-					}
-					break;
-				case LITERALCHAR:
-					if (currChar < ' ' || '~' < currChar) {
-						report(new Location(line, column),
-							"[" + (char) currChar + ", " + currChar + "]: Invalid character!");
-					}
-					token = Term.CHARCONST;
-					state = State.LITERALCHAREND;
-					break;
-				case LITERALCHAREND:
-					if (currChar != '\'') {
-						report(new Location(begLine, begColumn, line, column),
-							"[" + (char) currChar + ", " + currChar + "]: Char const not closed. Expected \"'\" character.");
+		/** Decodes the next character of the source text (or returns -1 at its end). */
+		private int nextChar() {
+			currOffset = nextOffset;
+			if (nextOffset == source.length)
+				return -1;
+			int b = source.byteAt(nextOffset);
+			if (b < 0x80) {
+				nextOffset++;
+				return b;
+			}
+			int c = source.charAt(nextOffset);
+			nextOffset += c >>> 16;
+			return c & 0xFFFF;
+		}
+
+		/**
+		 * Performs the lexical analysis of the source file.
+		 * <p>
+		 * This method returns the next symbol from the source file. To perform the
+		 * lexical analysis of the entire source file, this method must be called
+		 * until it returns EOF.
+		 *
+		 * @param limit The offset no symbol is scanned at or after (except EOF).
+		 * @return The token of the next symbol from the source file, EOF if no
+		 * symbol is available any more or {@code null} if the next symbol starts
+		 * at or after the limit (the lexeme and the location of the symbol are
+		 * left in {@link #symbOffset} and the fields following it).
+		 */
+		Term lexify(int limit) throws Report.Error {
+
+			// local symbol location
+			int begColumn;
+			int begLine;
+			int endColumn = column;
+			int endLine = line;
+
+			// skip comments and white spaces
+			while (currChar == '#' || currChar == ' ' || currChar == '\t' || currChar == '\r' || currChar == '\n') {
+				if (currChar == '#') {
+					while (currChar != '\n' && currChar != -1) {
+						readNext(nonAsciiComments);    // change to readNext(true) if non-ascii is allowed in the comments
 					}
-					token = Term.CHARCONST;
-					state = State.ADVANCEANDFINISH;
+				}
+				readNext();
+			}
+			if (currOffset >= limit && currChar != -1)
+				return null;
+
+			begColumn = column;
+			begLine = line;
+			int begOffset = currOffset;
+
+			/* automaton */
+			int state = Dfa.START;
+			while (currChar != -1) {
+				int next = dfa.next(state, currChar);
+				if (next == Dfa.STOP)
 					break;
-				case LITERALINT:
-					if ('0' <= currChar && currChar <= '9') {
-						token = Term.INTCONST;
-						state = State.LITERALINT;
-					} else {
-						step = false;
+				if ((next & Dfa.ERROR) != 0) {
+					switch (state) {
+						case Dfa.START:
+							report(new Location(line, column),
+								"[" + (char) currChar + ", " + currChar + "]: Unknown character in this context!");
+							break;
+						case Dfa.CHARCONST:
+							report(new Location(line, column),
+								"[" + (char) currChar + ", " + currChar + "]: Invalid character!");
+							break;
+						case Dfa.CHARCONSTEND:
+							report(new Location(begLine, begColumn, line, column),
+								"[" + (char) currChar + ", " + currChar + "]: Char const not closed. Expected \"'\" character.");
+							break;
 					}
-					break;
-				case ADVANCEANDFINISH:
-					step = false;
-			}
+				}
+				state = next & Dfa.STATE;
 
-			// remember position and read next character
-			if (step) {
-				lexemeBuilder.append((char) currChar);
+				// remember position and read next character
 				endColumn = column;
 				endLine = line;
 				readNext();
 			}
-		}
+			Term token = dfa.token(state);
+
+			// EOF
+			if (currChar == -1) {
+				// Not enclosed
+				if (state == Dfa.CHARCONST || state == Dfa.CHARCONSTEND) {
+					report(new Location(begLine, begColumn, endLine, endColumn),
+						"[" + (char) currChar + ", " + currChar +
+							"]: Char constant not closed. Expected \"'\" character.");
+				} else if (token == Term.EOF) {
+					symbOffset = currOffset;
+					symbLength = 0;
+					symbBegLine = symbEndLine = line;
+					symbBegColumn = symbEndColumn = column;
+					return token;
+				}
+			}
 
-		// EOF
-		if (currChar == -1) {
-			// Not enclosed
-			if (state == State.LITERALCHAR || state == State.LITERALCHAREND) {
-				report(new Location(begLine, begColumn, endLine, endColumn),
-					"[" + (char) currChar + ", " + currChar +
-						"]: Char constant not closed. Expected \"'\" character.");
-			} else if (token == Term.EOF) {
-				return new Symbol(token, "", new Location(line, column));
+			// correct token to literal/keyword if necessary
+			int length = currOffset - begOffset;
+			if (token == Term.IDENTIFIER) {
+				token = dfa.keyword(source, begOffset, length);
 			}
-		}
 
-		// get lexeme and correct token to literal/keyword if necessary
-		String lexeme = lexemeBuilder.toString();
-		if (keywords.containsKey(lexeme)) {
-			token = keywords.get(lexeme);
-		} else if (literalsConst.containsKey(lexeme)) {
-			token = literalsConst.get(lexeme);
+			if (Trace.on(Subsystem.LEXAN, Level.DETAIL))
+				Trace.trace(Subsystem.LEXAN, Level.DETAIL, "Lex: " + source.string(begOffset, length));
+			symbOffset = begOffset;
+			symbLength = length;
+			symbBegLine = begLine;
+			symbBegColumn = begColumn;
+			symbEndLine = endLine;
+			symbEndColumn = endColumn;
+			return token;
 		}
 
-		if (debug) System.out.println("Lex: " + lexeme);
-		return new Symbol(token, lexeme, new Location(begLine, begColumn, endLine, endColumn));
 	}
 
 }
@@ -0,0 +1,171 @@
+package compiler.phases.lexan;
+
+import java.io.*;
+import java.util.*;
+
+import common.compilation.*;
+
+/**
+ * The identifiers of a compilation.
+ *
+ * Every distinct identifier is given a dense ID (0, 1, 2, ... in the order of
+ * the first occurrences) as soon as the lexer has recognized it, so that names
+ * can be resolved by IDs used as indices into arrays (see
+ * {@link compiler.phases.seman.SymbTable}) instead of by hashing and comparing
+ * strings over and over again. All occurrences of an identifier share a single
+ * string. An identifier is looked up by the bytes of its lexeme within the
+ * source text, so no string is created for any but its first occurrence.
+ *
+ * @author zan
+ */
+public class Names implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The identifiers of the current compilation. */
+	private static final CompilationLocal<Names> names = new CompilationLocal<>(Names::new);
+
+	/** The identifiers (by IDs). */
+	private String[] strings = new String[64];
+
+	/** The hash codes of identifiers (by IDs). */
+	private int[] hashes = new int[64];
+
+	/** The number of identifiers. */
+	private int size = 0;
+
+	/** The open addressing hash table of IDs increased by one (0 denotes an empty slot). */
+	private int[] table = new int[128];
+
+	/**
+	 * Returns the identifiers of the current compilation.
+	 *
+	 * @return The identifiers.
+	 */
+	public static Names names() {
+		return names.get();
+	}
+
+	/**
+	 * Sets the identifiers of the current compilation (when the results of
+	 * earlier phases are restored).
+	 *
+	 * @param names The identifiers.
+	 */
+	public static void names(Names names) {
+		Names.names.set(names);
+	}
+
+	/**
+	 * Returns the ID of an identifier of the current compilation.
+	 *
+	 * @param name The identifier.
+	 * @return The ID.
+	 */
+	public static int id(String name) {
+		return names.get().intern(name);
+	}
+
+	/**
+	 * Returns the ID of an identifier (and gives it one if it has none yet).
+	 *
+	 * @param name The identifier.
+	 * @return The ID.
+	 */
+	public synchronized int intern(String name) {
+		// the same polynomial hash as the one of the bytes below, but cached by the string
+		int hash = name.hashCode();
+		int mask = table.length - 1;
+		for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (id < 0)
+				return add(slot, hash, name);
+			if (hashes[id] == hash && strings[id].equals(name))
+				return id;
+		}
+	}
+
+	/**
+	 * Returns the ID of an identifier within the source text (and gives it
+	 * one if it has none yet).
+	 *
+	 * @param source The source text.
+	 * @param offset The offset of the identifier.
+	 * @param length The length of the identifier (identifiers consist of
+	 *               ASCII characters only).
+	 * @return The ID.
+	 */
+	synchronized int intern(Source source, int offset, int length) {
+		int hash = 0;
+		for (int index = 0; index < length; index++)
+			hash = 31 * hash + source.byteAt(offset + index);
+		int mask = table.length - 1;
+		for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (id < 0)
+				return add(slot, hash, source.string(offset, length));
+			if (hashes[id] == hash && equals(strings[id], source, offset, length))
+				return id;
+		}
+	}
+
+	/**
+	 * Returns an identifier.
+	 *
+	 * @param id The ID of the identifier.
+	 * @return The identifier.
+	 */
+	public synchronized String name(int id) {
+		return strings[id];
+	}
+
+	/**
+	 * Returns the number of identifiers, i.e., the ID the next identifier is
+	 * given.
+	 *
+	 * @return The number of identifiers.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/** Mixes the upper bits of a hash code into the lower ones. */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/** Compares an identifier to the bytes of the source text. */
+	private static boolean equals(String string, Source source, int offset, int length) {
+		if (string.length() != length)
+			return false;
+		for (int index = 0; index < length; index++)
+			if (string.charAt(index) != source.byteAt(offset + index))
+				return false;
+		return true;
+	}
+
+	/** Gives a new identifier the next ID and puts it into the specified slot. */
+	private int add(int slot, int hash, String string) {
+		if (size == strings.length) {
+			strings = Arrays.copyOf(strings, 2 * size);
+			hashes = Arrays.copyOf(hashes, 2 * size);
+		}
+		strings[size] = string;
+		hashes[size] = hash;
+		table[slot] = size + 1;
+		int id = size++;
+		// keep the table at most half full
+		if (2 * size > table.length) {
+			table = new int[2 * table.length];
+			int mask = table.length - 1;
+			for (int other = 0; other < size; other++) {
+				int otherSlot = spread(hashes[other]) & mask;
+				while (table[otherSlot] != 0)
+					otherSlot = (otherSlot + 1) & mask;
+				table[otherSlot] = other + 1;
+			}
+		}
+		return id;
+	}
+
+}
@@ -0,0 +1,178 @@
+package compiler.phases.lexan;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+
+/**
+ * The source text as a sequence of encoded bytes.
+ *
+ * The lexer scans the bytes directly and symbols refer to their lexemes by
+ * offsets and lengths only, so the text is never copied. A source file is
+ * either mapped into memory (see {@link #map(String)}) or read into a single
+ * buffer (see {@link #read(String)}); a source text held in a buffer is
+ * scanned in place (see {@link #of(ByteBuffer)}). As lexemes are extracted on
+ * demand (possibly after the lexical analysis has finished), neither a mapped
+ * source file nor a buffer must be changed during the compilation. Source files are decoded using
+ * the platform's default charset (as by {@link FileReader}), source texts
+ * held in memory using UTF-8.
+ *
+ * @author zan
+ */
+public class Source {
+
+	/** The bytes of the source text. */
+	private final ByteBuffer bytes;
+
+	/** The charset the bytes are decoded with. */
+	private final Charset charset;
+
+	/** The number of bytes. */
+	public final int length;
+
+	private Source(ByteBuffer bytes, Charset charset) {
+		this.bytes = bytes;
+		this.charset = charset;
+		this.length = bytes.limit();
+	}
+
+	/**
+	 * Maps a source file into memory.
+	 *
+	 * @param srcFileName The name of the source file.
+	 * @return The source text.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	public static Source map(String srcFileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(srcFileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Source file '" + srcFileName + "' too large.");
+			return new Source(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), Charset.defaultCharset());
+		}
+	}
+
+	/**
+	 * Reads a source file into a single buffer.
+	 *
+	 * @param srcFileName The name of the source file.
+	 * @return The source text.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static Source read(String srcFileName) throws IOException {
+		return new Source(ByteBuffer.wrap(Files.readAllBytes(Paths.get(srcFileName))), Charset.defaultCharset());
+	}
+
+	/**
+	 * Encodes a source text held in memory.
+	 *
+	 * @param srcText The source text.
+	 * @return The source text.
+	 */
+	public static Source of(CharSequence srcText) {
+		return new Source(ByteBuffer.wrap(srcText.toString().getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Wraps a UTF-8 encoded source text held in a buffer (without copying it).
+	 *
+	 * @param srcBytes The source text, from the buffer's position to its limit.
+	 * @return The source text.
+	 */
+	public static Source of(ByteBuffer srcBytes) {
+		return new Source(srcBytes.slice(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Updates a message digest with the bytes of the source text.
+	 *
+	 * @param digest The message digest.
+	 */
+	public void digest(MessageDigest digest) {
+		digest.update(bytes.duplicate());
+	}
+
+	/**
+	 * Returns a byte of the source text.
+	 *
+	 * @param offset The offset of the byte.
+	 * @return The byte (as an unsigned value).
+	 */
+	public int byteAt(int offset) {
+		return bytes.get(offset) & 0xFF;
+	}
+
+	/**
+	 * Decodes the character starting at the specified offset in the same way
+	 * as a {@link Reader} would: a malformed sequence yields {@code U+FFFD}
+	 * and a supplementary character yields its high surrogate.
+	 *
+	 * @param offset The offset of the first byte of the character.
+	 * @return The character (in the lower 16 bits) and the number of its bytes
+	 *         (in the upper 16 bits).
+	 */
+	public int charAt(int offset) {
+		int b = byteAt(offset);
+		if (b < 0x80)
+			return 1 << 16 | b;
+		// non ASCII characters are rare, hence no decoder is kept
+		CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// a single character is decoded unless it is a surrogate pair
+		for (int capacity = 1; capacity <= 2; capacity++) {
+			ByteBuffer in = bytes.duplicate();
+			in.limit(Math.min(length, offset + 8)).position(offset);
+			CharBuffer out = CharBuffer.allocate(capacity);
+			decoder.reset().decode(in, out, in.limit() == length);
+			if (out.position() > 0)
+				return (in.position() - offset) << 16 | out.get(0);
+		}
+		return 1 << 16 | 0xFFFD;
+	}
+
+	/**
+	 * Returns whether the source text can be split right after any newline
+	 * byte, i.e., whether a newline byte is never a part of another character.
+	 *
+	 * @return {@code true} if the charset is UTF-8, US-ASCII or ISO-8859-1.
+	 */
+	public boolean splitsAtNewlines() {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+				|| charset.equals(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Returns the offset of the first line starting at or after the specified
+	 * offset.
+	 *
+	 * @param offset The offset.
+	 * @return The offset of the first byte following a newline byte (or the
+	 *         length of the source text if there is none).
+	 */
+	public int lineStart(int offset) {
+		if (offset <= 0)
+			return 0;
+		for (int next = offset; next < length; next++)
+			if (bytes.get(next - 1) == '\n')
+				return next;
+		return length;
+	}
+
+	/**
+	 * Returns a part of the source text as a string.
+	 *
+	 * @param offset The offset of the first byte.
+	 * @param length The number of bytes.
+	 * @return The string.
+	 */
+	public String string(int offset, int length) {
+		if (bytes.hasArray())
+			return new String(bytes.array(), bytes.arrayOffset() + offset, length, charset);
+		byte[] part = new byte[length];
+		bytes.get(offset, part);
+		return new String(part, charset);
+	}
+
+}
@@ -5,7 +5,13 @@ import common.report.*;
 
 /**
  * A symbol recognized by a lexer and passed to the parser.
- * 
+ *
+ * The lexeme of a symbol produced by the lexer is kept as the offset and the
+ * length of its bytes within the source text and the location as its line
+ * and column numbers; the lexeme and the location are created once they are
+ * asked for. An identifier is given its ID (see {@link Names}) by the lexer
+ * and its lexeme is shared by all its occurrences.
+ *
  * @author sliva
  *
  */
@@ -14,27 +20,88 @@ public class Symbol implements Locatable, Loggable {
 	/** The token. */
 	public final Term token;
 
-	/** The lexeme. */
-	public final String lexeme;
+	/** The ID of the identifier (see {@link Names}) or -1 if the symbol is not an identifier. */
+	public final int id;
+
+	/** The source text the lexeme is part of (or {@code null} if the lexeme is given). */
+	private final Source source;
+
+	/** The offset of the lexeme within the source text. */
+	private final int offset;
+
+	/** The length of the lexeme within the source text. */
+	private final int length;
 
-	/** The location within a source file. */
+	/** The lexeme (or {@code null} until it is asked for). */
+	private String lexeme;
+
+	/** The line and column numbers of the first and the last character. */
+	private final int begLine, begColumn, endLine, endColumn;
+
+	/** The location within a source file (or {@code null} until it is asked for). */
 	private Location location;
 
 	/**
 	 * Constructs a new symbol.
-	 * 
+	 *
 	 * @param token The token.
 	 * @param lexeme The lexeme.
 	 * @param location The location within a source file.
 	 */
 	public Symbol(Term token, String lexeme, Locatable location) {
 		this.token = token;
+		this.id = token == Term.IDENTIFIER ? Names.id(lexeme) : -1;
+		this.source = null;
+		this.offset = 0;
+		this.length = lexeme.length();
 		this.lexeme = lexeme;
+		this.begLine = this.begColumn = this.endLine = this.endColumn = 0;
 		this.location = location.location();
 	}
 
+	/**
+	 * Constructs a new symbol referring to its lexeme within the source text.
+	 *
+	 * @param token The token.
+	 * @param source The source text.
+	 * @param offset The offset of the lexeme within the source text.
+	 * @param length The length of the lexeme within the source text.
+	 * @param id The ID of the identifier or -1 if the symbol is not an identifier.
+	 * @param lexeme The lexeme of the identifier or {@code null} if the symbol is not an identifier.
+	 * @param begLine The line number of the first character.
+	 * @param begColumn The column number of the first character.
+	 * @param endLine The line number of the last character.
+	 * @param endColumn The column number of the last character.
+	 */
+	Symbol(Term token, Source source, int offset, int length, int id, String lexeme, int begLine, int begColumn,
+			int endLine, int endColumn) {
+		this.token = token;
+		this.id = id;
+		this.lexeme = lexeme;
+		this.source = source;
+		this.offset = offset;
+		this.length = length;
+		this.begLine = begLine;
+		this.begColumn = begColumn;
+		this.endLine = endLine;
+		this.endColumn = endColumn;
+	}
+
+	/**
+	 * Returns the lexeme.
+	 *
+	 * @return The lexeme.
+	 */
+	public String lexeme() {
+		if (lexeme == null)
+			lexeme = source.string(offset, length);
+		return lexeme;
+	}
+
 	@Override
 	public Location location() {
+		if (location == null)
+			location = new Location(begLine, begColumn, endLine, endColumn);
 		return location;
 	}
 
@@ -44,14 +111,14 @@ public class Symbol implements Locatable, Loggable {
 			return;
 		logger.begElement("term");
 		logger.addAttribute("token", token.toString());
-		logger.addAttribute("lexeme", lexeme);
-		location.log(logger);
+		logger.addAttribute("lexeme", lexeme());
+		location().log(logger);
 		logger.endElement();
 	}
 
 	@Override
 	public String toString() {
-		return lexeme;
+		return lexeme();
 	}
 
 }
@@ -0,0 +1,232 @@
+package compiler.phases.lexan;
+
+import java.util.*;
+
+import common.report.*;
+
+/**
+ * The symbols of the entire source file.
+ *
+ * Symbols are kept in parallel arrays of primitive values (the token, the
+ * offset and the length of the lexeme, and the line and column numbers of
+ * its first and last character packed into a single value each), so that no
+ * object is allocated per symbol and the parser accesses symbols by their
+ * indices. A {@link Symbol} is created only once it is asked for, e.g., for a
+ * leaf of the derivation tree.
+ *
+ * If the lexical analysis fails, the error is not reported until the parser
+ * asks for the symbol the lexer has failed at, so that errors are reported in
+ * the very same order as if symbols were passed to the parser one at a time.
+ *
+ * Once all symbols are known, identifiers are given their IDs (see
+ * {@link Names}) in the order they appear in the source text.
+ *
+ * @author zan
+ */
+public class Tokens {
+
+	/** All tokens (by ordinals). */
+	private static final Term[] terms = Term.values();
+
+	/** The source text. */
+	private final Source source;
+
+	/** The ordinals of tokens. */
+	private byte[] tokens;
+
+	/** The offsets of lexemes. */
+	private int[] offsets;
+
+	/** The lengths of lexemes. */
+	private int[] lengths;
+
+	/** The line (upper half) and column (lower half) numbers of the first characters. */
+	private long[] begs;
+
+	/** The line (upper half) and column (lower half) numbers of the last characters. */
+	private long[] ends;
+
+	/** The IDs of identifiers (-1 for other symbols), or {@code null} until identifiers are interned. */
+	private int[] ids;
+
+	/** The identifiers the IDs belong to. */
+	private Names names;
+
+	/** The number of symbols. */
+	private int size = 0;
+
+	/** The location and the message of the error following the last symbol (or {@code null}). */
+	private Location errorLocation;
+	private String errorMessage;
+
+	/**
+	 * Constructs a new empty sequence of symbols.
+	 *
+	 * @param source   The source text.
+	 * @param capacity The expected number of symbols.
+	 */
+	Tokens(Source source, int capacity) {
+		this.source = source;
+		capacity = Math.max(capacity, 16);
+		tokens = new byte[capacity];
+		offsets = new int[capacity];
+		lengths = new int[capacity];
+		begs = new long[capacity];
+		ends = new long[capacity];
+	}
+
+	/** Appends a symbol. */
+	void add(Term token, int offset, int length, int begLine, int begColumn, int endLine, int endColumn) {
+		if (size == tokens.length) {
+			int capacity = 2 * size;
+			tokens = Arrays.copyOf(tokens, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			begs = Arrays.copyOf(begs, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		tokens[size] = (byte) token.ordinal();
+		offsets[size] = offset;
+		lengths[size] = length;
+		begs[size] = (long) begLine << 32 | begColumn;
+		ends[size] = (long) endLine << 32 | endColumn;
+		size++;
+	}
+
+	/**
+	 * Appends all symbols of another sequence of symbols (of the same source
+	 * text) but not its error.
+	 *
+	 * @param that      The symbols appended.
+	 * @param lineDelta The number added to the line numbers of the symbols.
+	 */
+	void append(Tokens that, int lineDelta) {
+		if (size + that.size > tokens.length) {
+			int capacity = Math.max(2 * tokens.length, size + that.size);
+			tokens = Arrays.copyOf(tokens, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			begs = Arrays.copyOf(begs, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		System.arraycopy(that.tokens, 0, tokens, size, that.size);
+		System.arraycopy(that.offsets, 0, offsets, size, that.size);
+		System.arraycopy(that.lengths, 0, lengths, size, that.size);
+		long delta = (long) lineDelta << 32;
+		for (int index = 0; index < that.size; index++) {
+			begs[size + index] = that.begs[index] + delta;
+			ends[size + index] = that.ends[index] + delta;
+		}
+		size += that.size;
+	}
+
+	/** Gives all identifiers their IDs. */
+	void intern(Names names) {
+		this.names = names;
+		ids = new int[size];
+		byte identifier = (byte) Term.IDENTIFIER.ordinal();
+		for (int index = 0; index < size; index++)
+			ids[index] = tokens[index] == identifier ? names.intern(source, offsets[index], lengths[index]) : -1;
+	}
+
+	/** Ends the sequence of symbols with an error. */
+	void fail(Location location, String message) {
+		errorLocation = location;
+		errorMessage = message;
+	}
+
+	/** Returns whether the sequence of symbols ends with an error. */
+	boolean failed() {
+		return errorMessage != null;
+	}
+
+	/** Returns the offset of the lexeme of a symbol. */
+	int offset(int index) {
+		return offsets[index];
+	}
+
+	/** Returns the line number of the first character of a symbol. */
+	int begLine(int index) {
+		return (int) (begs[index] >>> 32);
+	}
+
+	/** Returns the column number of the first character of a symbol. */
+	int begColumn(int index) {
+		return (int) begs[index];
+	}
+
+	/** Reports the error if the lexer has failed at the specified symbol. */
+	private void check(int index) {
+		if (index >= size && errorMessage != null)
+			throw new Report.Error(errorLocation, errorMessage);
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 *
+	 * @return The number of symbols.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the token of a symbol.
+	 *
+	 * @param index The index of the symbol.
+	 * @return The token.
+	 */
+	public Term token(int index) {
+		check(index);
+		return terms[tokens[index]];
+	}
+
+	/**
+	 * Returns the lexeme of a symbol.
+	 *
+	 * @param index The index of the symbol.
+	 * @return The lexeme.
+	 */
+	public String lexeme(int index) {
+		check(index);
+		if (ids[index] >= 0)
+			return names.name(ids[index]);
+		return source.string(offsets[index], lengths[index]);
+	}
+
+	/**
+	 * Returns the location of a symbol.
+	 *
+	 * @param index The index of the symbol.
+	 * @return The location.
+	 */
+	public Location location(int index) {
+		check(index);
+		return new Location((int) (begs[index] >>> 32), (int) begs[index], (int) (ends[index] >>> 32), (int) ends[index]);
+	}
+
+	/**
+	 * Returns the ID of an identifier.
+	 *
+	 * @param index The index of the symbol.
+	 * @return The ID of the identifier or -1 if the symbol is not an
+	 *         identifier.
+	 */
+	public int id(int index) {
+		check(index);
+		return ids[index];
+	}
+
+	/**
+	 * Returns a symbol.
+	 *
+	 * @param index The index of the symbol.
+	 * @return The symbol.
+	 */
+	public Symbol symbol(int index) {
+		int id = id(index);
+		return new Symbol(token(index), source, offsets[index], lengths[index], id, id >= 0 ? names.name(id) : null,
+				(int) (begs[index] >>> 32), (int) begs[index], (int) (ends[index] >>> 32), (int) ends[index]);
+	}
+
+}
@@ -9,6 +9,8 @@ import compiler.phases.imcgen.code.*;
 
 public class CodeFragment extends Fragment {
 
+	private static final long serialVersionUID = 1L;
+
 	// The stack frame of function.
 	public final Frame frame;
 
@@ -10,6 +10,8 @@ import compiler.phases.frames.*;
  */
 public class DataFragment extends Fragment {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The entry label. */
 	public final Label label;
 
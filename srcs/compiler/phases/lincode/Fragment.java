@@ -1,5 +1,7 @@
 package compiler.phases.lincode;
 
+import java.io.*;
+
 import common.logger.*;
 
 /**
@@ -7,6 +9,8 @@ import common.logger.*;
  *
  * @author sliva
  */
-public abstract class Fragment implements Loggable, Comparable<Fragment> {
+public abstract class Fragment implements Loggable, Comparable<Fragment>, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 }
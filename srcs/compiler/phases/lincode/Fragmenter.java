@@ -2,7 +2,10 @@ package compiler.phases.lincode;
 
 import java.util.*;
 
-import compiler.Main;
+import common.report.Trace;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
+import compiler.passes.*;
 import compiler.phases.abstr.*;
 import compiler.phases.abstr.abstree.*;
 import compiler.phases.frames.*;
@@ -12,99 +15,28 @@ import compiler.phases.imcgen.code.*;
 public class Fragmenter extends AbsFullVisitor<Object, Object> {
 
 	/** Flags **/
-	private static final boolean useBinopTemp = true;
-	private static final boolean useShortArrAcc = true;
+	private final boolean useBinopTemp = PassManager.enabled("binop-temps");
+	private final boolean useShortArrAcc = PassManager.enabled("short-array-access");
 	private static final boolean useTempCall = true;
-	private static final boolean useOptTraces = true;
 
 	private boolean mainFun = true;
 	private Vector<ImcStmt> fragmentStmts = new Vector<>();
 
+	/** Traces a message (messages that must be built are to be traced only if {@link #tracing()}). */
 	private void dump(AbsTree node, String msg) {
-		if (Main.debug == Main.DEBUG.FULL) {
+		if (tracing()) {
 			if (node != null) {
-				System.err.println("[" + node.location + ", " + node.getClass().getSimpleName() + "]: " + msg);
+				Trace.trace(Subsystem.LINCODE, Level.DETAIL, "[" + node.location + ", " + node.getClass().getSimpleName() + "]: " + msg);
 			} else {
-				System.err.println(msg);
+				Trace.trace(Subsystem.LINCODE, Level.DETAIL, msg);
 			}
 		}
 	}
 
-	private Vector<Vector<ImcStmt>> getBlocks(Vector<ImcStmt> stmts) {
-		Vector<Vector<ImcStmt>> blocks = new Vector<>();
-		boolean finished = true;
-		boolean started = false;
-		for (ImcStmt stmt : stmts) {
-			if (!started) {
-				blocks.add(new Vector<>());
-				started = true;
-				finished = false;
-				if (!(stmt instanceof ImcLABEL)) {
-					blocks.lastElement().add(new ImcLABEL(new Label()));
-					continue;
-				}
-			} else if (stmt instanceof ImcLABEL) {
-				if (!finished) {
-					blocks.lastElement().add(new ImcJUMP(((ImcLABEL) stmt).label));
-				}
-				blocks.add(new Vector<>());
-				started = true;
-				finished = false;
-			} else if (stmt instanceof ImcCJUMP || stmt instanceof ImcJUMP) {
-				finished = true;
-				started = false;
-			}
-			blocks.lastElement().add(stmt);
-		}
-		if (Main.debug == Main.DEBUG.FULL) {
-			for (Vector block : blocks) {
-				dump(null, Integer.toString(block.size()));
-				dump(null, ((ImcLABEL) block.firstElement()).label.name);
-				dump(null, block.lastElement().getClass().getSimpleName());
-			}
-		}
-		return blocks;
-	}
-
-	private Vector<ImcStmt> optTraces(Vector<ImcStmt> stmts) {
-		LinkedList<Vector<ImcStmt>> blocks = new LinkedList<>(getBlocks(stmts));
-		HashMap<Label, Vector<ImcStmt>> labelBlocks = new HashMap<>();
-		for (Vector<ImcStmt> block : blocks) {
-			labelBlocks.put(((ImcLABEL) block.firstElement()).label, block);
-		}
-		HashSet<Vector<ImcStmt>> marked = new HashSet<>();
-		Vector<ImcStmt> newStmts = new Vector<>();
-		while (blocks.size() > 0) {
-			Vector<ImcStmt> currBlock = blocks.removeFirst();
-			Vector<ImcStmt> trace = new Vector<>();
-			while (!marked.contains(currBlock)) {
-				marked.add(currBlock);
-				trace.addAll(currBlock);
-				ImcStmt jump = currBlock.lastElement();
-				if (jump instanceof ImcJUMP) {
-					Vector<ImcStmt> succ = labelBlocks.get(((ImcJUMP) jump).label);
-					if (!marked.contains(succ)) {
-						currBlock = succ;
-					}
-				} else if (jump instanceof ImcCJUMP) {
-					Vector<ImcStmt> succ = labelBlocks.get(((ImcCJUMP) jump).negLabel);
-					if (!marked.contains(succ)) {
-						currBlock = succ;
-						continue;
-					}
-					succ = labelBlocks.get(((ImcCJUMP) jump).posLabel);
-					if (!marked.contains(succ)) {
-						currBlock = succ;
-					}
-				}
-
-			}
-			newStmts.addAll(trace);
-		}
-		return newStmts;
+	private static boolean tracing() {
+		return Trace.on(Subsystem.LINCODE, Level.DETAIL);
 	}
 
-
 	@Override
 	public Object visit(AbsStmts stmts, Object visArg) {
 		for (AbsStmt absStmt : stmts.stmts()) {
@@ -149,7 +81,7 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsAssignStmt assignStmt, Object visArg) {
 		dump(assignStmt, "=== Assign statement ===");
-		dump(assignStmt, assignStmt.dst.getClass().getSimpleName());
+		if (tracing()) dump(assignStmt, assignStmt.dst.getClass().getSimpleName());
 
 		ImcExpr dstExpr;
 		if (assignStmt.dst instanceof AbsArrExpr || assignStmt.dst instanceof AbsRecExpr) {
@@ -169,21 +101,25 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 		ImcTEMP result = new ImcTEMP(new Temp());
 
 		// array address
-		ImcExpr arrAddr = (ImcExpr) arrExpr.array.accept(this, null);
-		dump(arrExpr, (arrAddr == null) ? "null" : arrAddr.toString());
+		ImcExpr arrAddr = (ImcExpr) arrExpr.array.accept(this, arrExpr);
+		if (tracing()) dump(arrExpr, (arrAddr == null) ? "null" : arrAddr.toString());
 
 		// array index
 		ImcExpr arrIndex = (ImcExpr) arrExpr.index.accept(this, null);
-		dump(arrExpr, (arrIndex == null) ? "null" : arrIndex.toString());
+		if (tracing()) dump(arrExpr, (arrIndex == null) ? "null" : arrIndex.toString());
 
 		ImcExpr imcArrExpr = ImcGen.exprImCode.get(arrExpr);
-		ImcBINOP imcInxExpr = (ImcBINOP) ((ImcBINOP) ((ImcMEM) imcArrExpr).addr).sndExpr;
+		if (imcArrExpr instanceof ImcMEM) {
+			// element accessed further (e.g. a[i][j]) is already an address
+			imcArrExpr = ((ImcMEM) imcArrExpr).addr;
+		}
+		ImcBINOP imcInxExpr = (ImcBINOP) ((ImcBINOP) imcArrExpr).sndExpr;
 		ImcTEMP indexTemp = new ImcTEMP(new Temp());
 		ImcStmt indexResult = new ImcMOVE(indexTemp, new ImcBINOP(ImcBINOP.Oper.MUL, arrIndex, imcInxExpr.sndExpr));
 
 		fragmentStmts.add(indexResult);
 		ImcExpr imcFinalArrExpr;
-		if (visArg instanceof AbsAssignStmt) {
+		if (visArg instanceof AbsAssignStmt || visArg instanceof AbsArrExpr || visArg instanceof AbsRecExpr) {
 			// get address
 			imcFinalArrExpr = new ImcBINOP(ImcBINOP.Oper.ADD, arrAddr, indexTemp);
 		} else {
@@ -250,7 +186,8 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 	public Object visit(AbsFunName funName, Object visArg) {
 		ImcCALL imcCallFun = (ImcCALL) ImcGen.exprImCode.get(funName);
 		Vector<ImcExpr> imcExprsArgs = new Vector<>();
-		imcExprsArgs.add(new ImcCONST(0));
+		// static link
+		imcExprsArgs.add(imcCallFun.args().firstElement());
 		ImcTEMP temp;
 		ImcMOVE move;
 		for (AbsExpr arg : funName.args.args()) {
@@ -260,7 +197,7 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 				fragmentStmts.add(new ImcMOVE(temp, imcArg));
 				imcExprsArgs.add(temp);
 			} else {
-				imcExprsArgs.add((ImcExpr) arg.accept(this, null));
+				imcExprsArgs.add(imcArg);
 			}
 		}
 		ImcCALL newImcCallFun = new ImcCALL(imcCallFun.label, imcExprsArgs);
@@ -294,7 +231,7 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 		// get operator & change sub expression if necessary
 		ImcExpr imcUnExpr = ImcGen.exprImCode.get(unExpr);
 		ImcExpr result;
-		dump(unExpr, imcUnExpr.toString());
+		if (tracing()) dump(unExpr, imcUnExpr.toString());
 		if (imcUnExpr instanceof ImcUNOP) {
 			result = new ImcUNOP(((ImcUNOP) imcUnExpr).oper, (ImcExpr) unExpr.subExpr.accept(this, null));
 		} else {
@@ -303,6 +240,12 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 		return result;
 	}
 
+	@Override
+	public Object visit(AbsCastExpr castExpr, Object visArg) {
+		// a typecast does not change the value
+		return castExpr.expr.accept(this, visArg);
+	}
+
 	@Override
 	public Object visit(AbsDelExpr delExpr, Object visArg) {
 		ImcCALL imcCallFun = (ImcCALL) ImcGen.exprImCode.get(delExpr);
@@ -324,15 +267,8 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 
 		Vector<ImcExpr> imcExprsArgs = new Vector<>();
 		imcExprsArgs.add(new ImcCONST(0));
-		ImcExpr imcArg = (ImcExpr) newExpr.type.accept(this, null);
-		ImcTEMP temp;
-		if (imcArg instanceof ImcNAME) {
-			temp = new ImcTEMP(new Temp());
-			fragmentStmts.add(new ImcMOVE(temp, imcArg));
-			imcExprsArgs.add(temp);
-		} else if (imcArg != null){
-			imcExprsArgs.add(imcArg);
-		}
+		// the size of the allocated data (the last argument of the call)
+		imcExprsArgs.add(imcCallFun.args().lastElement());
 		ImcCALL newImcCallFun = new ImcCALL(imcCallFun.label, imcExprsArgs);
 		if (useTempCall) {
 			ImcTEMP result = new ImcTEMP(new Temp());
@@ -358,7 +294,7 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 			Label begLabel = new Label();
 			Label endLabel = new Label();
 			// create main frame - can't AbsFunDef because it's locked
-			Frame mainFrame = Frames.mainFrame;
+			Frame mainFrame = Frames.mainFrame();
 
 			// create main fragment
 			mainFun = false;
@@ -376,7 +312,6 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 			imcStmts.addAll(fragmentStmts);
 			imcStmts.add(stmt);
 			imcStmts.add(new ImcLABEL(endLabel));
-			if (useOptTraces) imcStmts = optTraces(imcStmts);
 			mainFrgm.stmts().addAll(imcStmts);
 			return result;
 		} else {
@@ -407,7 +342,6 @@ public class Fragmenter extends AbsFullVisitor<Object, Object> {
 			canStmts.addAll(fragmentStmts);
 			canStmts.add(stmt);
 			canStmts.add(new ImcLABEL(endLabel));
-			if (useOptTraces) canStmts = optTraces(canStmts);
 			CodeFragment fragment = new CodeFragment(frame, canStmts, ImcGen.FP, RV, begLabel, endLabel);
 			LinCode.add(fragment);
 		}
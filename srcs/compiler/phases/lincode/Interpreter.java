@@ -28,7 +28,7 @@ public class Interpreter {
 
 	private long HP;
 
-	public static long RV;
+	private long RV;
 
 	public void execute() {
 
@@ -204,9 +204,9 @@ public class Interpreter {
 				case AND:
 					return new Long(((fstExpr > 0) & (sndExpr > 0)) ? 1 : 0);
 				case EQU:
-					return new Long((fstExpr == sndExpr) ? 1 : 0);
+					return new Long((fstExpr.longValue() == sndExpr.longValue()) ? 1 : 0);
 				case NEQ:
-					return new Long((fstExpr != sndExpr) ? 1 : 0);
+					return new Long((fstExpr.longValue() != sndExpr.longValue()) ? 1 : 0);
 				case GEQ:
 					return new Long((fstExpr >= sndExpr) ? 1 : 0);
 				case LEQ:
@@ -238,18 +238,28 @@ public class Interpreter {
 			}
 			if (call.label.name.equals("_printchar")) {
 				Long value = memLD(SP + 8);
-				System.out.print((char) (value % 256));
+				Report.out().print((char) (value % 256));
 				return new Long(0);
 			}
 			if (call.label.name.equals("_printint")) {
 				Long value = memLD(SP + 8);
-				System.out.print(value);
+				Report.out().print(value);
 				return new Long(0);
 			}
 			if (call.label.name.equals("_println")) {
-				System.out.println();
+				Report.out().println();
 				return new Long(0);
 			}
+			if (call.label.name.equals("_malloc")) {
+				// The heap grows from the end of static data (as in the final code).
+				Long value = memLD(SP + 8);
+				memST(SP, HP);
+				HP += value;
+				return memLD(SP);
+			}
+			if (call.label.name.equals("_free")) {
+				return 0L;
+			}
 			execute(fndCodeFragment(call.label));
 			return memLD(SP);
 		}
@@ -2,12 +2,14 @@ package compiler.phases.lincode;
 
 import java.util.*;
 
+import common.compilation.*;
+import common.report.*;
 import compiler.phases.*;
 
 public class LinCode extends Phase {
 
 	/** The list of fragments. */
-	private static final LinkedList<Fragment> fragments = new LinkedList<Fragment>();
+	private static final CompilationLocal<LinkedList<Fragment>> fragments = new CompilationLocal<>(LinkedList::new);
 
 	/**
 	 * Constructs a new phase for computing linear intermediate code.
@@ -18,8 +20,16 @@ public class LinCode extends Phase {
 
 	@Override
 	public void close() {
-		for (Fragment fragment : fragments())
-			fragment.log(logger);
+		if (logger != null)
+			for (Fragment fragment : fragments.get())
+				fragment.log(logger);
+		if (Stats.enabled()) {
+			Stats.count("fragments", fragments.get().size());
+			for (Fragment fragment : fragments.get())
+				if (fragment instanceof CodeFragment)
+					Stats.count("imcStmts", ((CodeFragment) fragment).frame.label.name,
+							((CodeFragment) fragment).stmts().size());
+		}
 		super.close();
 	}
 
@@ -29,7 +39,7 @@ public class LinCode extends Phase {
 	 * @param fragment The new fragment.
 	 */
 	public static void add(Fragment fragment) {
-		fragments.add(fragment);
+		fragments.get().add(fragment);
 	}
 
 	/**
@@ -38,11 +48,11 @@ public class LinCode extends Phase {
 	 * @return The list of all fragments.
 	 */
 	public static LinkedList<Fragment> fragments() {
-		return new LinkedList<Fragment>(fragments);
+		return new LinkedList<Fragment>(fragments.get());
 	}
 
 	public static void reset() {
-		fragments.clear();
+		fragments.get().clear();
 	}
 
 }
@@ -1,6 +1,10 @@
 package compiler.phases.liveness;
 
-import compiler.Main;
+import common.logger.Loggable;
+import common.logger.Logger;
+import common.report.Trace;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.phases.asmgen.AsmInstr;
 import compiler.phases.asmgen.AsmMOVE;
 import compiler.phases.frames.Temp;
@@ -8,24 +12,20 @@ import compiler.phases.lincode.CodeFragment;
 
 import java.util.*;
 
-public class InterferenceGraph {
+public class InterferenceGraph implements Loggable {
 
 	/** Graph and instructions */
 	public HashMap<Temp, Node> interferenceGraph;
 	public LinkedList<AsmInstr> instructions;
 	public CodeFragment fragment;
 
+	/** The number of iterations of the liveness analysis the graph has been built after. */
+	protected long nLivenessIter;
+
 	/** Redundant edges */
 	private HashMap<Temp, Set<Temp>> redundantEdges;
 
 
-	/** Dump information for each instruction */
-	protected void dump(AsmInstr instr, String msg) {
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.LIVENESS) {
-			System.out.println(instr != null ? instr.toString() + ": " + msg : msg);
-		}
-	}
-
 	protected InterferenceGraph(CodeFragment codeFragment, LinkedList<AsmInstr> instrs) {
 		fragment = codeFragment;
 		instructions = new LinkedList<>(instrs);
@@ -48,13 +48,18 @@ public class InterferenceGraph {
 			for (int i = 0; i < instr.defs().size(); i++) {
 				addNode(instr.defs().get(i));
 			}
-			dump(null, "=== New instruction ===");
+			Trace.trace(Subsystem.LIVENESS, Level.DETAIL, "=== New instruction ===");
 			findRedundantEdges(instr, instr.out());
 			addEdges(instr.in());
 			addEdges(instr.out());
 		}
 	}
 
+	/** Returns the number of iterations of the liveness analysis the graph has been built after. */
+	public long numOfLivenessIterations() {
+		return nLivenessIter;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder intfrGraph = new StringBuilder();
@@ -64,6 +69,31 @@ public class InterferenceGraph {
 		return intfrGraph.toString();
 	}
 
+	@Override
+	public void log(Logger logger) {
+		if (logger == null)
+			return;
+		logger.begElement("interferencegraph");
+		logger.addAttribute("label", fragment == null ? "" : fragment.frame.label.name);
+		TreeMap<Long, Node> nodes = new TreeMap<>();
+		for (Node node : interferenceGraph.values())
+			nodes.put(node.t.temp, node);
+		for (Node node : nodes.values()) {
+			logger.begElement("node");
+			logger.addAttribute("temp", node.t.toString());
+			TreeSet<Long> neighbours = new TreeSet<>();
+			for (Node neighbour : node.edges)
+				neighbours.add(neighbour.t.temp);
+			for (Long neighbour : neighbours) {
+				logger.begElement("edge");
+				logger.addAttribute("temp", new Temp(neighbour).toString());
+				logger.endElement();
+			}
+			logger.endElement();
+		}
+		logger.endElement();
+	}
+
 	private void addNode(Temp temp) {
 		if (!interferenceGraph.containsKey(temp)) {
 			interferenceGraph.put(temp, new Node(temp));
@@ -94,7 +124,7 @@ public class InterferenceGraph {
 			return;
 		}
 
-		dump(null, "EDGE " + curr + "--" + neighbour);
+		Trace.trace(Subsystem.LIVENESS, Level.DETAIL, (t1, t2) -> "EDGE " + t1 + "--" + t2, curr, neighbour);
 
 		Node currNode = interferenceGraph.get(curr);
 		Node neigbourNode = interferenceGraph.get(neighbour);
@@ -126,7 +156,7 @@ public class InterferenceGraph {
 		}
 		if (curr == neighbour) return;
 
-		dump(null, "REMOVE " + curr + "--" + neighbour);
+		Trace.trace(Subsystem.LIVENESS, Level.DETAIL, (t1, t2) -> "REMOVE " + t1 + "--" + t2, curr, neighbour);
 		graph.get(curr).remove(neighbour);
 		graph.get(neighbour).remove(curr);
 	}
@@ -140,13 +170,13 @@ public class InterferenceGraph {
 		}
 		if (curr == neighbour) return;
 
-		dump(null, "MARK REDUNDANT EDGE " + curr + "-/-" + neighbour);
+		Trace.trace(Subsystem.LIVENESS, Level.DETAIL, (t1, t2) -> "MARK REDUNDANT EDGE " + t1 + "-/-" + t2, curr, neighbour);
 		redundantEdges.get(curr).add(neighbour);
 		redundantEdges.get(neighbour).add(curr);
 	}
 
 	private void findRedundantEdges(AsmInstr instr, Set<Temp> instrTemp) {
-		dump(instr, instrTemp.toString());
+		Trace.trace(Subsystem.LIVENESS, Level.DETAIL, (i, temps) -> i + ": " + temps, instr, instrTemp);
 		// add all defs as nodes
 		boolean isDef = instr.defs().size() > 0;
 		boolean usedDef = false;
@@ -1,5 +1,9 @@
 package compiler.phases.liveness;
 
+import common.compilation.CompilationLocal;
+import common.report.Events;
+import common.report.Report;
+import common.report.Stats;
 import compiler.Main;
 import compiler.phases.Phase;
 import compiler.phases.asmgen.AsmGen;
@@ -19,100 +23,24 @@ public class LiveAn extends Phase {
 	private static final boolean buildExtendedInferenceGraph = true;
 
 	/** Final interference graph */
-	static public ArrayList<InterferenceGraph> interferenceGraphs = new ArrayList<>();
+	private static final CompilationLocal<ArrayList<InterferenceGraph>> interferenceGraphs = new CompilationLocal<>(ArrayList::new);
 
 	/** Pointer to instructions for each fragment */
 	private HashMap<Fragment, LinkedList<AsmInstr>> fragmentsInstructions;
 	private LinkedList<AsmInstr> instructions;
 
 
-	/** Instructions for each fragment */
-	private int fg = (AsmGen.addFragmentComment) ? 1 : 0;
-
-	/** Number of iterations needed to analyse liveness */
-	private int livenessSearchIteration;
-
 	public LiveAn() {
 		super("liveness");
-		dumpTable = new ArrayList<>();
-		colSize = new ArrayList<>();
-	}
-
-	enum LIVEDEBUG {LIVENESSTABLE, INSTRUCTIONS, INFGRAPH, NONE}
-
-	/** Debug print out options */
-	private ArrayList<ArrayList<String>> dumpTable;
-	private ArrayList<Integer> colSize;
-
-
-	/** Dump information for each instruction */
-	private void dump(AsmInstr instr) {
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.LIVENESS) {
-			System.out.println(instr.toString() + ": \n" +
-				"	Defs: " + instr.defs().toString() + "\n" +
-				"	Uses: " + instr.uses().toString() + "\n" +
-				"	Jump: " + instr.jumps().toString() + "\n" +
-				"	Pred: " + instr.pred().toString() + "\n" +
-				"	Succ: " + instr.succ().toString() + "\n" +
-				"	In	: " + instr.in().toString() + "\n" +
-				"	Out : " + instr.out().toString());
-		}
-	}
-
-	/** Remembers column for printout when doing liveness analysis */
-	private void dumpRememberColumn() {
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.LIVENESS) {
-			int n = livenessSearchIteration;
-			// dump all
-			colSize.add(0);
-			for (int i = fg; i < instructions.size() - fg; i++) {
-				AsmInstr instr = instructions.get(i);
-				String msg = " | " + instr.in().toString() + " "
-					+ instr.out().toString() + " "
-					+ instr.defs().toString();
-				dumpTable.get(i - fg).add(msg);
-				colSize.set(n, Math.max(colSize.get(n), msg.length()));
-			}
-			n++;
-			livenessSearchIteration = n;
-		}
-	}
-
-
-	private void dumpLivenessTable() {
-		if ((Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.LIVENESS) && debug == LIVEDEBUG.LIVENESSTABLE) {
-			// table header
-			for (int i = 0; i < dumpTable.get(0).size(); i++) {
-				System.out.format("%1$-" + (colSize.get(i) + 5) + "s", (i == 0) ?
-					"Instr" : "in" + i + " out" + i + " defs" + i);
-			}
-			System.out.println();
-
-			// table body
-			for (int i = fg; i < instructions.size() - fg; i++) {
-				int n = 0;
-				for (String msg : dumpTable.get(i - fg)) {
-					System.out.format("%1$-" + (colSize.get(n++) + 5) + "s", msg);
-				}
-				System.out.println();
-			}
-		}
 	}
 
-	private void dumpInstructions() {
-		if ((Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.LIVENESS) && debug == LIVEDEBUG.INSTRUCTIONS) {
-			// dump all
-			for (int i = fg; i < instructions.size() - fg; i++) {
-				dump(instructions.get(i));
-			}
-		}
-	}
+	enum LIVEDEBUG {INFGRAPH, NONE}
 
 	/** Print functions */
 
 	public static void printInstructions(LinkedList<AsmInstr> instructions) {
 		for (AsmInstr instr : instructions) {
-			System.out.format("%1$-18s %2$-18s\n", instr + " ",
+			Report.out().format("%1$-18s %2$-18s\n", instr + " ",
 				(instr.in().size() > includeNNodes ? "% I:" + instr.in().toString() : "") +
 					(instr.out().size() > includeNNodes ?
 						(instr.in().size() > includeNNodes ? "" : "%") +
@@ -124,20 +52,15 @@ public class LiveAn extends Phase {
 	public static void printFragmentInterferenceGraph(InterferenceGraph graph, String fragmentName) {
 		if (debug == LIVEDEBUG.INFGRAPH) {
 			String title = "==== INTERFERENCE GRAPH [ " + fragmentName + " ] ====";
-			System.out.println(title);
-			System.out.print(graph.toString());
-			System.out.println(new String(new char[title.length()]).replace("\0", "="));
+			Report.out().println(title);
+			Report.out().print(graph.toString());
+			Report.out().println(new String(new char[title.length()]).replace("\0", "="));
 		}
 	}
 
 
 	/** Main logic of liveness analysis */
 
-	private void createInterferenceGraph(CodeFragment codeFragment, LinkedList<AsmInstr> instructions) {
-		InterferenceGraph fragmentInterferenceGraph = new InterferenceGraph(codeFragment, instructions);
-		interferenceGraphs.add(fragmentInterferenceGraph);
-	}
-
 	private static void getBrachSuccessors(AsmInstr instr) {
 		for (Label label : instr.jumps()) {
 			AsmInstr labelInstr = AsmGen.labelInstructions().get(label);
@@ -152,11 +75,13 @@ public class LiveAn extends Phase {
 		directSucc.pred().add(instr);
 	}
 
-	public static void calculateInterferece(LinkedList<AsmInstr> instructions) {
-//		colSize.clear();
-//		dumpTable.clear();
-//		colSize.add(0);
-
+	/**
+	 * Computes live-in and live-out sets of all instructions of a fragment.
+	 *
+	 * @param instructions The instructions of the fragment.
+	 * @return The number of iterations needed.
+	 */
+	public static long calculateInterferece(LinkedList<AsmInstr> instructions) {
 		// get successors/predecessors
 		int fg = (AsmGen.addFragmentComment) ? 1 : 0;
 		for (int i = fg; i < instructions.size() - fg; i++) {
@@ -168,17 +93,14 @@ public class LiveAn extends Phase {
 			} else {
 				getBrachSuccessors(instr);
 			}
-
-//			dumpTable.add(new ArrayList<>());
-//			dumpTable.get(dumpTable.size() - 1).add(instr.toString());
-//			colSize.set(0, Math.max(colSize.get(0), instructions.get(i).toString().length()));
 		}
 
 
 		Set<Temp> differenceOutDef = new HashSet<>();
 		boolean changes = true;
-//		livenessSearchIteration = 1;
+		long nIter = 0;
 		while (changes) {
+			nIter++;
 			for (int i = instructions.size() - fg - 1; i >= 0; i--) {
 				AsmInstr instr = instructions.get(i);
 				instr.inTmp().clear();
@@ -216,41 +138,96 @@ public class LiveAn extends Phase {
 				if (i == instructions.size() - fg - 1)
 					changes = false;
 			}
-//			dumpRememberColumn();
 		}
-//		dumpLivenessTable();
-//		dumpInstructions();
+		return nIter;
 	}
 
+	/**
+	 * Analyses liveness of temporary variables of all fragments (in parallel,
+	 * see {@link Phase#parallel}) and builds their interference graphs.
+	 *
+	 * @param fragmentsInstructions Instructions of all fragments.
+	 */
 	public void livenessAnalysis(HashMap<Fragment, LinkedList<AsmInstr>> fragmentsInstructions) {
 		this.fragmentsInstructions = fragmentsInstructions;
-		for (Map.Entry<Fragment, LinkedList<AsmInstr>> fragment : fragmentsInstructions.entrySet()) {
-			instructions = fragment.getValue();
-			calculateInterferece(instructions);
-			if (buildExtendedInferenceGraph)
-				createInterferenceGraph((CodeFragment) fragment.getKey(), instructions);
+		ArrayList<Map.Entry<Fragment, LinkedList<AsmInstr>>> fragments = new ArrayList<>(fragmentsInstructions.entrySet());
+		ArrayList<InterferenceGraph> graphs = parallel(fragments,
+			fragment -> livenessAnalysis((CodeFragment) fragment.getKey(), fragment.getValue()));
+		for (InterferenceGraph graph : graphs) {
+			if (graph != null) {
+				interferenceGraphs.get().add(graph);
+				count(graph);
+			}
+		}
+		if (!fragments.isEmpty())
+			instructions = fragments.get(fragments.size() - 1).getValue();
+	}
+
+	/**
+	 * Analyses liveness of temporary variables of a single fragment.
+	 *
+	 * @param fragment     The code fragment.
+	 * @param instructions The instructions of the fragment.
+	 * @return The interference graph of the fragment (or {@code null} if not built).
+	 */
+	public static InterferenceGraph livenessAnalysis(CodeFragment fragment, LinkedList<AsmInstr> instructions) {
+		Events.Liveness event = new Events.Liveness();
+		event.begin();
+		long nIter = calculateInterferece(instructions);
+		InterferenceGraph graph = buildExtendedInferenceGraph ? new InterferenceGraph(fragment, instructions) : null;
+		if (graph != null)
+			graph.nLivenessIter = nIter;
+		if (event.shouldCommit()) {
+			event.srcFileName = Main.cmdLineArgValue("--src-file-name");
+			event.fragment = fragment.frame.label.name;
+			event.instructions = instructions.size();
+			event.iterations = nIter;
+			event.commit();
 		}
+		return graph;
+	}
+
+	/**
+	 * Records the statistics of the liveness analysis of a fragment.
+	 *
+	 * @param graph The interference graph of the fragment.
+	 */
+	public static void count(InterferenceGraph graph) {
+		Stats.count("livenessIterations", graph.fragment.frame.label.name, graph.numOfLivenessIterations());
 	}
 
 	@Override
 	public void close() {
-		if (Main.cmdLine.get("--target-phase").equals("liveness")) {
+		if (Main.cmdLineArgValue("--target-phase").equals("liveness")) {
 			if (fragmentsInstructions != null) {
 				int i = 0;
 				for (Map.Entry<Fragment, LinkedList<AsmInstr>> entry : fragmentsInstructions.entrySet()) {
 					printInstructions(entry.getValue());
-					printFragmentInterferenceGraph(interferenceGraphs.get(i++),
+					printFragmentInterferenceGraph(interferenceGraphs().get(i++),
 						((CodeFragment) entry.getKey()).frame.label.name);
 				}
 			} else if (instructions != null) {
 				printInstructions(instructions);
-				printFragmentInterferenceGraph(interferenceGraphs.get(0), "");
+				printFragmentInterferenceGraph(interferenceGraphs().get(0), "");
 			}
 		}
+		if (logger != null) {
+			for (InterferenceGraph graph : interferenceGraphs())
+				graph.log(logger);
+		}
 		super.close();
 	}
 
+	/**
+	 * Returns the interference graphs of all fragments.
+	 *
+	 * @return The interference graphs of all fragments.
+	 */
+	public static ArrayList<InterferenceGraph> interferenceGraphs() {
+		return interferenceGraphs.get();
+	}
+
 	public static void reset() {
-		interferenceGraphs = new ArrayList<>();
+		interferenceGraphs.set(new ArrayList<>());
 	}
 }
@@ -60,6 +60,11 @@ public class Node implements Comparable {
 		}
 	}
 
+	@Override
+	public int hashCode() {
+		return t.hashCode();
+	}
+
 	@Override
 	public String toString() {
 		return "T" + t.temp;
@@ -1,7 +1,14 @@
 package compiler.phases.regalloc;
 
+import common.report.Events;
+import common.report.Trace;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.Main;
+import compiler.passes.PassManager;
 import compiler.phases.asmgen.AsmInstr;
+import compiler.phases.asmgen.AsmLABEL;
+import compiler.phases.asmgen.AsmMOVE;
 import compiler.phases.asmgen.AsmOPER;
 import compiler.phases.frames.Frame;
 import compiler.phases.frames.Temp;
@@ -20,7 +27,7 @@ public class ColoredGraph extends InterferenceGraph {
 	public boolean coloringSuccessful;
 	/** Spilled flags */
 	public static final boolean showSpilledComments = RegAlloc.showSpilledComments;
-	public static final boolean useNewSpilledTemp = RegAlloc.useNewSpilledTemp;
+	private final boolean useNewSpilledTemp = PassManager.enabled("spill-temps");
 
 
 	private final HashSet<Integer> colors;          // color is a number between 0 to (nReg - 1) inclusive
@@ -43,12 +50,16 @@ public class ColoredGraph extends InterferenceGraph {
 	/** Counters */
 	private int nIter;                              // number of iteration needed to color graph
 	private int nSpilledReg;                        // number of spilled nodes/registers
+	private int nSpillLoads;                        // number of loads inserted by spilling
+	private int nSpillStores;                       // number of stores inserted by spilling
 
 
 	ColoredGraph(InterferenceGraph interferenceGraph) {
 		super(interferenceGraph);
 		nIter = 0;
 		nSpilledReg = 0;
+		nSpillLoads = 0;
+		nSpillStores = 0;
 		regMapping = new HashMap<>();
 		simplifiedNodes = new Stack<>();
 		spilledCandidateNodes = new Stack<>();
@@ -69,17 +80,13 @@ public class ColoredGraph extends InterferenceGraph {
 		originalNodes = new HashSet<>();
 		for (Node n : interferenceGraph.interferenceGraph.values())
 			originalNodes.add(n.t);
-		dump("Number of registers: " + RegAlloc.nReg);
+		Trace.trace(Subsystem.REGALLOC, Level.INFO, n -> "Number of registers: " + n, RegAlloc.nReg);
 		createGraph();
 	}
 
-	private void dump(String msg) {
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.REGALLOC) {
-			System.out.println(msg);
-		}
-	}
-
 	public void createGraph() {
+		Events.Coloring event = new Events.Coloring();
+		event.begin();
 		coloringSuccessful = false;
 		nIter = 0;
 
@@ -104,16 +111,67 @@ public class ColoredGraph extends InterferenceGraph {
 			coloringSuccessful = selectColor();
 			nIter++;
 			// logging
-			dump("Interference Graph: " + interferenceGraph.values());
-			dump("Simplified nodes: " + simplifiedNodes);
-			dump("Spilling candidates: " + spilledNodes);
-			dump("Iteration successful [" + nIter + "]: " + coloringSuccessful);
+			Trace.trace(Subsystem.REGALLOC, Level.DETAIL, g -> "Interference Graph: " + g.values(), interferenceGraph);
+			Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "Simplified nodes: " + n, simplifiedNodes);
+			Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "Spilling candidates: " + n, spilledNodes);
+			Trace.trace(Subsystem.REGALLOC, Level.INFO, (n, s) -> "Iteration successful [" + n + "]: " + s, nIter, coloringSuccessful);
 		}
 
 		// resize frame if necessary
-		dump("Frame size: " + fragment.frame.size);
+		Trace.trace(Subsystem.REGALLOC, Level.INFO, f -> "Frame size: " + f.frame.size, fragment);
 		resizeFrame();
-		dump("New frame size: " + nSpilledReg + " " + fragment.frame.size);
+		Trace.trace(Subsystem.REGALLOC, Level.INFO, (n, f) -> "New frame size: " + n + " " + f.frame.size, nSpilledReg, fragment);
+		if (event.shouldCommit()) {
+			event.srcFileName = Main.cmdLineArgValue("--src-file-name");
+			event.fragment = fragment.frame.label.name;
+			event.temps = originalNodes.size();
+			event.iterations = nIter;
+			event.spilledTemps = nSpilledReg;
+			event.commit();
+		}
+	}
+
+	/** Returns the number of iterations needed to color the graph. */
+	public int numOfIterations() {
+		return nIter;
+	}
+
+	/** Returns the number of spilled temporary variables. */
+	public int numOfSpilledTemps() {
+		return nSpilledReg;
+	}
+
+	/** Returns the number of loads of spilled temporary variables inserted into the code. */
+	public int numOfSpillLoads() {
+		return nSpillLoads;
+	}
+
+	/** Returns the number of stores of spilled temporary variables inserted into the code. */
+	public int numOfSpillStores() {
+		return nSpillStores;
+	}
+
+	/** Returns the number of instructions (without labels and comments) after register allocation. */
+	public int numOfInstrs() {
+		int nInstrs = 0;
+		for (AsmInstr instr : instructions)
+			if (!(instr instanceof AsmLABEL) && !instr.toString().startsWith("%"))
+				nInstrs++;
+		return nInstrs;
+	}
+
+	/** Returns the number of moves left after register allocation, i.e., moves between temporaries. */
+	public int numOfMoves() {
+		int nMoves = 0;
+		for (AsmInstr instr : instructions)
+			if (instr instanceof AsmMOVE)
+				nMoves++;
+		return nMoves;
+	}
+
+	/** Returns the size of the frame including the spilled temporary variables. */
+	public long frameSize() {
+		return fragment.frame.size;
 	}
 
 	private void prepareStacks() {
@@ -151,9 +209,9 @@ public class ColoredGraph extends InterferenceGraph {
 			instr.pred().clear();
 		}
 
-		LiveAn.calculateInterferece(instructions);
+		nLivenessIter += LiveAn.calculateInterferece(instructions);
 		buildInterferenceGraph();
-		if (Main.debug == Main.DEBUG.FULL || Main.debug == Main.DEBUG.REGALLOC)
+		if (Trace.on(Subsystem.REGALLOC, Level.DETAIL))
 			LiveAn.printInstructions(instructions);
 	}
 
@@ -195,12 +253,12 @@ public class ColoredGraph extends InterferenceGraph {
 				regMapping.put(node.t, node.color);
 			} else {
 				spilledNodes.add(node);
-				dump("Can't color " + node + " " + node.getDegree());
+				Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "Can't color " + n + " " + n.getDegree(), node);
 				success = false;
 			}
 		}
-		dump("Colored nodes: " + regMapping);
-		dump("Spilled nodes: " + spilledNodes);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, m -> "Colored nodes: " + m, regMapping);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "Spilled nodes: " + n, spilledNodes);
 		return success;
 	}
 
@@ -216,6 +274,7 @@ public class ColoredGraph extends InterferenceGraph {
 		AsmOPER loadReg = new AsmOPER("LDO `d0, `s0, 0", uses, defs, null);
 		it.add(regAddr);
 		it.add(loadReg);
+		nSpillLoads++;
 	}
 
 	private void storeSpilledReg(ListIterator<AsmInstr> it, long offset, Temp addrTemp, Temp spilledTemp, boolean calcAddr) {
@@ -231,6 +290,7 @@ public class ColoredGraph extends InterferenceGraph {
 		uses.add(spilledTemp);
 		uses.add(addrTemp);
 		it.add(new AsmOPER("STO `s0, `s1, 0", uses, null, null));
+		nSpillStores++;
 	}
 
 	private void findBestSpilledNode(Set<Node> spilledNodes) {
@@ -273,12 +333,21 @@ public class ColoredGraph extends InterferenceGraph {
 			return;
 		}
 
-		dump("GRAPH " + interferenceGraph.values().toString());
-		dump("ORG " + originalNodes.toString());
-		dump(spilledNodes.toString());
-		dump(avoidFixingNodes.toString());
-		dump(spilledFromBeginningNodes.toString());
-		dump("SPILLED: " + (spilledNode == null ? "null" : spilledNode.toString()));
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, g -> "GRAPH " + g.values(), interferenceGraph);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "ORG " + n, originalNodes);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> n.toString(), spilledNodes);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> n.toString(), avoidFixingNodes);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> n.toString(), spilledFromBeginningNodes);
+		Trace.trace(Subsystem.REGALLOC, Level.DETAIL, n -> "SPILLED: " + n, spilledNode);
+		Events.Spill event = new Events.Spill();
+		if (event.shouldCommit()) {
+			event.srcFileName = Main.cmdLineArgValue("--src-file-name");
+			event.fragment = fragment.frame.label.name;
+			event.round = nIter;
+			event.temp = spilledNode.t.toString();
+			event.degree = spilledNode.degree;
+			event.commit();
+		}
 
 		ListIterator<AsmInstr> it = instructions.listIterator();
 		long spilledTempOffset = (fragment.frame.locsSize + 16) + nSpilledReg * 8;
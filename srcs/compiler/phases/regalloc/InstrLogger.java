@@ -1,5 +1,6 @@
 package compiler.phases.regalloc;
 
+import common.report.Report;
 import compiler.phases.asmgen.AsmInstr;
 import compiler.phases.frames.Temp;
 import compiler.phases.liveness.InterferenceGraph;
@@ -10,7 +11,6 @@ import java.util.LinkedList;
 
 public class InstrLogger {
 
-	private static StringBuilder stringBuilder = new StringBuilder();
 	public static final boolean withoutSpaces = true;
 	public static final boolean usePadding = true;
 
@@ -30,7 +30,7 @@ public class InstrLogger {
 	}
 
 	public static String comment(String msg) {
-		stringBuilder.setLength(0);
+		StringBuilder stringBuilder = new StringBuilder();
 		if (!msg.equals("")) {
 			msg = " " + msg + " ";
 		}
@@ -39,7 +39,7 @@ public class InstrLogger {
 		return stringBuilder.toString();
 	}
 
-	private static void format(String instrStr) {
+	private static void format(StringBuilder stringBuilder, String instrStr) {
 		if (withoutSpaces) instrStr = instrStr.replaceAll(", ", ",");
 		String first = instrStr.split("\\s")[0];
 		String pad = instrStr.matches("^([L][0-9]+?|[_].+?).*") || !usePadding ||
@@ -49,7 +49,7 @@ public class InstrLogger {
 	}
 
 	public static String fragmentInterferenceGraph(InterferenceGraph graph, String fragmentName) {
-		stringBuilder.setLength(0);
+		StringBuilder stringBuilder = new StringBuilder();
 		String title = "% ==== INTERFERENCE GRAPH " + ((fragmentName != null) ? "[ " + fragmentName + " ]" : "") + "====";
 		stringBuilder.append(title).append("\n");
 		stringBuilder.append(graph.toString());
@@ -58,7 +58,7 @@ public class InstrLogger {
 	}
 
 	public static String fragmentRegMapping(ColoredGraph graph) {
-		stringBuilder.setLength(0);
+		StringBuilder stringBuilder = new StringBuilder();
 		stringBuilder.append("% ===== REGISTER MAPPING =====").append("\n");
 		stringBuilder.append("% ").append(graph.regMapping).append("\n");
 		stringBuilder.append("% ============================").append("\n");
@@ -66,39 +66,39 @@ public class InstrLogger {
 	}
 
 	public static String fragmentInstructions(ColoredGraph graph, boolean useOrgInstrAsComm) {
-		stringBuilder.setLength(0);
+		StringBuilder stringBuilder = new StringBuilder();
 		for (AsmInstr instr : graph.instructions) {
 			String instrStr;
 			if (instr.toString().startsWith("%") || !graph.coloringSuccessful) {
 				instrStr = instr.toString();
-				format(instrStr);
+				format(stringBuilder, instrStr);
 			} else {
 				instrStr = instr.toString(graph.regMapping);
-				format(instrStr);
+				format(stringBuilder, instrStr);
 			}
 		}
 		return stringBuilder.toString();
 	}
 
 	public static String instructions(LinkedList<AsmInstr> instrs, HashMap<Temp, Integer> regMapping) {
-		stringBuilder.setLength(0);
+		StringBuilder stringBuilder = new StringBuilder();
 		for (AsmInstr instr : instrs) {
 			String instrStr;
 			instrStr = regMapping != null ? instr.toString(regMapping) : instr.toString();
-			format(instrStr);
+			format(stringBuilder, instrStr);
 		}
 		return stringBuilder.toString();
 	}
 
 	public static void printFragmentInterferenceGraph(InterferenceGraph graph, String fragmentName) {
-		System.out.print(fragmentInterferenceGraph(graph, fragmentName));
+		Report.out().print(fragmentInterferenceGraph(graph, fragmentName));
 	}
 
 	public static void printFragmentRegMapping(ColoredGraph graph) {
-		System.out.print(fragmentRegMapping(graph));
+		Report.out().print(fragmentRegMapping(graph));
 	}
 
 	public static void printFragmentInstructions(ColoredGraph igc, boolean useOrgInstrAsComm) {
-		System.out.print(fragmentInstructions(igc, useOrgInstrAsComm));
+		Report.out().print(fragmentInstructions(igc, useOrgInstrAsComm));
 	}
 }
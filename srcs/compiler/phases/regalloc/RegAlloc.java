@@ -1,7 +1,11 @@
 package compiler.phases.regalloc;
 
+import common.compilation.CompilationLocal;
+import common.report.Stats;
 import compiler.Main;
+import compiler.passes.PassManager;
 import compiler.phases.Phase;
+import compiler.phases.frames.Temp;
 import compiler.phases.liveness.InterferenceGraph;
 
 import java.util.*;
@@ -13,40 +17,83 @@ public class RegAlloc extends Phase {
 	public static final boolean showSpilledComments = false;
 	public static final boolean showRegMapping = true;
 	public static final boolean showInterferenceGraph = true;
-	public static final boolean useNewSpilledTemp = true;
 	public static int nReg = Main.nReg;
 
 	/** Final interference graph */
-	public static ArrayList<ColoredGraph> interferenceColeredGraphs;
+	private static final CompilationLocal<ArrayList<ColoredGraph>> interferenceColeredGraphs = new CompilationLocal<>(ArrayList::new);
 
 	public RegAlloc(ArrayList<InterferenceGraph> interferenceGraphs) {
 		super("regalloc");
-		interferenceColeredGraphs = new ArrayList<>();
+		interferenceColeredGraphs.set(new ArrayList<>());
 		allocateRegisters(interferenceGraphs);
 	}
 
+	/**
+	 * Returns the colored interference graphs of all fragments.
+	 *
+	 * @return The colored interference graphs of all fragments.
+	 */
+	public static ArrayList<ColoredGraph> interferenceColeredGraphs() {
+		return interferenceColeredGraphs.get();
+	}
+
 	/** Main logic of liveness analysis */
 
 	public void allocateRegisters(ArrayList<InterferenceGraph> interferenceGraphs) {
-		for (InterferenceGraph ig : interferenceGraphs) {
-			ColoredGraph icg = new ColoredGraph(ig);
-			interferenceColeredGraphs.add(icg);
+		ArrayList<ColoredGraph> graphs = parallel(interferenceGraphs, RegAlloc::allocateRegisters);
+		for (ColoredGraph icg : graphs) {
+			count(icg);
+			interferenceColeredGraphs.get().add(icg);
 		}
 	}
 
+	/**
+	 * Allocates registers of a single fragment.
+	 *
+	 * @param ig The interference graph of the fragment.
+	 * @return The colored interference graph of the fragment.
+	 */
+	public static ColoredGraph allocateRegisters(InterferenceGraph ig) {
+		// spilled temporaries continue the numbering of their fragments
+		Temp.beginFragment(ig.fragment.frame.label.name);
+		try {
+			ColoredGraph cg = new ColoredGraph(ig);
+			PassManager.runAsmPasses(cg);
+			return cg;
+		} finally {
+			Temp.endFragment();
+		}
+	}
+
+	/**
+	 * Records the statistics of the colored interference graph of a fragment.
+	 *
+	 * @param icg The colored interference graph.
+	 */
+	public static void count(ColoredGraph icg) {
+		Stats.count("coloringIterations", icg.fragment.frame.label.name, icg.numOfIterations());
+		Stats.count("spilledTemps", icg.fragment.frame.label.name, icg.numOfSpilledTemps());
+		Stats.count("spillLoads", icg.fragment.frame.label.name, icg.numOfSpillLoads());
+		Stats.count("spillStores", icg.fragment.frame.label.name, icg.numOfSpillStores());
+		Stats.count("frameSize", icg.fragment.frame.label.name, icg.frameSize());
+		// the liveness analysis repeated after spilling
+		Stats.count("livenessIterations", icg.fragment.frame.label.name, icg.numOfLivenessIterations());
+	}
+
 	@Override
 	public void close() {
-		if (Main.cmdLine.get("--target-phase").equals("regalloc")) {
-			for (ColoredGraph igc : interferenceColeredGraphs) {
+		if (Main.cmdLineArgValue("--target-phase").equals("regalloc")) {
+			for (ColoredGraph igc : interferenceColeredGraphs.get()) {
 				InstrLogger.printFragmentInstructions(igc, useOrgInstrAsComm);
 				if (showRegMapping) InstrLogger.printFragmentRegMapping(igc);
 				if (showInterferenceGraph) InstrLogger.printFragmentInterferenceGraph(igc, null);
 			}
 		}
+		Stats.count("temps", Temp.numOfTemps());
 		super.close();
 	}
 
 	public static void reset() {
-		interferenceColeredGraphs = new ArrayList<>();
+		interferenceColeredGraphs.set(new ArrayList<>());
 	}
 }
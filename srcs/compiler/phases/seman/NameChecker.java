@@ -33,7 +33,7 @@ public class NameChecker implements AbsVisitor<Object, Object> {
 			// dynamic check - slower but compact and works for each type
 			SemAn.declAt().put(typeName, decl);
 		} else {
-			System.out.println(decl.getClass() + " " + shouldBeDecl);
+			Report.out().println(decl.getClass() + " " + shouldBeDecl);
 
 		}
 	}
@@ -61,7 +61,7 @@ public class NameChecker implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsFunName funName, Object visArg) {
 		try {
-			AbsDecl funDecl = symbTable.fnd(funName.name);
+			AbsDecl funDecl = symbTable.fnd(funName.id);
 			//useMatch(funName, funDecl, AbsFunDecl.class);
 			if (funDecl instanceof AbsFunDecl) {
 				SemAn.declAt().put(funName, funDecl);
@@ -79,7 +79,7 @@ public class NameChecker implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsVarName varName, Object visArg) {
 		try {
-			AbsDecl varDecl = symbTable.fnd(varName.name);
+			AbsDecl varDecl = symbTable.fnd(varName.id);
 			if (varDecl instanceof AbsVarDecl) {
 				SemAn.declAt().put(varName, varDecl);
 			} else {
@@ -95,7 +95,7 @@ public class NameChecker implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsTypeName typeName, Object visArg) {
 		try {
-			AbsDecl typeDecl = symbTable.fnd(typeName.name);
+			AbsDecl typeDecl = symbTable.fnd(typeName.id);
 			if (typeDecl instanceof AbsTypeDecl) {
 				SemAn.declAt().put(typeName, typeDecl);
 			} else {
@@ -44,7 +44,7 @@ public class NameDefiner implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsParDecl parDecl, Object visArg) {
 		try {
-			symbTable.ins(parDecl.name, parDecl);
+			symbTable.ins(parDecl.id, parDecl);
 		} catch (SymbTable.CannotInsNameException e) {
 			throw new Report.Error(parDecl.location, "Name of parameter '" + parDecl.name +
 				"' already exists " + e.msg + " in this scope.");
@@ -55,7 +55,7 @@ public class NameDefiner implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsFunDecl funDecl, Object visArg) {
 		try {
-			symbTable.ins(funDecl.name, funDecl);
+			symbTable.ins(funDecl.id, funDecl);
 		} catch (SymbTable.CannotInsNameException e) {
 			throw new Report.Error(funDecl.location, "Function name '" + funDecl.name +
 				"' already exists " + e.msg + " in this scope.");
@@ -66,7 +66,7 @@ public class NameDefiner implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsFunDef funDef, Object visArg) {
 		try {
-			symbTable.ins(funDef.name, funDef);
+			symbTable.ins(funDef.id, funDef);
 		} catch (SymbTable.CannotInsNameException e) {
 			throw new Report.Error(funDef.location, "Function name '" + funDef.name +
 				"' already exists " + e.msg + " in this scope.");
@@ -77,7 +77,7 @@ public class NameDefiner implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsVarDecl varDecl, Object visArg) {
 		try {
-			symbTable.ins(varDecl.name, varDecl);
+			symbTable.ins(varDecl.id, varDecl);
 		} catch (SymbTable.CannotInsNameException e) {
 			throw new Report.Error(varDecl.location, "Variable name '" + varDecl.name +
 				"' already exists " + e.msg + " in this scope.");
@@ -88,7 +88,7 @@ public class NameDefiner implements AbsVisitor<Object, Object> {
 	@Override
 	public Object visit(AbsTypeDecl typeDecl, Object visArg) {
 		try {
-			symbTable.ins(typeDecl.name, typeDecl);
+			symbTable.ins(typeDecl.id, typeDecl);
 		} catch (SymbTable.CannotInsNameException e) {
 			throw new Report.Error(typeDecl.location, "Type name '" + typeDecl.name +
 				"' already exists " + e.msg + " in this scope.");
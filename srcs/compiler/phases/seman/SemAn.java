@@ -162,7 +162,8 @@ public class SemAn extends Phase {
 		descType.lock();
 		isOfType.lock();
 		recSymbTable.lock();
-		Abstr.absTree().accept(new AbsLogger(logger).addSubvisitor(new SemLogger(logger)), null);
+		if (logger != null)
+			Abstr.absTree().accept(new AbsLogger(logger).addSubvisitor(new SemLogger(logger)), null);
 		super.close();
 	}
 
@@ -1,5 +1,6 @@
 package compiler.phases.seman;
 
+import java.io.*;
 import java.util.*;
 
 import common.report.*;
@@ -8,9 +9,15 @@ import compiler.phases.abstr.abstree.*;
 /**
  * Symbol table.
  *
+ * Names are denoted by their IDs (see {@link compiler.phases.lexan.Names}), so
+ * declarations of a name are found by indexing an array (spanning the IDs of
+ * names declared so far) instead of hashing the name.
+ *
  * @author sliva
  */
-public class SymbTable {
+public class SymbTable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * A symbol table record denoting a declaration of a name within a certain
@@ -18,7 +25,9 @@ public class SymbTable {
 	 *
 	 * @author sliva
 	 */
-	private class ScopedDecl {
+	private class ScopedDecl implements Serializable {
+
+		private static final long serialVersionUID = 1L;
 
 		/** The depth of the scope the declaration belongs to. */
 		public final int depth;
@@ -26,35 +35,55 @@ public class SymbTable {
 		/** The declaration. */
 		public final AbsDecl decl;
 
+		/** The ID of the name. */
+		public final int id;
+
+		/** The declaration of the same name it hides (or {@code null}). */
+		public final ScopedDecl hidden;
+
+		/** The preceding declaration within the same scope (or {@code null}). */
+		public final ScopedDecl prevInScope;
+
 		/**
 		 * Constructs a new record denoting a declaration of a name within a
 		 * certain scope.
 		 *
-		 * @param depth The depth of the scope the declaration belongs to.
-		 * @param decl  The declaration.
+		 * @param depth       The depth of the scope the declaration belongs to.
+		 * @param decl        The declaration.
+		 * @param id          The ID of the name.
+		 * @param hidden      The declaration of the same name it hides.
+		 * @param prevInScope The preceding declaration within the same scope.
 		 */
-		public ScopedDecl(int depth, AbsDecl decl) {
+		public ScopedDecl(int depth, AbsDecl decl, int id, ScopedDecl hidden, ScopedDecl prevInScope) {
 			this.depth = depth;
 			this.decl = decl;
+			this.id = id;
+			this.hidden = hidden;
+			this.prevInScope = prevInScope;
 		}
 
 	}
 
 	/**
-	 * A mapping of names into lists of records denoting declarations at
-	 * different scopes. At each moment during the lifetime of a symbol table,
-	 * the declaration list corresponding to a particular name contains all
-	 * declarations that name within currently active scopes: the declaration at
-	 * the inner most scope is the first in the list and is visible, the other
-	 * declarations are hidden.
+	 * A mapping of names (by IDs) into lists of records denoting declarations
+	 * at different scopes. At each moment during the lifetime of a symbol
+	 * table, the declaration list corresponding to a particular name contains
+	 * all declarations that name within currently active scopes: the
+	 * declaration at the inner most scope is the first in the list and is
+	 * visible, the other declarations are hidden (see
+	 * {@link ScopedDecl#hidden}).
 	 */
-	private final HashMap<String, LinkedList<ScopedDecl>> allDeclsOfAllNames;
+	private ScopedDecl[] allDeclsOfAllNames;
+
+	/** The ID of the name at index 0 of {@link #allDeclsOfAllNames} (or -1 if no name has been declared yet). */
+	private int baseId;
 
 	/**
-	 * The list of scopes. Each scope is represented by a list of names declared
-	 * within it.
+	 * The list of scopes. Each scope is represented by the last declaration
+	 * within it (or {@code null}), the other declarations within it follow
+	 * {@link ScopedDecl#prevInScope}.
 	 */
-	private final LinkedList<LinkedList<String>> scopes;
+	private final LinkedList<ScopedDecl> scopes;
 
 	/** The depth of the currently active scope. */
 	private int currDepth;
@@ -66,8 +95,9 @@ public class SymbTable {
 	 * Constructs a new symbol table.
 	 */
 	public SymbTable() {
-		allDeclsOfAllNames = new HashMap<String, LinkedList<ScopedDecl>>();
-		scopes = new LinkedList<LinkedList<String>>();
+		allDeclsOfAllNames = new ScopedDecl[16];
+		baseId = -1;
+		scopes = new LinkedList<ScopedDecl>();
 		currDepth = 0;
 		lock = false;
 	}
@@ -87,29 +117,38 @@ public class SymbTable {
 	 * scope. Once the symbol table is locked, any attempt to insert further
 	 * declarations results in an internal error.
 	 *
-	 * @param name The name.
+	 * @param id   The ID of the name.
 	 * @param decl The declaration.
 	 * @throws CannotInsNameException Thrown if this name has already been declared within the
 	 *                                currently active scope.
 	 */
-	public void ins(String name, AbsDecl decl) throws CannotInsNameException {
+	public void ins(int id, AbsDecl decl) throws CannotInsNameException {
 		if (lock)
 			throw new Report.InternalError();
 
-		LinkedList<ScopedDecl> allDeclsOfName = allDeclsOfAllNames.get(name);
-		if (allDeclsOfName == null) {
-			allDeclsOfName = new LinkedList<ScopedDecl>();
-			allDeclsOfAllNames.put(name, allDeclsOfName);
-		}
+		reserve(id);
+		ScopedDecl declOfName = allDeclsOfAllNames[id - baseId];
+		if (declOfName != null && declOfName.depth == currDepth)
+			throw new CannotInsNameException(declOfName.decl);
 
-		if (!allDeclsOfName.isEmpty()) {
-			ScopedDecl declOfName = allDeclsOfName.getFirst();
-			if (declOfName.depth == currDepth)
-				throw new CannotInsNameException(declOfName.decl);
-		}
+		ScopedDecl scopedDecl = new ScopedDecl(currDepth, decl, id, declOfName, scopes.getFirst());
+		allDeclsOfAllNames[id - baseId] = scopedDecl;
+		scopes.set(0, scopedDecl);
+	}
 
-		allDeclsOfName.addFirst(new ScopedDecl(currDepth, decl));
-		scopes.getFirst().addFirst(name);
+	/** Extends {@link #allDeclsOfAllNames} so that it includes the name with the specified ID. */
+	private void reserve(int id) {
+		if (baseId < 0)
+			baseId = id;
+		if (id < baseId) {
+			int newBaseId = Math.max(0, Math.min(id, baseId - allDeclsOfAllNames.length));
+			ScopedDecl[] decls = new ScopedDecl[allDeclsOfAllNames.length + baseId - newBaseId];
+			System.arraycopy(allDeclsOfAllNames, 0, decls, baseId - newBaseId, allDeclsOfAllNames.length);
+			allDeclsOfAllNames = decls;
+			baseId = newBaseId;
+		} else if (id - baseId >= allDeclsOfAllNames.length)
+			allDeclsOfAllNames = Arrays.copyOf(allDeclsOfAllNames,
+					Math.max(2 * allDeclsOfAllNames.length, id - baseId + 1));
 	}
 
 	/**
@@ -118,21 +157,21 @@ public class SymbTable {
 	 * enclosing it. If no declaration of the name exists within these scopes,
 	 * an exception is thrown.
 	 *
-	 * @param name The name.
+	 * @param id The ID of the name.
 	 * @return The declaration.
 	 *
 	 * @throws CannotFndNameException Thrown if the name is not declared within the currently
 	 *                                active scope or any scope enclosing it.
 	 */
-	public AbsDecl fnd(String name) throws CannotFndNameException {
-		LinkedList<ScopedDecl> allDeclsOfName = allDeclsOfAllNames.get(name);
-		if (allDeclsOfName == null)
+	public AbsDecl fnd(int id) throws CannotFndNameException {
+		if (baseId < 0 || id < baseId || id - baseId >= allDeclsOfAllNames.length)
 			throw new CannotFndNameException();
 
-		if (allDeclsOfName.isEmpty())
+		ScopedDecl declOfName = allDeclsOfAllNames[id - baseId];
+		if (declOfName == null)
 			throw new CannotFndNameException();
 
-		return allDeclsOfName.getFirst().decl;
+		return declOfName.decl;
 	}
 
 	/**
@@ -144,7 +183,7 @@ public class SymbTable {
 			throw new Report.InternalError();
 
 		currDepth++;
-		scopes.addFirst(new LinkedList<String>());
+		scopes.addFirst(null);
 	}
 
 	/**
@@ -159,8 +198,8 @@ public class SymbTable {
 		if (currDepth == 0)
 			throw new Report.InternalError();
 
-		for (String name : scopes.getFirst()) {
-			allDeclsOfAllNames.get(name).removeFirst();
+		for (ScopedDecl scopedDecl = scopes.getFirst(); scopedDecl != null; scopedDecl = scopedDecl.prevInScope) {
+			allDeclsOfAllNames[scopedDecl.id - baseId] = scopedDecl.hidden;
 		}
 		scopes.removeFirst();
 		currDepth--;
@@ -148,6 +148,9 @@ public class TypeChecker implements AbsVisitor<SemType, Object> {
 	@Override
 	public SemType visit(AbsFunDef funDef, Object visArg) {
 		funDef.parDecls.accept(this, null);
+		// types within a statement expression are defined when it is checked
+		if (!(funDef.value instanceof AbsStmtExpr))
+			funDef.value.accept(typeDefiner, null);
 		funDef.value.accept(this, null);
 		return null;
 	}
@@ -225,7 +228,7 @@ public class TypeChecker implements AbsVisitor<SemType, Object> {
 		SymbTable recSymbols = SemAn.recSymbTable().get((SemRecType) recType.actualType());
 		SemType type;
 		try {
-			AbsDecl recDecl = recSymbols.fnd(recExpr.comp.name);
+			AbsDecl recDecl = recSymbols.fnd(recExpr.comp.id);
 			// declare and confirm
 			SemAn.declAt().put(recExpr.comp, recDecl);
 			type = SemAn.descType().get(recDecl.type);
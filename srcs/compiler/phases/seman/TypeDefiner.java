@@ -66,7 +66,7 @@ public class TypeDefiner implements AbsVisitor<SemType, Object> {
 		recSymb.newScope();
 		for (AbsCompDecl decl : recType.compDecls.compDecls()) {
 			try {
-				recSymb.ins(decl.name, decl);
+				recSymb.ins(decl.id, decl);
 			} catch (SymbTable.CannotInsNameException e) {
 				SemAn.check(false, "Component name '" + decl.name + "' already exists on " + e.msg + ".", decl);
 			}
@@ -13,7 +13,7 @@ import java.util.HashSet;
  */
 public class TypeTester implements AbsVisitor<Object, Object> {
 
-	private static HashSet<AbsDecl> refDecls = new HashSet<>();
+	private final HashSet<AbsDecl> refDecls = new HashSet<>();
 	private static final boolean onlyActualTypes = false;
 
 	@Override
@@ -10,6 +10,8 @@ import common.logger.*;
  */
 public class SemArrType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The number of elements in an array. */
 	public final long len;
 
@@ -10,6 +10,8 @@ import common.logger.*;
  */
 public class SemBoolType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	@Override
 	public boolean assignable() {
 		return true;
@@ -13,6 +13,8 @@ import common.logger.*;
  */
 public class SemErrorType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	@Override
 	public boolean assignable() {
 		return false;
@@ -12,6 +12,8 @@ import compiler.phases.seman.*;
  */
 public class SemNamedType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The AST declaration of this type synonym. */
 	private final AbsTypeDecl typeDecl;
 
@@ -56,6 +58,9 @@ public class SemNamedType extends SemType {
 
 	@Override
 	public boolean matches(SemType that) {
+		// a synonym matches itself (also stops recursion through recursive types)
+		if (this == that)
+			return true;
 		return this.actualType().matches(that.actualType());
 	}
 
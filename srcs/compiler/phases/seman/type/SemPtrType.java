@@ -10,6 +10,8 @@ import common.logger.*;
  */
 public class SemPtrType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The type of a data a pointer points to. */
 	public final SemType subType;
 
@@ -11,6 +11,8 @@ import common.logger.*;
  */
 public class SemRecType extends SemType {
 
+	private static final long serialVersionUID = 1L;
+
 	/** The names of all components. */
 	private final Vector<String> compNames;
 
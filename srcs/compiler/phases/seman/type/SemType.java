@@ -1,5 +1,7 @@
 package compiler.phases.seman.type;
 
+import java.io.*;
+
 import common.logger.*;
 
 /**
@@ -11,7 +13,9 @@ import common.logger.*;
  * @author sliva
  *
  */
-public abstract class SemType implements Loggable {
+public abstract class SemType implements Loggable, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Returns the actual representation of {@code this} type.
@@ -1,6 +1,9 @@
 package compiler.phases.synan;
 
+import common.compilation.*;
 import common.report.*;
+import common.report.Trace.Level;
+import common.report.Trace.Subsystem;
 import compiler.phases.*;
 import compiler.phases.lexan.*;
 import compiler.phases.synan.dertree.*;
@@ -8,16 +11,18 @@ import compiler.phases.synan.dertree.*;
 /**
  * Syntax analysis.
  *
+ * The lexer performs the lexical analysis of the entire source file first and
+ * the parser then accesses the symbols by their indices (see {@link Tokens}).
+ *
  * @author sliva
  */
 public class SynAn extends Phase {
 
 
-	private static final boolean debug = false;
 	private final boolean completePhase = false;
 
 	/** The constructed derivation tree. */
-	private static DerTree derTree = null;
+	private static final CompilationLocal<DerTree> derTree = new CompilationLocal<>();
 
 	/**
 	 * Returns the constructed derivation tree.
@@ -25,22 +30,29 @@ public class SynAn extends Phase {
 	 * @return The constructed derivation tree.
 	 */
 	public static DerTree derTree() {
-		return derTree;
+		return derTree.get();
 	}
 
 	/** The lexical analyzer used by this syntax analyzer. */
 	private final LexAn lexAn;
 
+	/** The symbols of the source file. */
+	private final Tokens tokens;
+
 	/**
 	 * Constructs a new syntax analysis phase.
 	 */
 	public SynAn() {
 		super("synan");
 		lexAn = new LexAn();
+		tokens = lexAn.tokens();
 	}
 
-	/** The lookahead buffer (of length 1). */
-	private Symbol currSymb = null;
+	/** The index of the symbol in the lookahead buffer (of length 1). */
+	private int curr = -1;
+
+	/** Whether the lookahead buffer is empty. */
+	private boolean consumed = true;
 
 	/** Expressions CFG nonterminals for different levels of precedence */
 	private static final Nont[] exprNont = {
@@ -52,21 +64,19 @@ public class SynAn extends Phase {
 	 * Appends the current symbol in the lookahead buffer to the node of the
 	 * derivation tree that is currently being expanded by the parser.
 	 * <p>
-	 * Hence, the statement {@code currSymb = skip(node);} can be used for (a)
-	 * appending the current symbol in the lookahead buffer {@code currSymb} to
-	 * the node of the derivation tree and (b) eliminating this symbol from the
-	 * lookahead buffer.
+	 * Hence, the statement {@code skip(node);} can be used for (a) appending
+	 * the current symbol in the lookahead buffer to the node of the derivation
+	 * tree and (b) eliminating this symbol from the lookahead buffer.
 	 *
 	 * @param node The node of the derivation tree currently being expanded by
 	 *             the parser.
-	 * @return {@code null}.
 	 */
-	private Symbol skip(DerNode node) {
-		if (currSymb != null) {
-			if (debug) System.out.println("Skip: " + currSymb.token + " [" + currSymb.lexeme + "]");
-			node.add(new DerLeaf(currSymb));
+	private void skip(DerNode node) {
+		if (!consumed) {
+			if (tracing()) Trace.trace(Subsystem.SYNAN, Level.DETAIL, "Skip: " + currToken() + " [" + tokens.lexeme(curr) + "]");
+			node.add(new DerLeaf(tokens.symbol(curr)));
+			consumed = true;
 		}
-		return null;
 	}
 
 	/**
@@ -79,14 +89,27 @@ public class SynAn extends Phase {
 	 * @return The derivation tree.
 	 */
 	public DerTree parser() {
-		derTree = parseSource();
-		currSymb = currSymb == null ? lexAn.lexer() : currSymb;
-		if (currSymb.token != Term.EOF)
-			throw new Report.Error(currSymb, "Unexpected '" + currSymb + "' at the end of a program.");
-		derTree.accept(new DerLogger(logger), null);
+		DerTree derTree = parseSource();
+		SynAn.derTree.set(derTree);
+		getNextSymbol();
+		if (currToken() != Term.EOF)
+			throw new Report.Error(tokens.location(curr), "Unexpected '" + tokens.lexeme(curr) + "' at the end of a program.");
+		if (logger != null)
+			derTree.accept(new DerLogger(logger), null);
+		if (Stats.enabled())
+			Stats.count("derNodes", numOfNodes(derTree));
 		return derTree;
 	}
 
+	/** Counts the nodes (including leaves) of a derivation tree. */
+	private static long numOfNodes(DerTree derTree) {
+		long numOfNodes = 1;
+		if (derTree instanceof DerNode)
+			for (DerTree subtree : ((DerNode) derTree).subtrees())
+				numOfNodes += numOfNodes(subtree);
+		return numOfNodes;
+	}
+
 	@Override
 	public void close() {
 		lexAn.close();
@@ -95,29 +118,42 @@ public class SynAn extends Phase {
 
 
 	private void getNextSymbol() {
-		if (currSymb == null) currSymb = lexAn.lexer();
+		if (consumed) {
+			curr++;
+			consumed = false;
+		}
+	}
+
+	/** Returns the token of the symbol in the lookahead buffer. */
+	private Term currToken() {
+		return tokens.token(curr);
 	}
 
 
 	private void addLeafSymbol(DerNode node, Term matchingTerm, String errorMsg) {
 		getNextSymbol();
-		if (currSymb.token != matchingTerm)
-			report(currSymb, errorMsg);
-		currSymb = skip(node);
+		if (currToken() != matchingTerm)
+			report(errorMsg);
+		skip(node);
 	}
 
 
+	/** Traces a message (messages that must be built are to be traced only if {@link #tracing()}). */
 	private void dump(String msg) {
-		if (debug) System.out.println(msg + ": '" + currSymb.lexeme + "' (" + currSymb.token + ").");
+		if (tracing()) Trace.trace(Subsystem.SYNAN, Level.DETAIL, msg + ": '" + tokens.lexeme(curr) + "' (" + currToken() + ").");
+	}
+
+	private static boolean tracing() {
+		return Trace.on(Subsystem.SYNAN, Level.DETAIL);
 	}
 
 
-	private void report(Symbol symbol, String msg) {
-		String finalMsg = "Unexpected '" + symbol.lexeme + "' (" + symbol.token + "): " + msg;
+	private void report(String msg) {
+		String finalMsg = "Unexpected '" + tokens.lexeme(curr) + "' (" + currToken() + "): " + msg;
 		if (completePhase) {
-			Report.warning(symbol.location(), finalMsg);
+			Report.warning(tokens.location(curr), finalMsg);
 		} else {
-			throw new Report.Error(symbol.location(), finalMsg);
+			throw new Report.Error(tokens.location(curr), finalMsg);
 		}
 	}
 
@@ -133,7 +169,7 @@ public class SynAn extends Phase {
 	private DerNode parseExpr() {
 		DerNode node = new DerNode(Nont.Expr);
 		getNextSymbol();
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case ADD: case SUB:
 			case NOT: case MEM: case VAL: case NEW: case DEL:
 			case IDENTIFIER:
@@ -143,7 +179,7 @@ public class SynAn extends Phase {
 				node.add(parseExprHelper(1));
 				break;
 			default:
-				report(currSymb, "Expressions cannot start with that symbol.");
+				report("Expressions cannot start with that symbol.");
 		}
 		return node;
 	}
@@ -152,9 +188,9 @@ public class SynAn extends Phase {
 	private DerNode parseExprOnLevel(int level) {
 		DerNode node = new DerNode(exprNont[level - 1]);
 		getNextSymbol();
-		dump("Parse expr [" + level + "]");
+		if (tracing()) dump("Parse expr [" + level + "]");
 		if (level < 6) {
-			switch (currSymb.token) {
+			switch (currToken()) {
 				case ADD: case SUB:
 				case NOT: case MEM: case VAL: case NEW: case DEL:
 				case IDENTIFIER:
@@ -164,21 +200,21 @@ public class SynAn extends Phase {
 					node.add(parseExprHelper(level));
 					break;
 				default:
-					report(currSymb, "Not an expression [" + level + "].");
+					report("Not an expression [" + level + "].");
 			}
 		} else if (level == 6) {
-			switch (currSymb.token) {
+			switch (currToken()) {
 				case ADD: case SUB: case NOT:
 				case MEM: case VAL: case DEL:
-					currSymb = skip(node);
+					skip(node);
 					node.add(parseExprOnLevel(level));
 					break;
 				case NEW:
-					currSymb = skip(node);
+					skip(node);
 					node.add(parseType());
 					break;
 				case LBRACKET:
-					currSymb = skip(node);
+					skip(node);
 					node.add(parseType());
 					addLeafSymbol(node, Term.RBRACKET, "Type cast not closed with ']'");
 					node.add(parseExprOnLevel(level));
@@ -189,10 +225,10 @@ public class SynAn extends Phase {
 					node.add(parseExprOnLevel(level + 1));
 					break;
 				default:
-					report(currSymb, "Not an expression [" + level + "].");
+					report("Not an expression [" + level + "].");
 			}
 		} else if (level == 7) {
-			switch (currSymb.token) {
+			switch (currToken()) {
 				case IDENTIFIER:
 				case VOIDCONST: case BOOLCONST: case CHARCONST: case INTCONST: case PTRCONST:
 				case LBRACE: case LPARENTHESIS:
@@ -200,7 +236,7 @@ public class SynAn extends Phase {
 					node.add(parseAccess());
 					break;
 				default:
-					report(currSymb, "Not an expression on level: " + level + ".");
+					report("Not an expression on level: " + level + ".");
 			}
 		}
 		return node;
@@ -210,37 +246,37 @@ public class SynAn extends Phase {
 	private DerNode parseExprHelper(int level) {
 		DerNode node = new DerNode(exprNont[level - 1]);
 		getNextSymbol();
-		dump("Parse exprHelp [" + level + "]");
-		switch (currSymb.token) {
+		if (tracing()) dump("Parse exprHelp [" + level + "]");
+		switch (currToken()) {
 			case IOR: case XOR:
 				if (level > 1) break;
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExprOnLevel(level + 1));
 				node.add(parseExprHelper(level));
 				break;
 			case AND:
 				if (level > 2) break;
-				else if (level < 2) report(currSymb, "Not suitable symbol.");
-				currSymb = skip(node);
+				else if (level < 2) report("Not suitable symbol.");
+				skip(node);
 				node.add(parseExprOnLevel(level + 1));
 				node.add(parseExprHelper(level));
 				break;
 			case EQU: case NEQ: case LEQ: case GEQ: case LTH: case GTH:
 				if (level > 3) break;
-				else if (level < 3) report(currSymb, "Not suitable symbol.");
-				currSymb = skip(node);
+				else if (level < 3) report("Not suitable symbol.");
+				skip(node);
 				node.add(parseExprOnLevel(level + 1));
 				break;
 			case ADD: case SUB:
 				if (level > 4) break;
-				else if (level < 4) report(currSymb, "Not suitable symbol.");
-				currSymb = skip(node);
+				else if (level < 4) report("Not suitable symbol.");
+				skip(node);
 				node.add(parseExprOnLevel(level + 1));
 				node.add(parseExprHelper(level));
 				break;
 			case DIV: case MUL: case MOD:
-				if (level < 5) report(currSymb, "Not suitable symbol.");
-				currSymb = skip(node);
+				if (level < 5) report("Not suitable symbol.");
+				skip(node);
 				node.add(parseExprOnLevel(level + 1));
 				node.add(parseExprHelper(level));
 				break;
@@ -248,7 +284,7 @@ public class SynAn extends Phase {
 			case WHERE: case DO: case THEN: case END: case ASSIGN: case ELSE: case EOF:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol.");
+				report("Not suitable symbol.");
 		}
 		return node;
 	}
@@ -258,21 +294,21 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Term);
 		getNextSymbol();
 		dump("Parse term");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case BOOLCONST: case INTCONST: case CHARCONST: case PTRCONST: case VOIDCONST:
-				currSymb = skip(node);
+				skip(node);
 				break;
 			case LPARENTHESIS:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				addLeafSymbol(node, Term.RPARENTHESIS, "Expected ')' to enclose enclosed expression.");
 				break;
 			case IDENTIFIER:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseArgs());
 				break;
 			case LBRACE:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseStmt());
 				node.add(parseStmtExtention());
 				addLeafSymbol(node, Term.COLON, "Expected ':'.");
@@ -281,7 +317,7 @@ public class SynAn extends Phase {
 				addLeafSymbol(node, Term.RBRACE, "Expected ']'.");
 				break;
 			default:
-				report(currSymb, "Not suitable symbol to start a term expression.");
+				report("Not suitable symbol to start a term expression.");
 		}
 		return node;
 	}
@@ -291,10 +327,10 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Args);
 		getNextSymbol();
 		dump("Parse args");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case LPARENTHESIS:
 				// function call with args
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseArg());
 				addLeafSymbol(node, Term.RPARENTHESIS, "Expression not closed with ')'.");
 				break;
@@ -304,7 +340,7 @@ public class SynAn extends Phase {
 			case LBRACKET: case DOT:
 				break;
 			default:
-				report(currSymb, "Not suitable to start arguments.");
+				report("Not suitable to start arguments.");
 				break;
 
 		}
@@ -316,7 +352,7 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Arg);
 		getNextSymbol();
 		dump("Parse arg");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case ADD: case SUB: case BOOLCONST: case INTCONST: case CHARCONST: case PTRCONST:
 			case VOIDCONST: case LPARENTHESIS: case IDENTIFIER: case LBRACE: case NEQ:
 			case MEM: case VAL: case NEW: case DEL: case LBRACKET:
@@ -327,7 +363,7 @@ public class SynAn extends Phase {
 			case RPARENTHESIS:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for arguments.");
+				report("Not suitable symbol for arguments.");
 		}
 		return node;
 
@@ -338,16 +374,16 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.ArgExtension);
 		getNextSymbol();
 		dump("Parse argExtension");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case COMMA:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				node.add(parseArgExtension());
 				break;
 			case RPARENTHESIS:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for arguments.");
+				report("Not suitable symbol for arguments.");
 		}
 		return node;
 
@@ -358,15 +394,15 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Access);
 		getNextSymbol();
 		dump("Parse access");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case LBRACKET:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				addLeafSymbol(node, Term.RBRACKET, "Expected right bracket to enclose element access.");
 				node.add(parseAccess());
 				break;
 			case DOT:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.IDENTIFIER, "Expected identifier to access component.");
 				node.add(parseAccess());
 				break;
@@ -375,7 +411,7 @@ public class SynAn extends Phase {
 			case RBRACE: case SEMIC: case WHERE: case ASSIGN: case THEN: case ELSE: case END: case DO: case EOF:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for component/element access.");
+				report("Not suitable symbol for component/element access.");
 		}
 		return node;
 	}
@@ -385,19 +421,19 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Type);
 		getNextSymbol();
 		dump("Parse type");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case IDENTIFIER: case VOID: case BOOL: case CHAR: case INT:
-				currSymb = skip(node);
+				skip(node);
 				break;
 			case ARR:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.LBRACKET, "Array type; Expected '['.");
 				node.add(parseExpr());
 				addLeafSymbol(node, Term.RBRACKET, "Array type; Expected ']' to enclose array definition.");
 				node.add(parseType());
 				break;
 			case REC:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.LPARENTHESIS, "Record type; Expected '('.");
 				addLeafSymbol(node, Term.IDENTIFIER, "Record type; Expected identifier.");
 				addLeafSymbol(node, Term.COLON, "Record type; Expected ':'.");
@@ -406,11 +442,11 @@ public class SynAn extends Phase {
 				addLeafSymbol(node, Term.RPARENTHESIS, "Record type; Expected ')' at the end of rec type declaration.");
 				break;
 			case PTR:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseType());
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for a type.");
+				report("Not suitable symbol for a type.");
 		}
 		return node;
 	}
@@ -420,9 +456,9 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Identifiers);
 		getNextSymbol();
 		dump("Parse identifiers");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case IDENTIFIER:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.COLON, "Expected ':'.");
 				node.add(parseType());
 				node.add(parseIdentifiersExtension());
@@ -430,7 +466,7 @@ public class SynAn extends Phase {
 			case RPARENTHESIS:
 				break; // no identifiers
 			default:
-				report(currSymb, "Not suitable symbol for arguments declaration.");
+				report("Not suitable symbol for arguments declaration.");
 		}
 		return node;
 	}
@@ -440,9 +476,9 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.IdentifiersExtension);
 		getNextSymbol();
 		dump("Parse identifiers");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case COMMA:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.IDENTIFIER, "Expected identifier.");
 				addLeafSymbol(node, Term.COLON, "Expected ':'.");
 				node.add(parseType());
@@ -451,7 +487,7 @@ public class SynAn extends Phase {
 			case RPARENTHESIS:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for identifiers.");
+				report("Not suitable symbol for identifiers.");
 		}
 		return node;
 	}
@@ -461,7 +497,7 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Stmt);
 		getNextSymbol();
 		dump("Parse stmt");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case ADD: case SUB: case BOOLCONST: case INTCONST: case CHARCONST: case PTRCONST:
 			case VOIDCONST: case LPARENTHESIS: case IDENTIFIER: case LBRACE: case NOT:
 			case VAL: case MEM: case NEW: case DEL: case LBRACKET:
@@ -469,7 +505,7 @@ public class SynAn extends Phase {
 				node.add(parseAssign());
 				break;
 			case IF:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				addLeafSymbol(node, Term.THEN, "Expected 'then' symbol.");
 				node.add(parseStmt());
@@ -478,7 +514,7 @@ public class SynAn extends Phase {
 				addLeafSymbol(node, Term.END, "Expected 'end' symbol.");
 				break;
 			case WHILE:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				addLeafSymbol(node, Term.DO, "Expected 'do' symbol.");
 				node.add(parseStmt());
@@ -486,7 +522,7 @@ public class SynAn extends Phase {
 				addLeafSymbol(node, Term.END, "Expected 'end' symbol.");
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for statement.");
+				report("Not suitable symbol for statement.");
 		}
 		return node;
 	}
@@ -496,16 +532,16 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.StmtExtension);
 		getNextSymbol();
 		dump("Parse stmts");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case SEMIC:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseStmt());
 				node.add(parseStmtExtention());
 				break;
 			case COLON: case END: case ELSE:
 				break;
 			default:
-				report(currSymb, "Expected ';' symbol for more statements, ':', 'end' or 'else' symbols.");
+				report("Expected ';' symbol for more statements, ':', 'end' or 'else' symbols.");
 		}
 		return node;
 	}
@@ -515,16 +551,16 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Else);
 		getNextSymbol();
 		dump("Parse else");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case ELSE:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseStmt());
 				node.add(parseStmtExtention());
 				break;
 			case END:
 				break;
 			default:
-				report(currSymb, "Expected 'else' or 'end' symbol.");
+				report("Expected 'else' or 'end' symbol.");
 		}
 		return node;
 	}
@@ -534,15 +570,15 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Assign);
 		getNextSymbol();
 		dump("Parse assign");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case ASSIGN:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseExpr());
 				break;
 			case COLON: case RBRACE: case SEMIC: case END: case ELSE:
 				break;
 			default:
-				report(currSymb, "Expected '=' to declare function body.");
+				report("Expected '=' to declare function body.");
 		}
 		return node;
 	}
@@ -552,16 +588,16 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Where);
 		getNextSymbol();
 		dump("Parse where");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case WHERE:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseDecl());
 				node.add(parseDeclExtension());
 				break;
 			case RBRACE:
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for where statement. Expected 'where' or '}' symbol.");
+				report("Not suitable symbol for where statement. Expected 'where' or '}' symbol.");
 		}
 		return node;
 
@@ -572,15 +608,15 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.Decl);
 		getNextSymbol();
 		dump("Parse declaration");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case TYP: case VAR:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.IDENTIFIER, "Expected typ/var identifier.");
 				addLeafSymbol(node, Term.COLON, "Expected ':' symbol.");
 				node.add(parseType());
 				break;
 			case FUN:
-				currSymb = skip(node);
+				skip(node);
 				addLeafSymbol(node, Term.IDENTIFIER, "Expected function identifier.");
 				addLeafSymbol(node, Term.LPARENTHESIS, "Expected '(' symbol.");
 				node.add(parseIdentifiers());
@@ -590,7 +626,7 @@ public class SynAn extends Phase {
 				node.add(parseAssign());
 				break;
 			default:
-				report(currSymb, "Not suitable symbol for declaration. Expected 'fun', 'var' or 'typ' symbol.");
+				report("Not suitable symbol for declaration. Expected 'fun', 'var' or 'typ' symbol.");
 		}
 		return node;
 	}
@@ -600,16 +636,16 @@ public class SynAn extends Phase {
 		DerNode node = new DerNode(Nont.DeclExtension);
 		getNextSymbol();
 		dump("Parse declarations");
-		switch (currSymb.token) {
+		switch (currToken()) {
 			case SEMIC:
-				currSymb = skip(node);
+				skip(node);
 				node.add(parseDecl());
 				node.add(parseDeclExtension());
 				break;
 			case RBRACE:
 				break;
 			default:
-				report(currSymb, "Expected ';' for more decelerations or '}' symbol.");
+				report("Expected ';' for more decelerations or '}' symbol.");
 		}
 		return node;
 	}